@@ -0,0 +1,225 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gdevelop.gwt.syncrpc.exception.BulkheadFullException;
+import com.google.gwt.user.client.rpc.StatusCodeException;
+
+/**
+ * Limits the number of calls in flight to a remote service url, or of a
+ * single proxy, according to its {@link BulkheadPolicy}. Calls over the limit
+ * wait in a bounded FIFO queue, and are rejected with a
+ * {@link BulkheadFullException} when the queue is full or they waited too long.
+ *
+ * In adaptive mode the limit follows an AIMD scheme: it grows by one after a
+ * full limit of successful calls made while the bulkhead was saturated, and is
+ * multiplied by the backoff ratio on each overload signal (timeouts,
+ * connection errors, 5xx and 429 statuses).
+ *
+ * @since 0.6
+ */
+public class Bulkhead {
+	/**
+	 * A call waiting for a slot
+	 */
+	private static final class Waiter {
+		boolean granted;
+		boolean rejected;
+	}
+
+	/**
+	 * @return the bulkhead of the endpoint, created with the provided policy
+	 *         if this is the first use of the endpoint
+	 */
+	public static Bulkhead forEndpoint(String remoteServiceURL,
+			BulkheadPolicy policy) {
+		Bulkhead bulkhead = BULKHEADS.get(remoteServiceURL);
+		if (bulkhead == null) {
+			Bulkhead created = new Bulkhead(remoteServiceURL, policy);
+			bulkhead = BULKHEADS.putIfAbsent(remoteServiceURL, created);
+			if (bulkhead == null) {
+				bulkhead = created;
+			}
+		}
+		return bulkhead;
+	}
+
+	/**
+	 * @return the bulkhead of the endpoint, null if it was never called with
+	 *         a per endpoint {@link BulkheadPolicy}
+	 */
+	public static Bulkhead get(String remoteServiceURL) {
+		return BULKHEADS.get(remoteServiceURL);
+	}
+
+	/**
+	 * @return true if the failure shows that the endpoint is overloaded
+	 */
+	static boolean isOverload(Throwable failure) {
+		if (failure instanceof StatusCodeException
+				&& ((StatusCodeException) failure).getStatusCode() == 429) {
+			return true;
+		}
+		return CircuitBreaker.isFailure(failure);
+	}
+
+	private final String name;
+	private final BulkheadPolicy policy;
+	private final ArrayDeque<Waiter> waiters = new ArrayDeque<Waiter>();
+	private double limit;
+	private int inFlight;
+	private long rejectedCount;
+
+	protected Bulkhead(String name, BulkheadPolicy policy) {
+		this.name = name;
+		this.policy = policy;
+		this.limit = policy.getMaxConcurrent();
+	}
+
+	/**
+	 * Waits for a slot. Each acquisition must be followed by
+	 * {@link #release(Throwable)}.
+	 *
+	 * @param maxWaitMillis
+	 *            bound of the wait, in addition to the policy maximum wait
+	 * @throws BulkheadFullException
+	 *             if the queue is full or no slot was freed in time
+	 * @throws InterruptedException
+	 *             if interrupted while waiting, no slot is then held
+	 */
+	public synchronized void acquire(long maxWaitMillis)
+			throws BulkheadFullException, InterruptedException {
+		if (this.waiters.isEmpty() && this.inFlight < getLimit()) {
+			this.inFlight++;
+			return;
+		}
+		if (this.waiters.size() >= this.policy.getMaxQueue()) {
+			if (this.policy.getRejection() != BulkheadPolicy.Rejection.REJECT_OLDEST
+					|| this.waiters.isEmpty()) {
+				throw reject("queue full");
+			}
+			this.waiters.poll().rejected = true;
+			notifyAll();
+		}
+		Waiter waiter = new Waiter();
+		this.waiters.add(waiter);
+		long wait = Math.min(maxWaitMillis, this.policy.getMaxWait());
+		long end = System.nanoTime() + wait * 1000000;
+		try {
+			while (!waiter.granted && !waiter.rejected) {
+				long remaining = (end - System.nanoTime()) / 1000000;
+				if (remaining <= 0) {
+					this.waiters.remove(waiter);
+					throw reject("no slot freed within " + wait + "ms");
+				}
+				wait(remaining);
+			}
+		} catch (InterruptedException e) {
+			if (waiter.granted) {
+				release(null);
+			} else {
+				this.waiters.remove(waiter);
+			}
+			throw e;
+		}
+		if (waiter.rejected) {
+			throw reject("evicted from the queue");
+		}
+	}
+
+	/**
+	 * @return the current limit of calls in flight
+	 */
+	public synchronized int getLimit() {
+		return (int) this.limit;
+	}
+
+	public synchronized int getInFlight() {
+		return this.inFlight;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public BulkheadPolicy getPolicy() {
+		return this.policy;
+	}
+
+	public synchronized int getQueued() {
+		return this.waiters.size();
+	}
+
+	/**
+	 * @return number of calls rejected since creation
+	 */
+	public synchronized long getRejectedCount() {
+		return this.rejectedCount;
+	}
+
+	/**
+	 * Frees the slot of a call, and hands it over to the oldest waiting call
+	 *
+	 * @param failure
+	 *            the failure of the call, null if it succeeded
+	 */
+	public synchronized void release(Throwable failure) {
+		boolean saturated = this.inFlight >= getLimit();
+		this.inFlight--;
+		if (this.policy.isAdaptive()) {
+			int previous = getLimit();
+			if (failure != null && isOverload(failure)) {
+				this.limit = Math.max(this.policy.getMinConcurrent(),
+						this.limit * this.policy.getBackoffRatio());
+			} else if (saturated) {
+				this.limit = Math.min(this.policy.getMaxConcurrent(),
+						this.limit + 1 / this.limit);
+			}
+			if (getLimit() != previous && logger.isLoggable(Level.FINE)) {
+				logger.fine("Limit of " + this.name + " is now " + getLimit());
+			}
+		}
+		while (this.inFlight < getLimit() && !this.waiters.isEmpty()) {
+			this.waiters.poll().granted = true;
+			this.inFlight++;
+		}
+		notifyAll();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "Bulkhead[" + this.name + ", limit=" + getLimit()
+				+ ", inFlight=" + this.inFlight + ", queued="
+				+ this.waiters.size() + "]";
+	}
+
+	private BulkheadFullException reject(String reason) {
+		this.rejectedCount++;
+		return new BulkheadFullException("Call to " + this.name
+				+ " rejected, " + reason + " (limit " + getLimit() + ")");
+	}
+
+	private static final ConcurrentMap<String, Bulkhead> BULKHEADS = new ConcurrentHashMap<String, Bulkhead>();
+
+	private static final Logger logger = Logger.getLogger(Bulkhead.class
+			.getName());
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+/**
+ * Limits of a {@link Bulkhead}. Set methods return the policy for chaining. A
+ * policy should be configured before being set on the {@link ProxySettings}.
+ *
+ * @since 0.6
+ */
+public class BulkheadPolicy {
+	/**
+	 * What happens to a call arriving when the wait queue is full
+	 */
+	public enum Rejection {
+		/**
+		 * The arriving call is rejected
+		 */
+		REJECT_NEW,
+		/**
+		 * The call waiting for the longest time is rejected, in favor of the
+		 * arriving one
+		 */
+		REJECT_OLDEST
+	}
+
+	private int maxConcurrent = 10;
+	private int maxQueue = 50;
+	private long maxWait = 10000;
+	private Rejection rejection = Rejection.REJECT_NEW;
+	private boolean perEndpoint = true;
+	private boolean adaptive;
+	private int minConcurrent = 1;
+	private double backoffRatio = 0.9;
+
+	/**
+	 * @return the factor applied to the adaptive limit on overload
+	 */
+	public double getBackoffRatio() {
+		return this.backoffRatio;
+	}
+
+	/**
+	 * @return the maximum number of calls in flight, the upper bound of the
+	 *         limit in adaptive mode
+	 */
+	public int getMaxConcurrent() {
+		return this.maxConcurrent;
+	}
+
+	/**
+	 * @return the maximum number of calls waiting for a slot
+	 */
+	public int getMaxQueue() {
+		return this.maxQueue;
+	}
+
+	/**
+	 * @return the maximum time in milliseconds a call waits for a slot
+	 */
+	public long getMaxWait() {
+		return this.maxWait;
+	}
+
+	/**
+	 * @return the lower bound of the limit in adaptive mode
+	 */
+	public int getMinConcurrent() {
+		return this.minConcurrent;
+	}
+
+	public Rejection getRejection() {
+		return this.rejection;
+	}
+
+	/**
+	 * @return true if the limit adapts to the server health: additive
+	 *         increase while calls succeed at full use, multiplicative
+	 *         decrease on timeouts, connection errors and 5xx or 429 statuses
+	 */
+	public boolean isAdaptive() {
+		return this.adaptive;
+	}
+
+	/**
+	 * @return true if the limit is shared by all the proxies of a remote
+	 *         service url, false if each proxy has its own
+	 */
+	public boolean isPerEndpoint() {
+		return this.perEndpoint;
+	}
+
+	public BulkheadPolicy setAdaptive(boolean adaptive) {
+		this.adaptive = adaptive;
+		return this;
+	}
+
+	/**
+	 * @param backoffRatio
+	 *            the factor applied to the adaptive limit on overload, from 0
+	 *            to 1 (exclusive)
+	 */
+	public BulkheadPolicy setBackoffRatio(double backoffRatio) {
+		if (backoffRatio <= 0 || backoffRatio >= 1) {
+			throw new IllegalArgumentException(
+					"backoffRatio must be within ]0, 1[");
+		}
+		this.backoffRatio = backoffRatio;
+		return this;
+	}
+
+	public BulkheadPolicy setMaxConcurrent(int maxConcurrent) {
+		if (maxConcurrent < 1) {
+			throw new IllegalArgumentException(
+					"maxConcurrent must be positive");
+		}
+		this.maxConcurrent = maxConcurrent;
+		return this;
+	}
+
+	/**
+	 * @param maxQueue
+	 *            the maximum number of calls waiting for a slot, 0 to reject
+	 *            calls as soon as the limit is reached
+	 */
+	public BulkheadPolicy setMaxQueue(int maxQueue) {
+		this.maxQueue = maxQueue;
+		return this;
+	}
+
+	public BulkheadPolicy setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+		return this;
+	}
+
+	public BulkheadPolicy setMinConcurrent(int minConcurrent) {
+		if (minConcurrent < 1) {
+			throw new IllegalArgumentException(
+					"minConcurrent must be positive");
+		}
+		this.minConcurrent = minConcurrent;
+		return this;
+	}
+
+	public BulkheadPolicy setPerEndpoint(boolean perEndpoint) {
+		this.perEndpoint = perEndpoint;
+		return this;
+	}
+
+	public BulkheadPolicy setRejection(Rejection rejection) {
+		this.rejection = rejection;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "BulkheadPolicy[maxConcurrent=" + this.maxConcurrent
+				+ ", maxQueue=" + this.maxQueue + ", maxWait=" + this.maxWait
+				+ ", rejection=" + this.rejection + ", adaptive="
+				+ this.adaptive + "]";
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the responses of a service method on the client, keyed by the
+ * remote service url and the serialized request, which holds the method and
+ * its arguments. A cached response is returned without contacting the server.
+ * The cache is shared by all the proxies, so the response must not depend on
+ * the session. May be placed on the synchronous or the asynchronous method.
+ *
+ * By default the encoded responses are cached and decoded on each hit, since
+ * the returned objects are mutable. Methods returning immutable values may
+ * cache the decoded objects instead, see {@link ResponseCache.Storage}.
+ *
+ * @see ResponseCache
+ * @since 0.6
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cached {
+	ResponseCache.Eviction eviction() default ResponseCache.Eviction.LRU;
+
+	/**
+	 * @return the maximum number of cached responses
+	 */
+	int maxEntries() default 1000;
+
+	/**
+	 * @return the maximum total size of the cached responses in characters of
+	 *         their encoded form, 0 for no limit
+	 */
+	long maxWeight() default 0;
+
+	ResponseCache.Storage storage() default ResponseCache.Storage.ENCODED;
+
+	/**
+	 * @return the time to live of a response in milliseconds, 0 to keep it
+	 *         until evicted
+	 */
+	long ttl() default 60000;
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.lang.reflect.Method;
+
+/**
+ * State of a single invocation of a service method, shared by the steps of
+ * the call (serialization, sending, retries).
+ *
+ * @since 0.6
+ */
+final class CallContext {
+	final Method method;
+	/**
+	 * The synchronous method matching an asynchronous invocation, null for a
+	 * synchronous invocation
+	 */
+	final Method syncMethod;
+	final String serviceIntfName;
+	final Class<?>[] paramTypes;
+	final int paramCount;
+	final Object[] args;
+	final CallTimeouts timeouts;
+	/**
+	 * Policy applied to the call, null if it is not retried
+	 */
+	final RetryPolicy retryPolicy;
+
+	/**
+	 * Measurements of the call, null if neither a {@link MetricsListener}, a
+	 * {@link Tracer} nor a recording uses them
+	 */
+	CallMetrics metrics;
+	/**
+	 * {@link FlightRecorderEvent#CALL} event of the call, null if not
+	 * recorded
+	 */
+	Object event;
+	/**
+	 * Span of the call, null if not traced
+	 */
+	Tracer.Span span;
+	/**
+	 * Endpoint selected by the {@link LoadBalancer}, null if none
+	 */
+	LoadBalancer.Endpoint endpoint;
+	/**
+	 * Hedging of the call, null if it is not hedged
+	 */
+	Hedged hedged;
+	/**
+	 * Latencies of the hedged method
+	 */
+	LatencyTracker latencyTracker;
+
+	/**
+	 * Number of times the payload was sent
+	 */
+	int attempts;
+	/**
+	 * Coalescing of the call with identical calls in flight, null if not
+	 * coalesced
+	 */
+	Coalesce coalesce;
+	/**
+	 * Cache of the responses of the method, null if not cached
+	 */
+	ResponseCache cache;
+	/**
+	 * <code>//OK</code> payload of the response, set once the call returned
+	 * a value
+	 */
+	volatile String encodedResponse;
+
+	CallContext(Method method, Method syncMethod, String serviceIntfName,
+			Class<?>[] paramTypes, int paramCount, Object[] args,
+			CallTimeouts timeouts, RetryPolicy retryPolicy) {
+		this.method = method;
+		this.syncMethod = syncMethod;
+		this.serviceIntfName = serviceIntfName;
+		this.paramTypes = paramTypes;
+		this.paramCount = paramCount;
+		this.args = args;
+		this.timeouts = timeouts;
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Adds the duration to the phase, if the call is measured
+	 */
+	void addPhase(CallMetrics.Phase phase, long nanos) {
+		CallMetrics m = this.metrics;
+		if (m != null) {
+			m.addPhase(phase, nanos);
+		}
+	}
+
+	String getMethodName() {
+		return this.method.getName();
+	}
+
+	/**
+	 * @param syncMethod
+	 *            the synchronous method of an asynchronous invocation, or null
+	 * @return true if the invoked method, the synchronous method or one of
+	 *         their interfaces is annotated with {@link Idempotent}
+	 */
+	static boolean isIdempotent(Method method, Method syncMethod) {
+		return isIdempotent(method)
+				|| (syncMethod != null && isIdempotent(syncMethod));
+	}
+
+	private static boolean isIdempotent(Method method) {
+		return method.isAnnotationPresent(Idempotent.class)
+				|| method.getDeclaringClass().isAnnotationPresent(
+						Idempotent.class);
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measurements of a single service call, handed to the
+ * {@link MetricsListener}.
+ *
+ * @since 0.6
+ */
+public class CallMetrics {
+	/**
+	 * Steps of a call. Network phases are summed over the requests of the
+	 * call (retries, hedges).
+	 */
+	public enum Phase {
+		/**
+		 * Settings, policy and method lookups, endpoint selection
+		 */
+		SETUP,
+		/**
+		 * Writing the arguments and building the payload
+		 */
+		SERIALIZATION,
+		/**
+		 * Opening the connection
+		 */
+		CONNECT,
+		/**
+		 * Sending the payload
+		 */
+		REQUEST_WRITE,
+		/**
+		 * Waiting for the response headers, mostly server time
+		 */
+		TIME_TO_FIRST_BYTE,
+		/**
+		 * Receiving the response body
+		 */
+		RESPONSE_READ,
+		/**
+		 * Parsing the response and creating the objects
+		 */
+		DESERIALIZATION,
+		/**
+		 * Running the callback of an asynchronous call
+		 */
+		CALLBACK;
+
+		static final Phase[] VALUES = values();
+	}
+
+	/**
+	 * Sizes of a call, summed over its requests and decoded responses
+	 */
+	public enum Counter {
+		/**
+		 * Size of the request payloads in UTF-8 bytes
+		 */
+		REQUEST_BYTES,
+		/**
+		 * Size of the response bodies in bytes
+		 */
+		RESPONSE_BYTES,
+		/**
+		 * Strings in the string tables of the responses
+		 */
+		STRING_TABLE_SIZE,
+		/**
+		 * Tokens of the responses
+		 */
+		TOKENS,
+		/**
+		 * Objects created by deserialization, strings and arrays included
+		 */
+		OBJECTS;
+
+		static final Counter[] VALUES = values();
+	}
+
+	private final String serviceName;
+	private final String methodName;
+	private final long startNanos;
+	private final AtomicLongArray phaseNanos = new AtomicLongArray(
+			Phase.VALUES.length);
+	private final AtomicLongArray counts = new AtomicLongArray(
+			Counter.VALUES.length);
+	long durationNanos;
+	Throwable failure;
+	int attempts;
+
+	CallMetrics(String serviceName, String methodName, long startNanos) {
+		this.serviceName = serviceName;
+		this.methodName = methodName;
+		this.startNanos = startNanos;
+	}
+
+	/**
+	 * @return the number of requests sent, including retries and hedges; 0
+	 *         if answered without contacting the server
+	 */
+	public int getAttempts() {
+		return this.attempts;
+	}
+
+	/**
+	 * @return the value of the counter, 0 if the call did not contact the
+	 *         server nor decode a response
+	 */
+	public long getCount(Counter counter) {
+		return this.counts.get(counter.ordinal());
+	}
+
+	/**
+	 * @return the time from the invocation to the completion of the call
+	 */
+	public long getDuration(TimeUnit unit) {
+		return unit.convert(this.durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return the exception of the call, null if it succeeded
+	 */
+	public Throwable getFailure() {
+		return this.failure;
+	}
+
+	/**
+	 * @return the time spent in the phase, 0 if the call did not go through
+	 *         it
+	 */
+	public long getPhase(Phase phase, TimeUnit unit) {
+		return unit.convert(this.phaseNanos.get(phase.ordinal()),
+				TimeUnit.NANOSECONDS);
+	}
+
+	public String getMethodName() {
+		return this.methodName;
+	}
+
+	/**
+	 * @return the name of the synchronous service interface
+	 */
+	public String getServiceName() {
+		return this.serviceName;
+	}
+
+	/**
+	 * @return the {@link System#nanoTime()} of the invocation
+	 */
+	public long getStartNanos() {
+		return this.startNanos;
+	}
+
+	public boolean isFailed() {
+		return this.failure != null;
+	}
+
+	void addCount(Counter counter, long count) {
+		this.counts.addAndGet(counter.ordinal(), count);
+	}
+
+	/**
+	 * Adds the time spent in a phase, which may be measured several times
+	 * concurrently by hedged requests
+	 */
+	void addPhase(Phase phase, long nanos) {
+		this.phaseNanos.addAndGet(phase.ordinal(), nanos);
+	}
+
+	@Override
+	public String toString() {
+		return "CallMetrics[" + this.serviceName + "." + this.methodName
+				+ ", " + this.durationNanos / 1000 + "us, attempts="
+				+ this.attempts + (this.failure != null ? ", failure="
+				+ this.failure.getClass().getName() : "") + "]";
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.lang.reflect.Method;
+
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException;
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException.Kind;
+
+/**
+ * Time budgets of a single call, from the {@link HasProxySettings} and the
+ * {@link Timeout} annotations of the invoked method. The deadline is counted
+ * from the start of the invocation.
+ *
+ * @since 0.6
+ */
+final class CallTimeouts {
+	static final CallTimeouts NONE = new CallTimeouts(0, 0, 0, 0);
+
+	/**
+	 * Resolves the budgets of a call. For each budget, the first
+	 * {@link Timeout} value found on the methods, then on their declaring
+	 * classes, is used, else the value of the settings.
+	 *
+	 * @param methods
+	 *            the invoked method and, for asynchronous calls, the
+	 *            synchronous method; null entries are ignored
+	 */
+	static CallTimeouts of(HasProxySettings settings, long startNanos,
+			Method... methods) {
+		int connectTimeout = settings.getConnectTimeout();
+		int readTimeout = settings.getReadTimeout();
+		long deadline = settings.getDeadline();
+		boolean connectSet = false;
+		boolean readSet = false;
+		boolean deadlineSet = false;
+		for (int pass = 0; pass < 2; pass++) {
+			for (Method method : methods) {
+				if (method == null) {
+					continue;
+				}
+				Timeout timeout = pass == 0 ? method
+						.getAnnotation(Timeout.class) : method
+						.getDeclaringClass().getAnnotation(Timeout.class);
+				if (timeout == null) {
+					continue;
+				}
+				if (!connectSet && timeout.connect() >= 0) {
+					connectTimeout = timeout.connect();
+					connectSet = true;
+				}
+				if (!readSet && timeout.read() >= 0) {
+					readTimeout = timeout.read();
+					readSet = true;
+				}
+				if (!deadlineSet && timeout.deadline() >= 0) {
+					deadline = timeout.deadline();
+					deadlineSet = true;
+				}
+			}
+		}
+		return new CallTimeouts(connectTimeout, readTimeout, deadline,
+				startNanos);
+	}
+
+	/**
+	 * @return the timeout, bounded by the remaining time; 0 for no limit
+	 */
+	static int bound(int timeout, long remaining) {
+		if (remaining == Long.MAX_VALUE) {
+			return timeout;
+		}
+		int bounded = (int) Math.max(1, Math.min(remaining, Integer.MAX_VALUE));
+		return timeout <= 0 ? bounded : Math.min(timeout, bounded);
+	}
+
+	final int connectTimeout;
+	final int readTimeout;
+	final long deadline;
+	private final long expiresAt;
+
+	CallTimeouts(int connectTimeout, int readTimeout, long deadline,
+			long startNanos) {
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+		this.deadline = deadline;
+		this.expiresAt = startNanos + deadline * 1000000L;
+	}
+
+	/**
+	 * @return the exception reporting the expiry of the deadline
+	 */
+	RpcTimeoutException expired(String url, Throwable cause) {
+		return new RpcTimeoutException(Kind.DEADLINE, this.deadline, url, cause);
+	}
+
+	/**
+	 * @return the connect timeout to use, bounded by the remaining time
+	 */
+	int getConnectTimeout(long remaining) {
+		return bound(this.connectTimeout, remaining);
+	}
+
+	/**
+	 * @return the read timeout to use, bounded by the remaining time
+	 */
+	int getReadTimeout(long remaining) {
+		return bound(this.readTimeout, remaining);
+	}
+
+	/**
+	 * @return milliseconds left before the deadline, {@link Long#MAX_VALUE} if
+	 *         there is no deadline
+	 */
+	long getRemainingMillis() {
+		if (!hasDeadline()) {
+			return Long.MAX_VALUE;
+		}
+		long remainingNanos = this.expiresAt - System.nanoTime();
+		return remainingNanos <= 0 ? 0 : (remainingNanos + 999999) / 1000000;
+	}
+
+	boolean hasDeadline() {
+		return this.deadline > 0;
+	}
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+import com.gdevelop.gwt.syncrpc.exception.CircuitOpenException;
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException;
+import com.google.gwt.user.client.rpc.InvocationException;
+import com.google.gwt.user.client.rpc.StatusCodeException;
+
+/**
+ * Circuit breaker of a service endpoint (remote service url), shared by all
+ * the proxies calling it. Once the endpoint fails too much, according to its
+ * {@link CircuitBreakerPolicy}, the circuit opens and calls fail fast with a
+ * {@link CircuitOpenException} instead of piling up on the server. After the
+ * open duration, a limited number of probe requests are let through (half
+ * open): the circuit closes if they succeed and opens again otherwise.
+ *
+ * Failures are connection errors, timeouts and 5xx statuses. Exceptions thrown
+ * by the service itself are successful exchanges with the server.
+ *
+ * @since 0.6
+ */
+public class CircuitBreaker {
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	/**
+	 * @return the breaker of the endpoint, created with the provided policy
+	 *         if this is the first use of the endpoint
+	 */
+	public static CircuitBreaker forEndpoint(String remoteServiceURL,
+			CircuitBreakerPolicy policy) {
+		CircuitBreaker breaker = BREAKERS.get(remoteServiceURL);
+		if (breaker == null) {
+			CircuitBreaker created = new CircuitBreaker(remoteServiceURL,
+					policy);
+			breaker = BREAKERS.putIfAbsent(remoteServiceURL, created);
+			if (breaker == null) {
+				breaker = created;
+			}
+		}
+		return breaker;
+	}
+
+	/**
+	 * @return the breaker of the endpoint, null if it was never called with
+	 *         a {@link CircuitBreakerPolicy}
+	 */
+	public static CircuitBreaker get(String remoteServiceURL) {
+		return BREAKERS.get(remoteServiceURL);
+	}
+
+	/**
+	 * @return true if the failure shows that the endpoint is unhealthy
+	 */
+	static boolean isFailure(Throwable failure) {
+		if (failure instanceof StatusCodeException) {
+			return ((StatusCodeException) failure).getStatusCode() >= 500;
+		}
+		if (failure instanceof RpcTimeoutException) {
+			return true;
+		}
+		return failure instanceof InvocationException
+				&& failure.getCause() instanceof IOException;
+	}
+
+	private final String remoteServiceURL;
+	private final CircuitBreakerPolicy policy;
+
+	private State state = State.CLOSED;
+	/**
+	 * Outcomes of the recent calls, true for a failure
+	 */
+	private final boolean[] window;
+	private int windowCount;
+	private int windowNext;
+	private int windowFailures;
+	private int consecutiveFailures;
+	private long openedAt;
+	private int probesInFlight;
+
+	protected CircuitBreaker(String remoteServiceURL,
+			CircuitBreakerPolicy policy) {
+		this.remoteServiceURL = remoteServiceURL;
+		this.policy = policy;
+		this.window = new boolean[policy.getWindowSize()];
+	}
+
+	/**
+	 * Lets a request through, or fails fast if the circuit is open. Each
+	 * acquisition must be followed by {@link #onSuccess(boolean)},
+	 * {@link #onFailure(boolean)} or {@link #onIgnored(boolean)}, with the
+	 * returned value.
+	 *
+	 * @return true if the request is a probe of the half open circuit
+	 * @throws CircuitOpenException
+	 *             if the circuit is open
+	 */
+	public synchronized boolean acquire() throws CircuitOpenException {
+		if (this.state == State.OPEN) {
+			long elapsed = (System.nanoTime() - this.openedAt) / 1000000;
+			if (elapsed < this.policy.getOpenDuration()) {
+				throw new CircuitOpenException(this.remoteServiceURL,
+						this.policy.getOpenDuration() - elapsed);
+			}
+			logger.info("Circuit half open for " + this.remoteServiceURL);
+			this.state = State.HALF_OPEN;
+		}
+		if (this.state == State.HALF_OPEN) {
+			if (this.probesInFlight >= this.policy.getHalfOpenProbes()) {
+				throw new CircuitOpenException(this.remoteServiceURL, 0);
+			}
+			this.probesInFlight++;
+			return true;
+		}
+		return false;
+	}
+
+	public String getRemoteServiceURL() {
+		return this.remoteServiceURL;
+	}
+
+	public synchronized State getState() {
+		return this.state;
+	}
+
+	/**
+	 * Records a failed request
+	 *
+	 * @param probe
+	 *            the value returned by {@link #acquire()}
+	 */
+	public synchronized void onFailure(boolean probe) {
+		if (probe) {
+			releaseProbe();
+			if (this.state == State.HALF_OPEN) {
+				open();
+			}
+			return;
+		}
+		if (this.state != State.CLOSED) {
+			// Let through before the circuit opened
+			return;
+		}
+		record(true);
+		this.consecutiveFailures++;
+		if (this.state == State.CLOSED && shouldOpen()) {
+			open();
+		}
+	}
+
+	/**
+	 * Records a request whose outcome says nothing about the endpoint health,
+	 * such as an aborted request
+	 *
+	 * @param probe
+	 *            the value returned by {@link #acquire()}
+	 */
+	public synchronized void onIgnored(boolean probe) {
+		if (probe) {
+			releaseProbe();
+		}
+	}
+
+	/**
+	 * Records a successful request
+	 *
+	 * @param probe
+	 *            the value returned by {@link #acquire()}
+	 */
+	public synchronized void onSuccess(boolean probe) {
+		if (probe) {
+			releaseProbe();
+			if (this.state == State.HALF_OPEN) {
+				logger.info("Circuit closed for " + this.remoteServiceURL);
+				this.state = State.CLOSED;
+				resetWindow();
+			}
+			return;
+		}
+		if (this.state != State.CLOSED) {
+			// Let through before the circuit opened
+			return;
+		}
+		record(false);
+		this.consecutiveFailures = 0;
+	}
+
+	/**
+	 * Closes the circuit and forgets the recent calls
+	 */
+	public synchronized void reset() {
+		this.state = State.CLOSED;
+		this.probesInFlight = 0;
+		resetWindow();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "CircuitBreaker[" + this.remoteServiceURL + ", state="
+				+ this.state + ", failures=" + this.windowFailures + "/"
+				+ this.windowCount + "]";
+	}
+
+	private void open() {
+		logger.warning("Circuit opened for " + this.remoteServiceURL);
+		this.state = State.OPEN;
+		this.openedAt = System.nanoTime();
+	}
+
+	private void record(boolean failure) {
+		if (this.windowCount == this.window.length) {
+			if (this.window[this.windowNext]) {
+				this.windowFailures--;
+			}
+		} else {
+			this.windowCount++;
+		}
+		this.window[this.windowNext] = failure;
+		if (failure) {
+			this.windowFailures++;
+		}
+		this.windowNext = (this.windowNext + 1) % this.window.length;
+	}
+
+	private void releaseProbe() {
+		// Probes acquired before a reset are no longer counted
+		if (this.probesInFlight > 0) {
+			this.probesInFlight--;
+		}
+	}
+
+	private void resetWindow() {
+		this.windowCount = 0;
+		this.windowNext = 0;
+		this.windowFailures = 0;
+		this.consecutiveFailures = 0;
+	}
+
+	private boolean shouldOpen() {
+		if (this.policy.getConsecutiveFailures() > 0
+				&& this.consecutiveFailures >= this.policy
+						.getConsecutiveFailures()) {
+			return true;
+		}
+		return this.policy.getFailureRate() > 0
+				&& this.windowCount >= this.policy.getMinimumCalls()
+				&& this.windowFailures >= this.policy.getFailureRate()
+						* this.windowCount;
+	}
+
+	private static final ConcurrentMap<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<String, CircuitBreaker>();
+
+	private static final Logger logger = Logger.getLogger(CircuitBreaker.class
+			.getName());
+}
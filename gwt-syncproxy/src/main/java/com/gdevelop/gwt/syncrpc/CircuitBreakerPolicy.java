@@ -0,0 +1,155 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+/**
+ * Thresholds of the {@link CircuitBreaker} of the service endpoints. Set
+ * methods return the policy for chaining. A policy should be configured before
+ * being set on the {@link ProxySettings}.
+ *
+ * @since 0.6
+ */
+public class CircuitBreakerPolicy {
+	private int consecutiveFailures = 5;
+	private double failureRate = 0.5;
+	private int windowSize = 20;
+	private int minimumCalls = 10;
+	private long openDuration = 10000;
+	private int halfOpenProbes = 1;
+
+	/**
+	 * @return the number of consecutive failures opening the circuit
+	 */
+	public int getConsecutiveFailures() {
+		return this.consecutiveFailures;
+	}
+
+	/**
+	 * @return the rate of failures among the last {@link #getWindowSize()}
+	 *         calls opening the circuit
+	 */
+	public double getFailureRate() {
+		return this.failureRate;
+	}
+
+	/**
+	 * @return the number of probe requests let through while half open
+	 */
+	public int getHalfOpenProbes() {
+		return this.halfOpenProbes;
+	}
+
+	/**
+	 * @return the number of calls in the window below which the failure rate
+	 *         is not evaluated
+	 */
+	public int getMinimumCalls() {
+		return this.minimumCalls;
+	}
+
+	/**
+	 * @return the time in milliseconds the circuit stays open before probing
+	 */
+	public long getOpenDuration() {
+		return this.openDuration;
+	}
+
+	/**
+	 * @return the number of recent calls the failure rate is computed on
+	 */
+	public int getWindowSize() {
+		return this.windowSize;
+	}
+
+	/**
+	 * @param consecutiveFailures
+	 *            the number of consecutive failures opening the circuit, 0 to
+	 *            only use the failure rate
+	 */
+	public CircuitBreakerPolicy setConsecutiveFailures(int consecutiveFailures) {
+		this.consecutiveFailures = consecutiveFailures;
+		return this;
+	}
+
+	/**
+	 * @param failureRate
+	 *            the rate of failures opening the circuit, from 0 (exclusive)
+	 *            to 1, or 0 to only use consecutive failures
+	 */
+	public CircuitBreakerPolicy setFailureRate(double failureRate) {
+		if (failureRate < 0 || failureRate > 1) {
+			throw new IllegalArgumentException(
+					"failureRate must be within [0, 1]");
+		}
+		this.failureRate = failureRate;
+		return this;
+	}
+
+	/**
+	 * @param halfOpenProbes
+	 *            the number of probe requests let through while half open
+	 */
+	public CircuitBreakerPolicy setHalfOpenProbes(int halfOpenProbes) {
+		if (halfOpenProbes < 1) {
+			throw new IllegalArgumentException(
+					"halfOpenProbes must be positive");
+		}
+		this.halfOpenProbes = halfOpenProbes;
+		return this;
+	}
+
+	/**
+	 * @param minimumCalls
+	 *            the number of calls in the window below which the failure
+	 *            rate is not evaluated
+	 */
+	public CircuitBreakerPolicy setMinimumCalls(int minimumCalls) {
+		this.minimumCalls = minimumCalls;
+		return this;
+	}
+
+	/**
+	 * @param openDuration
+	 *            the time in milliseconds the circuit stays open before
+	 *            probing
+	 */
+	public CircuitBreakerPolicy setOpenDuration(long openDuration) {
+		this.openDuration = openDuration;
+		return this;
+	}
+
+	/**
+	 * @param windowSize
+	 *            the number of recent calls the failure rate is computed on
+	 */
+	public CircuitBreakerPolicy setWindowSize(int windowSize) {
+		if (windowSize < 1) {
+			throw new IllegalArgumentException("windowSize must be positive");
+		}
+		this.windowSize = windowSize;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "CircuitBreakerPolicy[consecutiveFailures="
+				+ this.consecutiveFailures + ", failureRate="
+				+ this.failureRate + ", windowSize=" + this.windowSize
+				+ ", minimumCalls=" + this.minimumCalls + ", openDuration="
+				+ this.openDuration + ", halfOpenProbes="
+				+ this.halfOpenProbes + "]";
+	}
+}
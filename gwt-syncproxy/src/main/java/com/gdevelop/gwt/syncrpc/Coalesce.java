@@ -0,0 +1,52 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Coalesces concurrent calls of a service method: while a call is in flight,
+ * calls with the same serialized payload to the same url and with the same
+ * cookies wait for its response instead of sending their own request, see
+ * {@link SingleFlight}. Only for methods without side effects. May be placed
+ * on the synchronous or the asynchronous method.
+ *
+ * @since 0.6
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Coalesce {
+	/**
+	 * How the result of the shared call is handed to the waiting calls
+	 */
+	public enum Sharing {
+		/**
+		 * All the calls return the same instance, which must not be modified
+		 */
+		SHARE,
+		/**
+		 * Each call decodes the shared response into its own objects
+		 */
+		COPY
+	}
+
+	Sharing value() default Sharing.COPY;
+}
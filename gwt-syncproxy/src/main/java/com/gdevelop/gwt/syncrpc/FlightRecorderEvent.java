@@ -0,0 +1,251 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Java Flight Recorder event type of the library. The types are defined at
+ * runtime through <code>jdk.jfr.EventFactory</code>, by reflection, so that
+ * the library still runs on a JRE without it (before Java 12), where no event
+ * is recorded. An event costs a check of its type when no recording enables
+ * it.
+ * <p>
+ * The events belong to the "GWT RPC" category and can be enabled by name in
+ * a recording configuration:
+ * <ul>
+ * <li>{@value #CALL_NAME}: a call of a service method, from the invocation
+ * to the return or the failure</li>
+ * <li>{@value #SERIALIZATION_NAME}: the serialization of a request</li>
+ * <li>{@value #DESERIALIZATION_NAME}: the deserialization of a response,
+ * including the responses of the cache</li>
+ * <li>{@value #POLICY_LOAD_NAME}: the loading of a serialization policy</li>
+ * </ul>
+ *
+ * @since 0.6
+ */
+public final class FlightRecorderEvent {
+	private static final Logger logger = Logger
+			.getLogger(FlightRecorderEvent.class.getName());
+
+	public static final String CALL_NAME = "com.gdevelop.gwt.syncrpc.Call";
+	public static final String SERIALIZATION_NAME = "com.gdevelop.gwt.syncrpc.Serialization";
+	public static final String DESERIALIZATION_NAME = "com.gdevelop.gwt.syncrpc.Deserialization";
+	public static final String POLICY_LOAD_NAME = "com.gdevelop.gwt.syncrpc.PolicyLoad";
+
+	private static final String CATEGORY = "GWT RPC";
+
+	private static final Method NEW_EVENT;
+	private static final Method GET_EVENT_TYPE;
+	private static final Method IS_ENABLED;
+	private static final Method BEGIN;
+	private static final Method END;
+	private static final Method SHOULD_COMMIT;
+	private static final Method SET;
+	private static final Method COMMIT;
+
+	static {
+		Method newEvent = null, getEventType = null, isEnabled = null;
+		Method begin = null, end = null, shouldCommit = null, set = null;
+		Method commit = null;
+		try {
+			Class<?> factory = Class.forName("jdk.jfr.EventFactory");
+			Class<?> event = Class.forName("jdk.jfr.Event");
+			newEvent = factory.getMethod("newEvent");
+			getEventType = factory.getMethod("getEventType");
+			isEnabled = Class.forName("jdk.jfr.EventType").getMethod(
+					"isEnabled");
+			begin = event.getMethod("begin");
+			end = event.getMethod("end");
+			shouldCommit = event.getMethod("shouldCommit");
+			set = event.getMethod("set", int.class, Object.class);
+			commit = event.getMethod("commit");
+		} catch (ClassNotFoundException e) {
+			logger.config("Flight recorder events not available");
+		} catch (NoSuchMethodException e) {
+			logger.config("Flight recorder events not available");
+		}
+		NEW_EVENT = newEvent;
+		GET_EVENT_TYPE = getEventType;
+		IS_ENABLED = isEnabled;
+		BEGIN = begin;
+		END = end;
+		SHOULD_COMMIT = shouldCommit;
+		SET = set;
+		COMMIT = commit;
+	}
+
+	static final FlightRecorderEvent CALL = new FlightRecorderEvent(
+			CALL_NAME, "RPC Call", "Call of a remote service method",
+			new String[] { "service", "method", "requestBytes",
+					"responseBytes", "attempts", "outcome" }, new Class<?>[] {
+					String.class, String.class, long.class, long.class,
+					int.class, String.class });
+	static final FlightRecorderEvent SERIALIZATION = new FlightRecorderEvent(
+			SERIALIZATION_NAME, "RPC Serialization",
+			"Serialization of the request of a call", new String[] {
+					"service", "method", "payloadLength" }, new Class<?>[] {
+					String.class, String.class, int.class });
+	static final FlightRecorderEvent DESERIALIZATION = new FlightRecorderEvent(
+			DESERIALIZATION_NAME, "RPC Deserialization",
+			"Deserialization of the response of a call", new String[] {
+					"service", "method", "payloadLength", "tokens",
+					"stringTableSize", "objects" }, new Class<?>[] {
+					String.class, String.class, int.class, int.class,
+					int.class, int.class });
+	static final FlightRecorderEvent POLICY_LOAD = new FlightRecorderEvent(
+			POLICY_LOAD_NAME, "RPC Policy Load",
+			"Loading of a serialization policy", new String[] { "url",
+					"compiled", "bytes", "outcome" }, new Class<?>[] {
+					String.class, boolean.class, long.class, String.class });
+
+	/**
+	 * @return true if the JRE supports the events of the library
+	 */
+	public static boolean isAvailable() {
+		return CALL.factory != null;
+	}
+
+	/**
+	 * @return the outcome field of a successful event or of an event failed
+	 *         with the exception
+	 */
+	static String outcome(Throwable failure) {
+		return failure == null ? "OK" : failure.getClass().getName();
+	}
+
+	private final String name;
+	/**
+	 * The <code>jdk.jfr.EventFactory</code>, null if not available
+	 */
+	private final Object factory;
+	private final Object eventType;
+
+	private FlightRecorderEvent(String name, String label, String description,
+			String[] fieldNames, Class<?>[] fieldTypes) {
+		this.name = name;
+		Object factory = null, eventType = null;
+		if (NEW_EVENT != null) {
+			try {
+				factory = createFactory(name, label, description, fieldNames,
+						fieldTypes);
+				eventType = GET_EVENT_TYPE.invoke(factory);
+			} catch (Exception e) {
+				logger.log(Level.WARNING, "Unable to define the event " + name,
+						e);
+				factory = null;
+			}
+		}
+		this.factory = factory;
+		this.eventType = eventType;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Starts timing an event.
+	 *
+	 * @return the event to pass to {@link #commit(Object, Object...)}, null if
+	 *         no recording enables this type
+	 */
+	Object begin() {
+		if (this.factory == null) {
+			return null;
+		}
+		try {
+			if (!(Boolean) IS_ENABLED.invoke(this.eventType)) {
+				return null;
+			}
+			Object event = NEW_EVENT.invoke(this.factory);
+			BEGIN.invoke(event);
+			return event;
+		} catch (Exception e) {
+			logger.log(Level.FINE, "Unable to begin the event " + this.name, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Ends the event and commits it, unless it is below the threshold of the
+	 * recording.
+	 *
+	 * @param event
+	 *            returned by {@link #begin()}, not null
+	 * @param values
+	 *            of the fields, in their declaration order
+	 */
+	void commit(Object event, Object... values) {
+		try {
+			END.invoke(event);
+			if (!(Boolean) SHOULD_COMMIT.invoke(event)) {
+				return;
+			}
+			for (int i = 0; i < values.length; i++) {
+				SET.invoke(event, i, values[i]);
+			}
+			COMMIT.invoke(event);
+		} catch (Exception e) {
+			logger.log(Level.FINE, "Unable to commit the event " + this.name,
+					e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.name;
+	}
+
+	private static Object createFactory(String name, String label,
+			String description, String[] fieldNames, Class<?>[] fieldTypes)
+			throws Exception {
+		Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+		Constructor<?> newAnnotation = annotationElement.getConstructor(
+				Class.class, Object.class);
+		List<Object> annotations = new ArrayList<Object>();
+		annotations.add(newAnnotation.newInstance(annotation("jdk.jfr.Name"),
+				name));
+		annotations.add(newAnnotation.newInstance(
+				annotation("jdk.jfr.Label"), label));
+		annotations.add(newAnnotation.newInstance(
+				annotation("jdk.jfr.Description"), description));
+		annotations.add(newAnnotation.newInstance(
+				annotation("jdk.jfr.Category"), new String[] { CATEGORY }));
+
+		Constructor<?> newField = Class.forName("jdk.jfr.ValueDescriptor")
+				.getConstructor(Class.class, String.class);
+		List<Object> fields = new ArrayList<Object>();
+		for (int i = 0; i < fieldNames.length; i++) {
+			fields.add(newField.newInstance(fieldTypes[i], fieldNames[i]));
+		}
+		return Class.forName("jdk.jfr.EventFactory")
+				.getMethod("create", List.class, List.class)
+				.invoke(null, annotations, fields);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Class<? extends Annotation> annotation(String name)
+			throws ClassNotFoundException {
+		return (Class<? extends Annotation>) Class.forName(name);
+	}
+}
@@ -5,6 +5,7 @@
 package com.gdevelop.gwt.syncrpc;
 
 import java.net.CookieManager;
+import java.util.List;
 
 /**
  * @author Preethum
@@ -17,6 +18,65 @@ public interface HasProxySettings {
 	 */
 	public CookieManager getCookieManager();
 
+	/**
+	 * @return the bulkheadPolicy limiting the calls in flight, null for no
+	 *         limit
+	 * @since 0.6
+	 */
+	public BulkheadPolicy getBulkheadPolicy();
+
+	/**
+	 * @return the circuitBreakerPolicy of the service endpoint, null if
+	 *         failures do not open a circuit
+	 * @since 0.6
+	 */
+	public CircuitBreakerPolicy getCircuitBreakerPolicy();
+
+	/**
+	 * @return the connectTimeout in milliseconds, 0 for no limit
+	 * @since 0.6
+	 */
+	public int getConnectTimeout();
+
+	/**
+	 * @return the deadline of each call in milliseconds, 0 for no limit
+	 * @since 0.6
+	 */
+	public long getDeadline();
+
+	/**
+	 * @return the rateLimiter of the calls of this proxy, null for no limit
+	 * @since 0.6
+	 */
+	public RateLimiter getRateLimiter();
+
+	/**
+	 * @return the readTimeout in milliseconds, 0 for no limit
+	 * @since 0.6
+	 */
+	public int getReadTimeout();
+
+	/**
+	 * @return the interceptors of the calls, in their order, null or empty
+	 *         for none
+	 * @since 0.6
+	 */
+	public List<RpcInterceptor> getInterceptors();
+
+	/**
+	 * @return the loadBalancer spreading calls over several module base urls,
+	 *         null if calls go to the moduleBaseUrl
+	 * @since 0.6
+	 */
+	public LoadBalancer getLoadBalancer();
+
+	/**
+	 * @return the metricsListener receiving the measurements of the calls,
+	 *         null if not measured
+	 * @since 0.6
+	 */
+	public MetricsListener getMetricsListener();
+
 	/**
 	 * @return the policyName
 	 */
@@ -27,11 +87,24 @@ public interface HasProxySettings {
 	 */
 	public String getRemoteServiceRelativePath();
 
+	/**
+	 * @return the retryPolicy of {@link Idempotent} methods, null if they are
+	 *         not retried
+	 * @since 0.6
+	 */
+	public RetryPolicy getRetryPolicy();
+
 	/**
 	 * @return the serverBaseUrl
 	 */
 	public String getModuleBaseUrl();
 
+	/**
+	 * @return the tracer starting a span per call, null if not traced
+	 * @since 0.6
+	 */
+	public Tracer getTracer();
+
 	/**
 	 * @return the waitForInvocation
 	 */
@@ -43,6 +116,77 @@ public interface HasProxySettings {
 	 */
 	public HasProxySettings setCookieManager(CookieManager cookieManager);
 
+	/**
+	 * @param bulkheadPolicy
+	 *            the bulkheadPolicy limiting the calls in flight to set, null
+	 *            for no limit
+	 * @since 0.6
+	 */
+	public HasProxySettings setBulkheadPolicy(BulkheadPolicy bulkheadPolicy);
+
+	/**
+	 * @param circuitBreakerPolicy
+	 *            the circuitBreakerPolicy of the service endpoint to set, null
+	 *            to disable the circuit breaker
+	 * @since 0.6
+	 */
+	public HasProxySettings setCircuitBreakerPolicy(
+			CircuitBreakerPolicy circuitBreakerPolicy);
+
+	/**
+	 * @param connectTimeout
+	 *            the connectTimeout to set in milliseconds, 0 for no limit
+	 * @since 0.6
+	 */
+	public HasProxySettings setConnectTimeout(int connectTimeout);
+
+	/**
+	 * @param deadline
+	 *            the deadline of each call to set in milliseconds, including
+	 *            serialization and retries, 0 for no limit
+	 * @since 0.6
+	 */
+	public HasProxySettings setDeadline(long deadline);
+
+	/**
+	 * @param rateLimiter
+	 *            the rateLimiter of the calls of this proxy to set, null for
+	 *            no limit
+	 * @since 0.6
+	 */
+	public HasProxySettings setRateLimiter(RateLimiter rateLimiter);
+
+	/**
+	 * @param readTimeout
+	 *            the readTimeout to set in milliseconds, 0 for no limit
+	 * @since 0.6
+	 */
+	public HasProxySettings setReadTimeout(int readTimeout);
+
+	/**
+	 * @param interceptors
+	 *            the interceptors of the calls to set, the first one running
+	 *            first, null for none
+	 * @since 0.6
+	 */
+	public HasProxySettings setInterceptors(List<RpcInterceptor> interceptors);
+
+	/**
+	 * @param loadBalancer
+	 *            the loadBalancer spreading calls over several module base
+	 *            urls to set, null to send calls to the moduleBaseUrl
+	 * @since 0.6
+	 */
+	public HasProxySettings setLoadBalancer(LoadBalancer loadBalancer);
+
+	/**
+	 * @param metricsListener
+	 *            the metricsListener receiving the measurements of the calls
+	 *            to set, null to not measure them
+	 * @since 0.6
+	 */
+	public HasProxySettings setMetricsListener(MetricsListener metricsListener);
+
 	/**
 	 * @param policyName
 	 *            the policyName to set
@@ -56,12 +200,28 @@ public interface HasProxySettings {
 	public HasProxySettings setRemoteServiceRelativePath(
 			String remoteServiceRelativePath);
 
+	/**
+	 * @param retryPolicy
+	 *            the retryPolicy of {@link Idempotent} methods to set, null to
+	 *            disable retries
+	 * @since 0.6
+	 */
+	public HasProxySettings setRetryPolicy(RetryPolicy retryPolicy);
+
 	/**
 	 * @param serverBaseUrl
 	 *            the serverBaseUrl to set
 	 */
 	public HasProxySettings setModuleBaseUrl(String serverBaseUrl);
 
+	/**
+	 * @param tracer
+	 *            the tracer starting a span per call to set, null to not
+	 *            trace the calls
+	 * @since 0.6
+	 */
+	public HasProxySettings setTracer(Tracer tracer);
+
 	/**
 	 * @param waitForInvocation
 	 *            the waitForInvocation to set
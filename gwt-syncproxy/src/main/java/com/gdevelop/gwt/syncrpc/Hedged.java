@@ -0,0 +1,51 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a latency critical {@link Idempotent} method: when its response is
+ * late, a second identical request is sent with the same serialized payload,
+ * and the first successful response wins. The other request is aborted.
+ *
+ * The request is late after the configured percentile of the recent
+ * latencies of the method, or after {@link #delay()} until enough latencies
+ * were observed.
+ *
+ * @since 0.6
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Hedged {
+	/**
+	 * @return the delay before the second request in milliseconds, used while
+	 *         there are not enough latency samples or if {@link #percentile()}
+	 *         is 0
+	 */
+	long delay() default 100;
+
+	/**
+	 * @return the percentile of the recent latencies after which the second
+	 *         request is sent, 0 to always use {@link #delay()}
+	 */
+	double percentile() default 95;
+}
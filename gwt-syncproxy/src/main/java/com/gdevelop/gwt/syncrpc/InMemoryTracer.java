@@ -0,0 +1,225 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link Tracer} keeping the ended spans in memory, for tests and for
+ * debugging fan-outs of calls. It generates W3C trace context identifiers.
+ * The calls of a thread belong to the trace set by
+ * {@link #setParent(String)}, or else each starts a new trace.
+ *
+ * @since 0.6
+ */
+public class InMemoryTracer implements Tracer {
+	/**
+	 * A span of the tracer, recorded once ended
+	 */
+	public class RecordedSpan implements Span {
+		private final String name;
+		private final String traceId;
+		private final String spanId;
+		private final String parentSpanId;
+		private final long startNanos = System.nanoTime();
+		private final Map<String, Object> attributes = Collections
+				.synchronizedMap(new LinkedHashMap<String, Object>());
+		private volatile long endNanos;
+		private volatile Throwable failure;
+
+		RecordedSpan(String name, String traceId, String spanId,
+				String parentSpanId) {
+			this.name = name;
+			this.traceId = traceId;
+			this.spanId = spanId;
+			this.parentSpanId = parentSpanId;
+		}
+
+		@Override
+		public void end(Throwable failure) {
+			this.failure = failure;
+			this.endNanos = System.nanoTime();
+			InMemoryTracer.this.spans.add(this);
+		}
+
+		public Object getAttribute(String key) {
+			return this.attributes.get(key);
+		}
+
+		public Map<String, Object> getAttributes() {
+			synchronized (this.attributes) {
+				return new LinkedHashMap<String, Object>(this.attributes);
+			}
+		}
+
+		/**
+		 * @return the duration of the span in nanoseconds
+		 */
+		public long getDurationNanos() {
+			return this.endNanos - this.startNanos;
+		}
+
+		/**
+		 * @return the exception of the call, null if it succeeded
+		 */
+		public Throwable getFailure() {
+			return this.failure;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * @return the span id of the parent, null for a root span
+		 */
+		public String getParentSpanId() {
+			return this.parentSpanId;
+		}
+
+		public String getSpanId() {
+			return this.spanId;
+		}
+
+		/**
+		 * @return the start of the span, comparable with
+		 *         {@link System#nanoTime()}
+		 */
+		public long getStartNanos() {
+			return this.startNanos;
+		}
+
+		public String getTraceId() {
+			return this.traceId;
+		}
+
+		@Override
+		public String getTraceparent() {
+			return "00-" + this.traceId + "-" + this.spanId + "-01";
+		}
+
+		@Override
+		public void setAttribute(String key, Object value) {
+			this.attributes.put(key, value);
+		}
+
+		@Override
+		public String toString() {
+			return this.name + "[" + getTraceparent() + "]";
+		}
+	}
+
+	private static final Random RANDOM = new Random();
+
+	private static String randomId(int hexDigits) {
+		StringBuilder sb = new StringBuilder(hexDigits);
+		boolean zero = true;
+		for (int i = 0; i < hexDigits; i++) {
+			int digit = RANDOM.nextInt(16);
+			zero &= digit == 0;
+			sb.append(Character.forDigit(digit, 16));
+		}
+		// All zero identifiers are invalid
+		if (zero) {
+			sb.setCharAt(hexDigits - 1, '1');
+		}
+		return sb.toString();
+	}
+
+	private final List<RecordedSpan> spans = new CopyOnWriteArrayList<RecordedSpan>();
+	private final ThreadLocal<String[]> parent = new ThreadLocal<String[]>();
+
+	/**
+	 * Sets the parent of the spans started by the calling thread
+	 *
+	 * @param traceparent
+	 *            a W3C <code>traceparent</code>, such as the one of an
+	 *            incoming request or of {@link #startTrace(String)}, null to
+	 *            start a new trace for each call
+	 * @throws IllegalArgumentException
+	 *             if the traceparent is not valid
+	 */
+	public void setParent(String traceparent) {
+		if (traceparent == null) {
+			this.parent.remove();
+			return;
+		}
+		String[] parts = traceparent.split("-");
+		if (parts.length != 4 || parts[1].length() != 32
+				|| parts[2].length() != 16) {
+			throw new IllegalArgumentException("Invalid traceparent: "
+					+ traceparent);
+		}
+		this.parent.set(new String[] { parts[1], parts[2] });
+	}
+
+	/**
+	 * Starts a root span, and makes it the parent of the spans of the calling
+	 * thread. End it with {@link Span#end(Throwable)} and
+	 * {@link #setParent(String) setParent(null)}.
+	 *
+	 * @param name
+	 *            of the span, such as the user action fanning out calls
+	 */
+	public RecordedSpan startTrace(String name) {
+		RecordedSpan span = new RecordedSpan(name, randomId(32), randomId(16),
+				null);
+		setParent(span.getTraceparent());
+		return span;
+	}
+
+	/**
+	 * @return the ended spans, in the order they ended
+	 */
+	public List<RecordedSpan> getSpans() {
+		return new ArrayList<RecordedSpan>(this.spans);
+	}
+
+	/**
+	 * @return the ended spans of the trace, in the order they ended
+	 */
+	public List<RecordedSpan> getSpans(String traceId) {
+		List<RecordedSpan> result = new ArrayList<RecordedSpan>();
+		for (RecordedSpan span : this.spans) {
+			if (span.getTraceId().equals(traceId)) {
+				result.add(span);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Forgets the ended spans
+	 */
+	public void clear() {
+		this.spans.clear();
+	}
+
+	@Override
+	public RecordedSpan startSpan(String name) {
+		String[] context = this.parent.get();
+		if (context == null) {
+			return new RecordedSpan(name, randomId(32), randomId(16), null);
+		}
+		return new RecordedSpan(name, context[0], randomId(16), context[1]);
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of non-negative values with a bounded relative error, in the
+ * spirit of HdrHistogram: each power of two range is split into 32 linear
+ * buckets, so a value is reported within about 3% of its actual value.
+ * Recording is lock free and allocates nothing. Values above 2^42 (about 50
+ * days in microseconds) are recorded as 2^42 - 1.
+ *
+ * @since 0.6
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_BITS = 42;
+	private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+	static int indexOf(long value) {
+		int msb = 63 - Long.numberOfLeadingZeros(value);
+		if (msb < SUB_BUCKET_BITS) {
+			return (int) value;
+		}
+		int shift = msb - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT
+				+ (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+	}
+
+	static long lowestValueOf(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		return (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+	}
+
+	static long highestValueOf(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		return lowestValueOf(index) + (1L << (index / SUB_BUCKET_COUNT - 1))
+				- 1;
+	}
+
+	private final AtomicLongArray counts = new AtomicLongArray(
+			(MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT);
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	public long getCount() {
+		return this.totalCount.get();
+	}
+
+	/**
+	 * @return the total of the recorded values, such as the bytes received by
+	 *         all the calls
+	 */
+	public long getSum() {
+		return this.sum.get();
+	}
+
+	public long getMax() {
+		return this.max.get();
+	}
+
+	public double getMean() {
+		long count = this.totalCount.get();
+		return count == 0 ? 0 : (double) this.sum.get() / count;
+	}
+
+	/**
+	 * @param percentile
+	 *            from 0 (exclusive) to 100
+	 * @return the highest value equivalent to the percentile of the recorded
+	 *         values, 0 if none
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long count = this.totalCount.get();
+		if (count == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < this.counts.length(); i++) {
+			seen += this.counts.get(i);
+			if (seen >= target) {
+				return Math.min(highestValueOf(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		} else if (value > MAX_VALUE) {
+			value = MAX_VALUE;
+		}
+		this.counts.incrementAndGet(indexOf(value));
+		this.sum.addAndGet(value);
+		long current;
+		while (value > (current = this.max.get())
+				&& !this.max.compareAndSet(current, value)) {
+			// Lost the race to a concurrent recording, try again
+		}
+		// Counted last so that percentiles never miss a counted value
+		this.totalCount.incrementAndGet();
+	}
+
+	public void reset() {
+		for (int i = 0; i < this.counts.length(); i++) {
+			this.counts.set(i, 0);
+		}
+		this.totalCount.set(0);
+		this.sum.set(0);
+		this.max.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyHistogram[count=" + getCount() + ", p50="
+				+ getValueAtPercentile(50) + ", p99="
+				+ getValueAtPercentile(99) + ", max=" + getMax() + "]";
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent latencies of a method to estimate its percentiles.
+ *
+ * @since 0.6
+ */
+final class LatencyTracker {
+	static final int DEFAULT_CAPACITY = 128;
+
+	/**
+	 * Number of samples below which percentiles are not estimated
+	 */
+	static final int MIN_SAMPLES = 20;
+
+	private final long[] samples;
+	private int count;
+	private int next;
+
+	LatencyTracker() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	LatencyTracker(int capacity) {
+		this.samples = new long[capacity];
+	}
+
+	/**
+	 * @param percentile
+	 *            from 0 (exclusive) to 100
+	 * @return the percentile of the recent latencies in milliseconds, or -1
+	 *         if there are less than {@link #MIN_SAMPLES} samples
+	 */
+	long getPercentile(double percentile) {
+		long[] sorted;
+		synchronized (this) {
+			if (this.count < MIN_SAMPLES) {
+				return -1;
+			}
+			sorted = Arrays.copyOf(this.samples, this.count);
+		}
+		Arrays.sort(sorted);
+		int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+	}
+
+	synchronized void record(long latencyMillis) {
+		this.samples[this.next] = latencyMillis;
+		this.next = (this.next + 1) % this.samples.length;
+		if (this.count < this.samples.length) {
+			this.count++;
+		}
+	}
+}
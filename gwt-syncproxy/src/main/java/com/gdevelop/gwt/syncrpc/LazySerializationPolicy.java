@@ -0,0 +1,247 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gwt.user.client.rpc.SerializationException;
+import com.google.gwt.user.server.rpc.SerializationPolicy;
+import com.google.gwt.user.server.rpc.impl.StandardSerializationPolicy;
+import com.google.gwt.user.server.rpc.impl.TypeNameObfuscator;
+
+/**
+ * {@link SerializationPolicy} keyed by binary type name. The {@link Class} of
+ * a listed type is only resolved the first time that type is checked, and is
+ * then cached, so that the types of a policy which are never used are never
+ * loaded.
+ *
+ * Behaves like the {@link StandardSerializationPolicy} built by
+ * {@link SerializationPolicyLoader}: serialization and deserialization flags
+ * are swapped because we are the client side, and types whose class can not
+ * be loaded are ignored.
+ *
+ * @since 0.6
+ */
+public class LazySerializationPolicy extends SerializationPolicy implements
+		TypeNameObfuscator {
+	/**
+	 * A type listed in the policy, with flags as written in the policy file
+	 * (i.e. from the server point of view)
+	 */
+	static final class TypeInfo {
+		final String name;
+		final boolean fieldSer;
+		final boolean instantSer;
+		final boolean fieldDeser;
+		final boolean instantDeser;
+		final String typeId;
+
+		private volatile Class<?> resolved;
+		private volatile boolean unresolvable;
+
+		TypeInfo(String name, boolean fieldSer, boolean instantSer,
+				boolean fieldDeser, boolean instantDeser, String typeId) {
+			this.name = name;
+			this.fieldSer = fieldSer;
+			this.instantSer = instantSer;
+			this.fieldDeser = fieldDeser;
+			this.instantDeser = instantDeser;
+			this.typeId = typeId;
+		}
+
+		/**
+		 * @return the class, or null if it can not be loaded
+		 */
+		Class<?> resolve(ClassLoader classLoader)
+				throws ClassNotFoundException {
+			Class<?> clazz = this.resolved;
+			if (clazz == null && !this.unresolvable) {
+				try {
+					clazz = Class.forName(this.name, false, classLoader);
+					this.resolved = clazz;
+				} catch (ClassNotFoundException e) {
+					this.unresolvable = true;
+					throw e;
+				}
+			}
+			return clazz;
+		}
+
+		boolean isResolved() {
+			return this.resolved != null;
+		}
+	}
+
+	private final ClassLoader classLoader;
+	private final Map<String, TypeInfo> types;
+	private final Map<String, TypeInfo> typesById;
+	private final Map<String, Set<String>> clientFields;
+
+	LazySerializationPolicy(ClassLoader classLoader,
+			Collection<TypeInfo> types, Map<String, Set<String>> clientFields) {
+		this.classLoader = classLoader;
+		this.types = new HashMap<String, TypeInfo>(types.size() * 4 / 3 + 1);
+		this.typesById = new HashMap<String, TypeInfo>(
+				types.size() * 4 / 3 + 1);
+		for (TypeInfo type : types) {
+			this.types.put(type.name, type);
+			this.typesById.put(type.typeId, type);
+		}
+		this.clientFields = clientFields;
+	}
+
+	@Override
+	public String getClassNameForTypeId(String id)
+			throws SerializationException {
+		TypeInfo type = this.typesById.get(id);
+		if (type == null || resolve(type) == null) {
+			return null;
+		}
+		return type.name;
+	}
+
+	@Override
+	public Set<String> getClientFieldNamesForEnhancedClass(Class<?> clazz) {
+		Set<String> fieldNames = this.clientFields.get(clazz.getName());
+		if (fieldNames == null || !isSameClass(clazz)) {
+			return null;
+		}
+		return Collections.unmodifiableSet(fieldNames);
+	}
+
+	@Override
+	public String getTypeIdForClass(Class<?> clazz)
+			throws SerializationException {
+		TypeInfo type = lookup(clazz);
+		return type == null ? null : type.typeId;
+	}
+
+	/**
+	 * @return the number of listed types whose class has been loaded so far
+	 */
+	public int getResolvedTypeCount() {
+		int count = 0;
+		for (TypeInfo type : this.types.values()) {
+			if (type.isResolved()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of types listed in the policy
+	 */
+	public int getTypeCount() {
+		return this.types.size();
+	}
+
+	@Override
+	public boolean shouldDeserializeFields(Class<?> clazz) {
+		if (clazz.isPrimitive()) {
+			return true;
+		}
+		TypeInfo type = lookup(clazz);
+		return type != null && type.fieldSer;
+	}
+
+	@Override
+	public boolean shouldSerializeFields(Class<?> clazz) {
+		if (clazz.isPrimitive()) {
+			return true;
+		}
+		TypeInfo type = lookup(clazz);
+		return type != null && type.fieldDeser;
+	}
+
+	@Override
+	public void validateDeserialize(Class<?> clazz)
+			throws SerializationException {
+		if (clazz.isPrimitive()) {
+			return;
+		}
+		TypeInfo type = lookup(clazz);
+		if (type == null || !type.fieldSer || !type.instantSer) {
+			throw new SerializationException(
+					"Type '"
+							+ clazz.getName()
+							+ "' was not included in the set of types which can be deserialized by this SerializationPolicy or its Class object could not be loaded. For security purposes, this type will not be deserialized.");
+		}
+	}
+
+	@Override
+	public void validateSerialize(Class<?> clazz)
+			throws SerializationException {
+		if (clazz.isPrimitive()) {
+			return;
+		}
+		TypeInfo type = lookup(clazz);
+		if (type == null || !type.fieldDeser || !type.instantDeser) {
+			throw new SerializationException(
+					"Type '"
+							+ clazz.getName()
+							+ "' was not included in the set of types which can be serialized by this SerializationPolicy or its Class object could not be loaded. For security purposes, this type will not be serialized.");
+		}
+	}
+
+	Map<String, Set<String>> getClientFields() {
+		return this.clientFields;
+	}
+
+	ClassLoader getClassLoader() {
+		return this.classLoader;
+	}
+
+	Collection<TypeInfo> getTypes() {
+		return this.types.values();
+	}
+
+	/**
+	 * Checks that the provided class is the one named in the policy, which
+	 * may not be the case if it was loaded by another class loader.
+	 */
+	private boolean isSameClass(Class<?> clazz) {
+		TypeInfo type = this.types.get(clazz.getName());
+		if (type != null) {
+			return resolve(type) == clazz;
+		}
+		try {
+			return Class.forName(clazz.getName(), false, this.classLoader) == clazz;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private TypeInfo lookup(Class<?> clazz) {
+		TypeInfo type = this.types.get(clazz.getName());
+		if (type == null || resolve(type) != clazz) {
+			return null;
+		}
+		return type;
+	}
+
+	private Class<?> resolve(TypeInfo type) {
+		try {
+			return type.resolve(this.classLoader);
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+	}
+}
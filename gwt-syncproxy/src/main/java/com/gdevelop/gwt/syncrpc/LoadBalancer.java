@@ -0,0 +1,307 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Spreads the calls of a proxy over several identical GWT backends, each
+ * identified by its module base url. Set it on the {@link ProxySettings}
+ * instead of a single module base url.
+ *
+ * Endpoints failing {@link #getEjectAfterFailures()} times in a row are
+ * ejected for {@link #getEjectionDuration()}. When a sticky cookie name is
+ * set (such as <code>JSESSIONID</code>), calls go to the endpoint whose host
+ * holds that cookie in the {@link CookieManager} of the proxy, so that the
+ * server session is kept, unless that endpoint is ejected. As cookies are
+ * not specific to a port, sticky endpoints should have distinct hosts.
+ *
+ * Set methods return the balancer for chaining.
+ *
+ * @since 0.6
+ */
+public class LoadBalancer {
+	public enum Strategy {
+		/**
+		 * Each endpoint in turn
+		 */
+		ROUND_ROBIN,
+		/**
+		 * The endpoint with the fewest calls in flight
+		 */
+		LEAST_IN_FLIGHT,
+		/**
+		 * The endpoint with the lowest exponentially weighted moving average
+		 * of latency, weighted by its calls in flight
+		 */
+		EWMA
+	}
+
+	/**
+	 * A backend and its statistics
+	 */
+	public static class Endpoint {
+		private final String moduleBaseUrl;
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final AtomicInteger consecutiveFailures = new AtomicInteger();
+		private double latency = -1;
+		private volatile long ejectedUntil;
+
+		Endpoint(String moduleBaseUrl) {
+			this.moduleBaseUrl = moduleBaseUrl;
+		}
+
+		public int getInFlight() {
+			return this.inFlight.get();
+		}
+
+		/**
+		 * @return the moving average of the latency in milliseconds, -1 before
+		 *         the first successful call
+		 */
+		public synchronized double getLatency() {
+			return this.latency;
+		}
+
+		public String getModuleBaseUrl() {
+			return this.moduleBaseUrl;
+		}
+
+		/**
+		 * @return true if the endpoint is currently ejected
+		 */
+		public boolean isEjected() {
+			long until = this.ejectedUntil;
+			return until != 0 && until - System.nanoTime() > 0;
+		}
+
+		@Override
+		public String toString() {
+			return this.moduleBaseUrl + "[inFlight=" + getInFlight()
+					+ ", latency=" + getLatency() + ", ejected="
+					+ isEjected() + "]";
+		}
+
+		synchronized void recordLatency(long latencyMillis, double decay) {
+			this.latency = this.latency < 0 ? latencyMillis : decay
+					* latencyMillis + (1 - decay) * this.latency;
+		}
+	}
+
+	private final List<Endpoint> endpoints;
+	private final AtomicInteger next = new AtomicInteger();
+	private Strategy strategy = Strategy.ROUND_ROBIN;
+	private String stickyCookieName;
+	private int ejectAfterFailures = 3;
+	private long ejectionDuration = 30000;
+	private double ewmaDecay = 0.3;
+
+	public LoadBalancer(String... moduleBaseUrls) {
+		if (moduleBaseUrls.length == 0) {
+			throw new IllegalArgumentException("No module base url");
+		}
+		List<Endpoint> list = new ArrayList<Endpoint>();
+		for (String moduleBaseUrl : moduleBaseUrls) {
+			list.add(new Endpoint(moduleBaseUrl));
+		}
+		this.endpoints = Collections.unmodifiableList(list);
+	}
+
+	public int getEjectAfterFailures() {
+		return this.ejectAfterFailures;
+	}
+
+	/**
+	 * @return the time in milliseconds an endpoint stays ejected
+	 */
+	public long getEjectionDuration() {
+		return this.ejectionDuration;
+	}
+
+	public List<Endpoint> getEndpoints() {
+		return this.endpoints;
+	}
+
+	public double getEwmaDecay() {
+		return this.ewmaDecay;
+	}
+
+	public String getStickyCookieName() {
+		return this.stickyCookieName;
+	}
+
+	public Strategy getStrategy() {
+		return this.strategy;
+	}
+
+	/**
+	 * Chooses the endpoint of a call. If all the endpoints are ejected, they
+	 * are all candidates.
+	 *
+	 * @param cookieManager
+	 *            the cookies of the proxy, for sticky routing
+	 */
+	public Endpoint select(CookieManager cookieManager) {
+		List<Endpoint> candidates = new ArrayList<Endpoint>(
+				this.endpoints.size());
+		for (Endpoint endpoint : this.endpoints) {
+			if (!endpoint.isEjected()) {
+				candidates.add(endpoint);
+			}
+		}
+		if (candidates.isEmpty()) {
+			candidates = this.endpoints;
+		}
+		if (this.stickyCookieName != null && cookieManager != null) {
+			for (Endpoint endpoint : candidates) {
+				if (holdsStickyCookie(cookieManager, endpoint)) {
+					return endpoint;
+				}
+			}
+		}
+		// Rotating the start spreads ties
+		int start = (this.next.getAndIncrement() & Integer.MAX_VALUE)
+				% candidates.size();
+		if (this.strategy == Strategy.ROUND_ROBIN) {
+			return candidates.get(start);
+		}
+		Endpoint best = null;
+		double bestScore = Double.MAX_VALUE;
+		for (int i = 0; i < candidates.size(); i++) {
+			Endpoint endpoint = candidates.get((start + i) % candidates.size());
+			double score;
+			if (this.strategy == Strategy.LEAST_IN_FLIGHT) {
+				score = endpoint.getInFlight();
+			} else {
+				// Unmeasured endpoints first, to get a sample
+				double latency = Math.max(0, endpoint.getLatency());
+				score = latency * (endpoint.getInFlight() + 1);
+			}
+			if (score < bestScore) {
+				best = endpoint;
+				bestScore = score;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @param ejectAfterFailures
+	 *            the number of consecutive failures ejecting an endpoint, 0 to
+	 *            never eject
+	 */
+	public LoadBalancer setEjectAfterFailures(int ejectAfterFailures) {
+		this.ejectAfterFailures = ejectAfterFailures;
+		return this;
+	}
+
+	/**
+	 * @param ejectionDuration
+	 *            the time in milliseconds an endpoint stays ejected
+	 */
+	public LoadBalancer setEjectionDuration(long ejectionDuration) {
+		this.ejectionDuration = ejectionDuration;
+		return this;
+	}
+
+	/**
+	 * @param ewmaDecay
+	 *            weight of the last latency in the moving average, from 0
+	 *            (exclusive) to 1
+	 */
+	public LoadBalancer setEwmaDecay(double ewmaDecay) {
+		if (ewmaDecay <= 0 || ewmaDecay > 1) {
+			throw new IllegalArgumentException(
+					"ewmaDecay must be within ]0, 1]");
+		}
+		this.ewmaDecay = ewmaDecay;
+		return this;
+	}
+
+	/**
+	 * @param stickyCookieName
+	 *            name of the session cookie binding calls to an endpoint, null
+	 *            to disable sticky routing
+	 */
+	public LoadBalancer setStickyCookieName(String stickyCookieName) {
+		this.stickyCookieName = stickyCookieName;
+		return this;
+	}
+
+	public LoadBalancer setStrategy(Strategy strategy) {
+		this.strategy = strategy;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "LoadBalancer[" + this.strategy + ", " + this.endpoints + "]";
+	}
+
+	/**
+	 * Records the start of a call to the endpoint
+	 */
+	void onStart(Endpoint endpoint) {
+		endpoint.inFlight.incrementAndGet();
+	}
+
+	/**
+	 * Records the end of a call to the endpoint
+	 *
+	 * @param failure
+	 *            the failure of the call, null if successful
+	 */
+	void onEnd(Endpoint endpoint, long latencyMillis, Throwable failure) {
+		endpoint.inFlight.decrementAndGet();
+		if (failure == null || !CircuitBreaker.isFailure(failure)) {
+			endpoint.consecutiveFailures.set(0);
+			if (failure == null) {
+				endpoint.recordLatency(latencyMillis, this.ewmaDecay);
+			}
+			return;
+		}
+		if (this.ejectAfterFailures > 0
+				&& endpoint.consecutiveFailures.incrementAndGet() >= this.ejectAfterFailures) {
+			endpoint.consecutiveFailures.set(0);
+			endpoint.ejectedUntil = System.nanoTime() + this.ejectionDuration
+					* 1000000L;
+			logger.warning("Ejecting " + endpoint.getModuleBaseUrl()
+					+ " for " + this.ejectionDuration + "ms");
+		}
+	}
+
+	private boolean holdsStickyCookie(CookieManager cookieManager,
+			Endpoint endpoint) {
+		for (HttpCookie cookie : cookieManager.getCookieStore().get(
+				URI.create(endpoint.getModuleBaseUrl()))) {
+			if (this.stickyCookieName.equals(cookie.getName())
+					&& !cookie.hasExpired()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static final Logger logger = Logger.getLogger(LoadBalancer.class
+			.getName());
+}
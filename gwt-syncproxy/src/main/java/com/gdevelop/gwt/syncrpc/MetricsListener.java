@@ -0,0 +1,34 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+/**
+ * Receives the measurements of each service call of a proxy, see
+ * {@link HasProxySettings#setMetricsListener(MetricsListener)}. Invoked in the
+ * calling thread, or in the thread of an asynchronous call, so
+ * implementations must be thread safe and fast. {@link MetricsRegistry} keeps
+ * them in memory.
+ *
+ * @since 0.6
+ */
+public interface MetricsListener {
+	/**
+	 * Called once a call completed, successfully or not, after its callback
+	 * for asynchronous calls. Exceptions thrown by the listener are logged
+	 * and ignored.
+	 */
+	void onCallCompleted(CallMetrics call);
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In memory {@link MetricsListener}, aggregating the calls per service
+ * interface and method. A registry may be shared by several proxies.
+ *
+ * Usage:
+ * <code>registry.getMethodMetrics(serviceName, "getCountries").getLatency().getValueAtPercentile(99)</code>
+ *
+ * @since 0.6
+ */
+public class MetricsRegistry implements MetricsListener {
+	/**
+	 * Aggregated measurements of a service method
+	 */
+	public static class MethodMetrics {
+		private final String serviceName;
+		private final String methodName;
+		private final AtomicLong errorCount = new AtomicLong();
+		private final ConcurrentMap<Class<?>, AtomicLong> errorsByType = new ConcurrentHashMap<Class<?>, AtomicLong>();
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LatencyHistogram[] phases = new LatencyHistogram[CallMetrics.Phase.VALUES.length];
+		private final LatencyHistogram[] counters = new LatencyHistogram[CallMetrics.Counter.VALUES.length];
+
+		MethodMetrics(String serviceName, String methodName) {
+			this.serviceName = serviceName;
+			this.methodName = methodName;
+			for (int i = 0; i < this.phases.length; i++) {
+				this.phases[i] = new LatencyHistogram();
+			}
+			for (int i = 0; i < this.counters.length; i++) {
+				this.counters[i] = new LatencyHistogram();
+			}
+		}
+
+		/**
+		 * @return the number of completed calls
+		 */
+		public long getCallCount() {
+			return this.latency.getCount();
+		}
+
+		/**
+		 * @return the distribution of the counter over the calls which
+		 *         decoded a response, its sum being the total of all the calls
+		 */
+		public LatencyHistogram getCounter(CallMetrics.Counter counter) {
+			return this.counters[counter.ordinal()];
+		}
+
+		public long getErrorCount() {
+			return this.errorCount.get();
+		}
+
+		/**
+		 * @return the number of failed calls per exception class name
+		 */
+		public Map<String, Long> getErrorsByType() {
+			Map<String, Long> errors = new HashMap<String, Long>();
+			for (Map.Entry<Class<?>, AtomicLong> entry : this.errorsByType
+					.entrySet()) {
+				errors.put(entry.getKey().getName(), entry.getValue().get());
+			}
+			return errors;
+		}
+
+		/**
+		 * @return the durations of the calls in microseconds
+		 */
+		public LatencyHistogram getLatency() {
+			return this.latency;
+		}
+
+		public String getMethodName() {
+			return this.methodName;
+		}
+
+		/**
+		 * @return the time spent in the phase in microseconds, by the calls
+		 *         which went through it
+		 */
+		public LatencyHistogram getPhase(CallMetrics.Phase phase) {
+			return this.phases[phase.ordinal()];
+		}
+
+		public String getServiceName() {
+			return this.serviceName;
+		}
+
+		@Override
+		public String toString() {
+			return this.serviceName + "." + this.methodName + ": calls="
+					+ getCallCount() + ", errors=" + getErrorCount()
+					+ ", p50=" + this.latency.getValueAtPercentile(50)
+					+ "us, p99=" + this.latency.getValueAtPercentile(99)
+					+ "us";
+		}
+
+		void record(CallMetrics call) {
+			Throwable failure = call.getFailure();
+			if (failure != null) {
+				this.errorCount.incrementAndGet();
+				AtomicLong count = this.errorsByType.get(failure.getClass());
+				if (count == null) {
+					AtomicLong created = new AtomicLong();
+					count = this.errorsByType.putIfAbsent(failure.getClass(),
+							created);
+					if (count == null) {
+						count = created;
+					}
+				}
+				count.incrementAndGet();
+			}
+			this.latency.record(call.getDuration(TimeUnit.MICROSECONDS));
+			for (CallMetrics.Phase phase : CallMetrics.Phase.VALUES) {
+				long nanos = call.getPhase(phase, TimeUnit.NANOSECONDS);
+				if (nanos > 0) {
+					this.phases[phase.ordinal()].record(nanos / 1000);
+				}
+			}
+			if (call.getCount(CallMetrics.Counter.RESPONSE_BYTES) > 0
+					|| call.getCount(CallMetrics.Counter.TOKENS) > 0) {
+				for (CallMetrics.Counter counter : CallMetrics.Counter.VALUES) {
+					this.counters[counter.ordinal()].record(call
+							.getCount(counter));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Service name to method name to metrics, two levels so that no key is
+	 * built per call
+	 */
+	private final ConcurrentMap<String, ConcurrentMap<String, MethodMetrics>> services = new ConcurrentHashMap<String, ConcurrentMap<String, MethodMetrics>>();
+
+	/**
+	 * @return the metrics of all the methods called
+	 */
+	public Collection<MethodMetrics> getAll() {
+		Collection<MethodMetrics> all = new ArrayList<MethodMetrics>();
+		for (ConcurrentMap<String, MethodMetrics> methods : this.services
+				.values()) {
+			all.addAll(methods.values());
+		}
+		return all;
+	}
+
+	/**
+	 * @param serviceName
+	 *            the name of the synchronous service interface
+	 * @return the metrics of the method, null if never called
+	 */
+	public MethodMetrics getMethodMetrics(String serviceName, String methodName) {
+		ConcurrentMap<String, MethodMetrics> methods = this.services
+				.get(serviceName);
+		return methods == null ? null : methods.get(methodName);
+	}
+
+	@Override
+	public void onCallCompleted(CallMetrics call) {
+		getOrCreate(call.getServiceName(), call.getMethodName()).record(call);
+	}
+
+	/**
+	 * Forgets all the measurements
+	 */
+	public void reset() {
+		this.services.clear();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("MetricsRegistry[");
+		for (MethodMetrics metrics : getAll()) {
+			sb.append("\n  ").append(metrics);
+		}
+		return sb.append("]").toString();
+	}
+
+	private MethodMetrics getOrCreate(String serviceName, String methodName) {
+		ConcurrentMap<String, MethodMetrics> methods = this.services
+				.get(serviceName);
+		if (methods == null) {
+			ConcurrentMap<String, MethodMetrics> created = new ConcurrentHashMap<String, MethodMetrics>();
+			methods = this.services.putIfAbsent(serviceName, created);
+			if (methods == null) {
+				methods = created;
+			}
+		}
+		MethodMetrics metrics = methods.get(methodName);
+		if (metrics == null) {
+			MethodMetrics created = new MethodMetrics(serviceName, methodName);
+			metrics = methods.putIfAbsent(methodName, created);
+			if (metrics == null) {
+				metrics = created;
+			}
+		}
+		return metrics;
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import com.google.gwt.user.server.rpc.SerializationPolicy;
+
+/**
+ * Thread safe cache of parsed {@link SerializationPolicy}'s keyed by policy
+ * file url. The least recently used policy is evicted once
+ * {@link #getMaxEntries()} is reached. Hit, miss, eviction and load time
+ * counters are kept for monitoring.
+ *
+ * @since 0.6
+ */
+public class PolicyCache {
+	public static final int DEFAULT_MAX_ENTRIES = 64;
+
+	private final Map<String, SerializationPolicy> policies = new LinkedHashMap<String, SerializationPolicy>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<String, SerializationPolicy> eldest) {
+			if (size() > PolicyCache.this.maxEntries) {
+				evicted(eldest.getKey());
+				return true;
+			}
+			return false;
+		}
+	};
+
+	private volatile int maxEntries;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	private final AtomicLong loadCount = new AtomicLong();
+	private final AtomicLong totalLoadTime = new AtomicLong();
+
+	public PolicyCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	public PolicyCache(int maxEntries) {
+		setMaxEntries(maxEntries);
+	}
+
+	public void clear() {
+		synchronized (this.policies) {
+			this.policies.clear();
+		}
+	}
+
+	/**
+	 * @return the cached policy, or null if absent
+	 */
+	public SerializationPolicy get(String url) {
+		SerializationPolicy policy;
+		synchronized (this.policies) {
+			policy = this.policies.get(url);
+		}
+		if (policy == null) {
+			this.missCount.incrementAndGet();
+		} else {
+			this.hitCount.incrementAndGet();
+		}
+		return policy;
+	}
+
+	public long getEvictionCount() {
+		return this.evictionCount.get();
+	}
+
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * @return number of policies loaded, see {@link #recordLoad(long)}
+	 */
+	public long getLoadCount() {
+		return this.loadCount.get();
+	}
+
+	public int getMaxEntries() {
+		return this.maxEntries;
+	}
+
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * @return cumulated time spent loading policies, in nanoseconds
+	 */
+	public long getTotalLoadTime() {
+		return this.totalLoadTime.get();
+	}
+
+	/**
+	 * @return the cached policy, or null if absent, without counting a hit
+	 *         or a miss
+	 */
+	SerializationPolicy peek(String url) {
+		synchronized (this.policies) {
+			return this.policies.get(url);
+		}
+	}
+
+	public void put(String url, SerializationPolicy policy) {
+		synchronized (this.policies) {
+			this.policies.put(url, policy);
+		}
+	}
+
+	/**
+	 * Records the time taken to fetch and parse a policy
+	 *
+	 * @param nanos
+	 *            load time in nanoseconds
+	 */
+	public void recordLoad(long nanos) {
+		this.loadCount.incrementAndGet();
+		this.totalLoadTime.addAndGet(nanos);
+	}
+
+	public void remove(String url) {
+		synchronized (this.policies) {
+			this.policies.remove(url);
+		}
+	}
+
+	/**
+	 * Sets the maximum number of policies kept. The least recently used
+	 * policies over the new limit are evicted right away.
+	 */
+	public void setMaxEntries(int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries must be positive");
+		}
+		synchronized (this.policies) {
+			this.maxEntries = maxEntries;
+			Iterator<String> urls = this.policies.keySet().iterator();
+			while (this.policies.size() > maxEntries) {
+				evicted(urls.next());
+				urls.remove();
+			}
+		}
+	}
+
+	public int size() {
+		synchronized (this.policies) {
+			return this.policies.size();
+		}
+	}
+
+	private void evicted(String url) {
+		this.evictionCount.incrementAndGet();
+		logger.fine("Evicting policy: " + url);
+	}
+
+	@Override
+	public String toString() {
+		return "PolicyCache[size=" + size() + ", hits=" + getHitCount()
+				+ ", misses=" + getMissCount() + ", evictions="
+				+ getEvictionCount() + ", loads=" + getLoadCount()
+				+ ", loadTimeMs=" + getTotalLoadTime() / 1000000 + "]";
+	}
+
+	private static final Logger logger = Logger.getLogger(PolicyCache.class
+			.getName());
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.CookieManager;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Background task detecting a redeploy of a GWT module, so that new policies
+ * are fetched and parsed before the first call needs them.
+ *
+ * The small <code>MODULE.nocache.js</code> and
+ * <code>compilation-mappings.txt</code> resources of the module are polled at
+ * a fixed interval with conditional GET's (ETag / Last-Modified), on the
+ * shared workers since the requests block. When one of
+ * them changed, the policy names of the module are fetched again, which also
+ * loads the new policies into the {@link PolicyCache}, and
+ * {@link SyncProxy#POLICY_MAP} is updated. Proxies created before the change
+ * switch to the new policy on their next call, see
+ * {@link #getCurrentPolicyName(String)}.
+ *
+ * Usage: <code>PolicyWatcher.start(moduleBaseURL, cookieManager, 60000)</code>
+ *
+ * @since 0.6
+ */
+public class PolicyWatcher implements Runnable {
+	/**
+	 * Validators of the last successful poll of a resource
+	 */
+	private static final class Validator {
+		final String etag;
+		final long lastModified;
+		final long checksum;
+
+		Validator(String etag, long lastModified, long checksum) {
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.checksum = checksum;
+		}
+	}
+
+	public static final long DEFAULT_INTERVAL_MILLIS = 60000;
+
+	/**
+	 * Starts watching the module, unless it is already watched
+	 *
+	 * @param cookieManager
+	 *            sent with the polling requests, may be null
+	 * @param intervalMillis
+	 *            delay between the end of a poll and the start of the next one
+	 * @return the watcher of the module
+	 */
+	public static PolicyWatcher start(String moduleBaseURL,
+			CookieManager cookieManager, long intervalMillis) {
+		if (intervalMillis <= 0) {
+			throw new IllegalArgumentException("intervalMillis must be positive");
+		}
+		String key = moduleBaseURL.trim();
+		PolicyWatcher watcher = new PolicyWatcher(key, cookieManager,
+				intervalMillis);
+		PolicyWatcher existing = WATCHERS.putIfAbsent(key, watcher);
+		if (existing != null) {
+			return existing;
+		}
+		logger.info("Watching policies of " + key + " every "
+				+ intervalMillis + "ms");
+		watcher.schedule();
+		return watcher;
+	}
+
+	/**
+	 * @return the watcher of the module, null if not watched
+	 */
+	public static PolicyWatcher get(String moduleBaseURL) {
+		return WATCHERS.get(moduleBaseURL.trim());
+	}
+
+	/**
+	 * Stops watching the module
+	 */
+	public static void stop(String moduleBaseURL) {
+		PolicyWatcher watcher = WATCHERS.remove(moduleBaseURL.trim());
+		if (watcher != null) {
+			watcher.cancel();
+		}
+	}
+
+	/**
+	 * Stops all the watchers
+	 */
+	public static void stopAll() {
+		for (String moduleBaseURL : WATCHERS.keySet()) {
+			stop(moduleBaseURL);
+		}
+	}
+
+	/**
+	 * @return the policy which replaced the provided one after a redeploy
+	 *         detected by a watcher, or the provided one if not replaced
+	 */
+	public static String getCurrentPolicyName(String policyName) {
+		if (policyName == null) {
+			return null;
+		}
+		String current = policyName;
+		String next;
+		while ((next = SUPERSEDED_POLICIES.get(current)) != null) {
+			current = next;
+		}
+		return current;
+	}
+
+	/**
+	 * Records the policy changes of a module in {@link SyncProxy#POLICY_MAP}
+	 *
+	 * @return the number of services whose policy changed
+	 */
+	static int updatePolicyMap(Map<String, String> policies) {
+		int changes = 0;
+		for (Map.Entry<String, String> entry : policies.entrySet()) {
+			String previous = SyncProxy.POLICY_MAP.put(entry.getKey(),
+					entry.getValue());
+			if (previous != null && !previous.equals(entry.getValue())) {
+				// Removing first avoids a cycle when rolled back
+				SUPERSEDED_POLICIES.remove(entry.getValue());
+				SUPERSEDED_POLICIES.put(previous, entry.getValue());
+				changes++;
+			}
+		}
+		return changes;
+	}
+
+	private final String moduleBaseURL;
+	private final CookieManager cookieManager;
+	private final long intervalMillis;
+	private final String[] resources;
+	private final Map<String, Validator> validators = new ConcurrentHashMap<String, Validator>();
+	private final AtomicLong checkCount = new AtomicLong();
+	private final AtomicLong refreshCount = new AtomicLong();
+	private volatile ScheduledFuture<?> future;
+	private volatile boolean cancelled;
+
+	/**
+	 * Hands the check over to a worker, the scheduler only runs non-blocking
+	 * tasks. The next check is scheduled once this one is done.
+	 */
+	private final Runnable trigger = new Runnable() {
+		@Override
+		public void run() {
+			SyncProxyScheduler.getWorkers().execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						PolicyWatcher.this.run();
+					} finally {
+						schedule();
+					}
+				}
+			});
+		}
+	};
+
+	protected PolicyWatcher(String moduleBaseURL, CookieManager cookieManager,
+			long intervalMillis) {
+		this.moduleBaseURL = moduleBaseURL;
+		this.cookieManager = cookieManager;
+		this.intervalMillis = intervalMillis;
+		String[] urlparts = moduleBaseURL.split("/");
+		this.resources = new String[] {
+				moduleBaseURL + urlparts[urlparts.length - 1] + ".nocache.js",
+				moduleBaseURL + MODULE_COMPILATION_MAPPINGS };
+	}
+
+	/**
+	 * Polls the module resources, and fetches the policies if one of them
+	 * changed since the previous check. The first check only records the
+	 * current state.
+	 *
+	 * @return true if the module was redeployed
+	 * @throws IOException
+	 *             if the module resources or the policies can't be fetched
+	 */
+	public boolean check() throws IOException {
+		this.checkCount.incrementAndGet();
+		boolean changed = false;
+		for (String resource : this.resources) {
+			// Polls all resources so that each one keeps its validator
+			changed |= poll(resource);
+		}
+		if (changed) {
+			logger.info("Module " + this.moduleBaseURL
+					+ " changed, fetching policies");
+			int changes = updatePolicyMap(RpcPolicyFinder
+					.fetchSerializationPolicyName(this.moduleBaseURL,
+							this.cookieManager));
+			this.refreshCount.incrementAndGet();
+			logger.info(changes + " service policies changed in "
+					+ this.moduleBaseURL);
+		}
+		return changed;
+	}
+
+	/**
+	 * @return number of checks performed
+	 */
+	public long getCheckCount() {
+		return this.checkCount.get();
+	}
+
+	public long getIntervalMillis() {
+		return this.intervalMillis;
+	}
+
+	public String getModuleBaseURL() {
+		return this.moduleBaseURL;
+	}
+
+	/**
+	 * @return number of redeploys detected
+	 */
+	public long getRefreshCount() {
+		return this.refreshCount.get();
+	}
+
+	@Override
+	public void run() {
+		try {
+			check();
+		} catch (Exception e) {
+			// Must not escape, which would cancel the next executions
+			logger.warning("Unable to check policies of " + this.moduleBaseURL
+					+ ": " + e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PolicyWatcher[" + this.moduleBaseURL + ", checks="
+				+ getCheckCount() + ", refreshes=" + getRefreshCount() + "]";
+	}
+
+	private void cancel() {
+		this.cancelled = true;
+		ScheduledFuture<?> f = this.future;
+		if (f != null) {
+			f.cancel(false);
+		}
+		logger.info("Stopped watching policies of " + this.moduleBaseURL);
+	}
+
+	private void schedule() {
+		if (this.cancelled) {
+			return;
+		}
+		ScheduledFuture<?> f = SyncProxyScheduler.get().schedule(this.trigger,
+				this.intervalMillis, TimeUnit.MILLISECONDS);
+		this.future = f;
+		if (this.cancelled) {
+			// Stopped while scheduling
+			f.cancel(false);
+		}
+	}
+
+	/**
+	 * Conditional GET of the resource. The content checksum is also compared
+	 * since some servers don't send validators.
+	 *
+	 * @return true if the resource changed since the previous poll
+	 */
+	private boolean poll(String resource) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(resource)
+				.openConnection();
+		connection.setInstanceFollowRedirects(true);
+		connection.setRequestMethod("GET");
+		connection.setUseCaches(false);
+		RpcPolicyFinder.applyTimeouts(connection);
+		String cookieString = RpcPolicyFinder
+				.getCookieHeader(this.cookieManager);
+		if (StringUtils.isNotBlank(cookieString)) {
+			connection.setRequestProperty("Cookie", cookieString);
+		}
+		Validator previous = this.validators.get(resource);
+		if (previous != null) {
+			if (previous.etag != null) {
+				connection.setRequestProperty("If-None-Match", previous.etag);
+			}
+			if (previous.lastModified > 0) {
+				connection.setIfModifiedSince(previous.lastModified);
+			}
+		}
+
+		int status = connection.getResponseCode();
+		if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+			logger.finer("Not modified: " + resource);
+			return false;
+		}
+		if (status != HttpURLConnection.HTTP_OK) {
+			InputStream es = connection.getErrorStream();
+			if (es != null) {
+				es.close();
+			}
+			if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+				// compilation-mappings.txt is not produced by all linkers
+				logger.finer("Not found: " + resource);
+				return false;
+			}
+			throw new IOException("Unexpected status " + status + " for "
+					+ resource);
+		}
+
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[4096];
+		InputStream is = connection.getInputStream();
+		try {
+			int n;
+			while ((n = is.read(buffer)) > 0) {
+				crc.update(buffer, 0, n);
+			}
+		} finally {
+			is.close();
+		}
+		Validator current = new Validator(connection.getHeaderField("ETag"),
+				connection.getLastModified(), crc.getValue());
+		this.validators.put(resource, current);
+		boolean changed = previous != null
+				&& previous.checksum != current.checksum;
+		if (changed) {
+			logger.fine("Modified: " + resource);
+		}
+		return changed;
+	}
+
+	/**
+	 * Old policy name to the policy name which replaced it
+	 */
+	private static final Map<String, String> SUPERSEDED_POLICIES = new ConcurrentHashMap<String, String>();
+
+	private static final ConcurrentMap<String, PolicyWatcher> WATCHERS = new ConcurrentHashMap<String, PolicyWatcher>();
+
+	private static final String MODULE_COMPILATION_MAPPINGS = "compilation-mappings.txt";
+
+	private static final Logger logger = Logger.getLogger(PolicyWatcher.class
+			.getName());
+}
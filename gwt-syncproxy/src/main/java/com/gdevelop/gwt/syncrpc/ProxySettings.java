@@ -5,6 +5,7 @@
 package com.gdevelop.gwt.syncrpc;
 
 import java.net.CookieManager;
+import java.util.List;
 
 /**
  * Handles settings utilized by the SyncProxy creation. Set methods return the
@@ -17,9 +18,24 @@ import java.net.CookieManager;
 public class ProxySettings implements HasProxySettings {
 	String moduleBaseUrl;
 	String remoteServiceRelativePath;
-	String policyName;
+	/**
+	 * Volatile since it may be refreshed by any calling thread after a server
+	 * redeploy
+	 */
+	volatile String policyName;
 	CookieManager cookieManager;
 	boolean waitForInvocation = false;
+	int connectTimeout;
+	int readTimeout;
+	long deadline;
+	RetryPolicy retryPolicy;
+	CircuitBreakerPolicy circuitBreakerPolicy;
+	BulkheadPolicy bulkheadPolicy;
+	LoadBalancer loadBalancer;
+	RateLimiter rateLimiter;
+	MetricsListener metricsListener;
+	List<RpcInterceptor> interceptors;
+	Tracer tracer;
 
 	public ProxySettings() {
 
@@ -44,6 +60,83 @@ public class ProxySettings implements HasProxySettings {
 		return this.cookieManager;
 	}
 
+	/**
+	 * @return the bulkheadPolicy limiting the calls in flight, null for no
+	 *         limit
+	 */
+	@Override
+	public BulkheadPolicy getBulkheadPolicy() {
+		return this.bulkheadPolicy;
+	}
+
+	/**
+	 * @return the circuitBreakerPolicy of the service endpoint, null if
+	 *         failures do not open a circuit
+	 */
+	@Override
+	public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+		return this.circuitBreakerPolicy;
+	}
+
+	/**
+	 * @return the connectTimeout in milliseconds, 0 for no limit
+	 */
+	@Override
+	public int getConnectTimeout() {
+		return this.connectTimeout;
+	}
+
+	/**
+	 * @return the deadline of each call in milliseconds, 0 for no limit
+	 */
+	@Override
+	public long getDeadline() {
+		return this.deadline;
+	}
+
+	/**
+	 * @return the rateLimiter of the calls of this proxy, null for no limit
+	 */
+	@Override
+	public RateLimiter getRateLimiter() {
+		return this.rateLimiter;
+	}
+
+	/**
+	 * @return the readTimeout in milliseconds, 0 for no limit
+	 */
+	@Override
+	public int getReadTimeout() {
+		return this.readTimeout;
+	}
+
+	/**
+	 * @return the interceptors of the calls, in their order, null or empty
+	 *         for none
+	 */
+	@Override
+	public List<RpcInterceptor> getInterceptors() {
+		return this.interceptors;
+	}
+
+	/**
+	 * @return the loadBalancer spreading calls over several module base urls,
+	 *         null if calls go to the moduleBaseUrl
+	 */
+	@Override
+	public LoadBalancer getLoadBalancer() {
+		return this.loadBalancer;
+	}
+
+	/**
+	 * @return the metricsListener receiving the measurements of the calls,
+	 *         null if not measured
+	 */
+	@Override
+	public MetricsListener getMetricsListener() {
+		return this.metricsListener;
+	}
+
 	/**
 	 * @return the policyName
 	 */
@@ -60,6 +153,15 @@ public class ProxySettings implements HasProxySettings {
 		return this.remoteServiceRelativePath;
 	}
 
+	/**
+	 * @return the retryPolicy of {@link Idempotent} methods, null if they are
+	 *         not retried
+	 */
+	@Override
+	public RetryPolicy getRetryPolicy() {
+		return this.retryPolicy;
+	}
+
 	/**
 	 * @return the serverBaseUrl
 	 */
@@ -68,6 +170,14 @@ public class ProxySettings implements HasProxySettings {
 		return this.moduleBaseUrl;
 	}
 
+	/**
+	 * @return the tracer starting a span per call, null if not traced
+	 */
+	@Override
+	public Tracer getTracer() {
+		return this.tracer;
+	}
+
 	/**
 	 * @return the waitForInvocation
 	 */
@@ -86,6 +196,111 @@ public class ProxySettings implements HasProxySettings {
 		return this;
 	}
 
+	/**
+	 * @param bulkheadPolicy
+	 *            the bulkheadPolicy limiting the calls in flight to set, null
+	 *            for no limit
+	 */
+	@Override
+	public ProxySettings setBulkheadPolicy(BulkheadPolicy bulkheadPolicy) {
+		this.bulkheadPolicy = bulkheadPolicy;
+		return this;
+	}
+
+	/**
+	 * @param circuitBreakerPolicy
+	 *            the circuitBreakerPolicy of the service endpoint to set, null
+	 *            to disable the circuit breaker
+	 */
+	@Override
+	public ProxySettings setCircuitBreakerPolicy(
+			CircuitBreakerPolicy circuitBreakerPolicy) {
+		this.circuitBreakerPolicy = circuitBreakerPolicy;
+		return this;
+	}
+
+	/**
+	 * @param connectTimeout
+	 *            the connectTimeout to set in milliseconds, 0 for no limit
+	 */
+	@Override
+	public ProxySettings setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+		return this;
+	}
+
+	/**
+	 * @param deadline
+	 *            the deadline of each call to set in milliseconds, including
+	 *            serialization and retries, 0 for no limit
+	 */
+	@Override
+	public ProxySettings setDeadline(long deadline) {
+		this.deadline = deadline;
+		return this;
+	}
+
+	/**
+	 * @param rateLimiter
+	 *            the rateLimiter of the calls of this proxy to set, null for
+	 *            no limit
+	 */
+	@Override
+	public ProxySettings setRateLimiter(RateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+		return this;
+	}
+
+	/**
+	 * @param readTimeout
+	 *            the readTimeout to set in milliseconds, 0 for no limit
+	 */
+	@Override
+	public ProxySettings setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+		return this;
+	}
+
+	/**
+	 * @param interceptors
+	 *            the interceptors of the calls to set, the first one running
+	 *            first, null for none
+	 */
+	@Override
+	public ProxySettings setInterceptors(List<RpcInterceptor> interceptors) {
+		this.interceptors = interceptors;
+		return this;
+	}
+
+	/**
+	 * Also sets the moduleBaseUrl, used to find policies, to the first
+	 * endpoint if not set yet.
+	 *
+	 * @param loadBalancer
+	 *            the loadBalancer spreading calls over several module base
+	 *            urls to set, null to send calls to the moduleBaseUrl
+	 */
+	@Override
+	public ProxySettings setLoadBalancer(LoadBalancer loadBalancer) {
+		this.loadBalancer = loadBalancer;
+		if (loadBalancer != null && this.moduleBaseUrl == null) {
+			this.moduleBaseUrl = loadBalancer.getEndpoints().get(0)
+					.getModuleBaseUrl();
+		}
+		return this;
+	}
+
+	/**
+	 * @param metricsListener
+	 *            the metricsListener receiving the measurements of the calls
+	 *            to set, null to not measure them
+	 */
+	@Override
+	public ProxySettings setMetricsListener(MetricsListener metricsListener) {
+		this.metricsListener = metricsListener;
+		return this;
+	}
+
 	/**
 	 * @param policyName
 	 *            the policyName to set
@@ -107,6 +322,17 @@ public class ProxySettings implements HasProxySettings {
 		return this;
 	}
 
+	/**
+	 * @param retryPolicy
+	 *            the retryPolicy of {@link Idempotent} methods to set, null to
+	 *            disable retries
+	 */
+	@Override
+	public ProxySettings setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+		return this;
+	}
+
 	/**
 	 * @param moduleBaseUrl
 	 *            the serverBaseUrl to set
@@ -117,6 +343,17 @@ public class ProxySettings implements HasProxySettings {
 		return this;
 	}
 
+	/**
+	 * @param tracer
+	 *            the tracer starting a span per call to set, null to not
+	 *            trace the calls
+	 */
+	@Override
+	public ProxySettings setTracer(Tracer tracer) {
+		this.tracer = tracer;
+		return this;
+	}
+
 	/**
 	 * @param waitForInvocation
 	 *            the waitForInvocation to set
@@ -0,0 +1,54 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits the rate of calls of a service method, or of all the methods of a
+ * service interface when set on the interface, with a {@link RateLimiter}
+ * shared by all the proxies. May be placed on the synchronous or the
+ * asynchronous interface. Applies in addition to the rate limiter of the
+ * {@link ProxySettings}.
+ *
+ * @since 0.6
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD, ElementType.TYPE })
+public @interface RateLimit {
+	/**
+	 * @return the number of calls allowed at once after an idle period, 0 for
+	 *         one second of calls
+	 */
+	int burst() default 0;
+
+	/**
+	 * @return the maximum time in milliseconds a call waits for a permit
+	 */
+	long maxWait() default 30000;
+
+	RateLimiter.Mode mode() default RateLimiter.Mode.BLOCK;
+
+	/**
+	 * @return the sustained rate of calls
+	 */
+	double permitsPerSecond();
+}
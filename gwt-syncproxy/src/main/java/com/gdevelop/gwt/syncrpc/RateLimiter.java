@@ -0,0 +1,193 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import com.gdevelop.gwt.syncrpc.exception.RateLimitedException;
+
+/**
+ * Token bucket limiting the rate of calls. The bucket holds up to
+ * <code>burst</code> permits and is refilled at <code>permitsPerSecond</code>.
+ * A call takes a permit before being serialized; how a call without permit
+ * is handled depends on the {@link Mode}. Set methods return the limiter for
+ * chaining.
+ *
+ * Usage:
+ * <code>settings.setRateLimiter(new RateLimiter(20, 5).setMode(Mode.FAIL_FAST))</code>
+ *
+ * @since 0.6
+ */
+public class RateLimiter {
+	public enum Mode {
+		/**
+		 * The calling thread waits for a permit
+		 */
+		BLOCK,
+		/**
+		 * The call fails with a {@link RateLimitedException}
+		 */
+		FAIL_FAST,
+		/**
+		 * An asynchronous call returns at once and is sent once its permit is
+		 * available. Synchronous calls block.
+		 */
+		DELAY
+	}
+
+	private final double permitsPerSecond;
+	private final int burst;
+	private Mode mode = Mode.BLOCK;
+	private long maxWait = 30000;
+
+	/**
+	 * Permits available, negative when permits were reserved ahead
+	 */
+	private double permits;
+	private long refilledAt;
+
+	/**
+	 * @param burst
+	 *            the number of calls allowed at once after an idle period
+	 */
+	public RateLimiter(double permitsPerSecond, int burst) {
+		if (permitsPerSecond <= 0) {
+			throw new IllegalArgumentException(
+					"permitsPerSecond must be positive");
+		}
+		if (burst < 1) {
+			throw new IllegalArgumentException("burst must be positive");
+		}
+		this.permitsPerSecond = permitsPerSecond;
+		this.burst = burst;
+		this.permits = burst;
+		this.refilledAt = System.nanoTime();
+	}
+
+	/**
+	 * Takes a permit according to the mode: waits for it, or fails if none is
+	 * available.
+	 *
+	 * @param maxWaitMillis
+	 *            bound of the wait, in addition to the limiter maximum wait
+	 * @throws RateLimitedException
+	 *             if no permit is available in time
+	 * @throws InterruptedException
+	 *             if interrupted while waiting, the permit is then consumed
+	 */
+	public void acquire(long maxWaitMillis) throws RateLimitedException,
+			InterruptedException {
+		long wait = reserve(maxWaitMillis);
+		if (wait > 0) {
+			Thread.sleep(wait);
+		}
+	}
+
+	public int getBurst() {
+		return this.burst;
+	}
+
+	public long getMaxWait() {
+		return this.maxWait;
+	}
+
+	public Mode getMode() {
+		return this.mode;
+	}
+
+	public double getPermitsPerSecond() {
+		return this.permitsPerSecond;
+	}
+
+	/**
+	 * Takes a permit which may only be available in the future, without
+	 * waiting for it. In {@link Mode#FAIL_FAST} the permit must be available
+	 * now.
+	 *
+	 * @param maxWaitMillis
+	 *            bound of the wait, in addition to the limiter maximum wait
+	 * @return the time in milliseconds until the permit is available, 0 if
+	 *         available now
+	 * @throws RateLimitedException
+	 *             if no permit is available in time, no permit is then taken
+	 */
+	public synchronized long reserve(long maxWaitMillis)
+			throws RateLimitedException {
+		refill();
+		long wait = getWaitMillis();
+		long allowed = this.mode == Mode.FAIL_FAST ? 0 : Math.min(
+				maxWaitMillis, this.maxWait);
+		if (wait > allowed) {
+			throw new RateLimitedException("Rate of " + this.permitsPerSecond
+					+ "/s exceeded", wait);
+		}
+		this.permits--;
+		return wait;
+	}
+
+	/**
+	 * Gives back a permit taken by {@link #reserve(long)} or
+	 * {@link #tryAcquire()} for a call which is not sent after all, e.g.
+	 * because another limiter rejected it
+	 */
+	public synchronized void release() {
+		refill();
+		this.permits = Math.min(this.burst, this.permits + 1);
+	}
+
+	public RateLimiter setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+		return this;
+	}
+
+	public RateLimiter setMode(Mode mode) {
+		this.mode = mode;
+		return this;
+	}
+
+	/**
+	 * Takes a permit if one is available now
+	 *
+	 * @return true if the permit was taken
+	 */
+	public synchronized boolean tryAcquire() {
+		refill();
+		if (this.permits < 1) {
+			return false;
+		}
+		this.permits--;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "RateLimiter[" + this.permitsPerSecond + "/s, burst="
+				+ this.burst + ", mode=" + this.mode + "]";
+	}
+
+	private long getWaitMillis() {
+		if (this.permits >= 1) {
+			return 0;
+		}
+		return (long) Math.ceil((1 - this.permits) * 1000
+				/ this.permitsPerSecond);
+	}
+
+	private void refill() {
+		long now = System.nanoTime();
+		this.permits = Math.min(this.burst, this.permits
+				+ (now - this.refilledAt) * this.permitsPerSecond / 1e9);
+		this.refilledAt = now;
+	}
+}
@@ -15,21 +15,35 @@
  */
 package com.gdevelop.gwt.syncrpc;
 
+import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.CookieManager;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.http.MethodNotSupportedException;
 
+import com.gdevelop.gwt.syncrpc.exception.RateLimitedException;
 import com.gdevelop.gwt.syncrpc.exception.SyncProxyException;
 import com.gdevelop.gwt.syncrpc.exception.SyncProxyException.InfoType;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.gwt.user.client.rpc.HasRpcToken;
+import com.google.gwt.user.client.rpc.IncompatibleRemoteServiceException;
 import com.google.gwt.user.client.rpc.InvocationException;
 import com.google.gwt.user.client.rpc.RemoteService;
 import com.google.gwt.user.client.rpc.RpcToken;
@@ -40,6 +54,7 @@ import com.google.gwt.user.client.rpc.SerializationException;
 import com.google.gwt.user.client.rpc.SerializationStreamFactory;
 import com.google.gwt.user.client.rpc.SerializationStreamWriter;
 import com.google.gwt.user.client.rpc.ServiceDefTarget;
+import com.google.gwt.user.client.rpc.StatusCodeException;
 import com.google.gwt.user.client.rpc.impl.RequestCallbackAdapter.ResponseReader;
 import com.google.gwt.user.server.rpc.impl.SerializabilityUtil;
 
@@ -80,6 +95,27 @@ public class RemoteServiceInvocationHandler implements InvocationHandler {
 
 	private static final Map<Class<?>, ResponseReader> JPRIMITIVETYPE_TO_RESPONSEREADER = new HashMap<Class<?>, ResponseReader>();
 
+	/**
+	 * Recent latencies of the {@link Hedged} methods
+	 */
+	private static final ConcurrentMap<Method, LatencyTracker> LATENCY_TRACKERS = new ConcurrentHashMap<Method, LatencyTracker>();
+
+	/**
+	 * Limiters of the {@link RateLimit} methods and interfaces
+	 */
+	private static final ConcurrentMap<AnnotatedElement, RateLimiter> RATE_LIMITERS = new ConcurrentHashMap<AnnotatedElement, RateLimiter>();
+
+	/**
+	 * Calls in flight of the {@link Coalesce} methods
+	 */
+	private static final SingleFlight<List<Object>, Object> COALESCED_CALLS = new SingleFlight<List<Object>, Object>();
+
+	/**
+	 * Outcome of a coalesced call whose response was handled by the
+	 * {@link RpcTokenExceptionHandler}
+	 */
+	private static final Object IGNORED_RESPONSE = new Object();
+
 	static {
 		// JPRIMITIVETYPE_TO_RESPONSEREADER.put(Boolean.class,
 		// ResponseReader.BOOLEAN);
@@ -123,6 +159,11 @@ public class RemoteServiceInvocationHandler implements InvocationHandler {
 			.getName());
 	HasProxySettings settings;
 
+	/**
+	 * Bulkhead of this proxy, when not shared by the endpoint
+	 */
+	private Bulkhead bulkhead;
+
 	public RemoteServiceInvocationHandler(HasProxySettings settings) {
 		this(settings.getModuleBaseUrl(), settings
 				.getRemoteServiceRelativePath(), settings.getPolicyName(),
@@ -166,7 +207,9 @@ public class RemoteServiceInvocationHandler implements InvocationHandler {
 	}
 
 	private ResponseReader getReaderFor(Class<?> type) {
-		this.logger.finer("Getting reader for: " + type.getName());
+		if (this.logger.isLoggable(Level.FINER)) {
+			this.logger.finer("Getting reader for: " + type.getName());
+		}
 		ResponseReader primitiveResponseReader = JPRIMITIVETYPE_TO_RESPONSEREADER
 				.get(type);
 		if (primitiveResponseReader != null) {
@@ -291,10 +334,12 @@ public class RemoteServiceInvocationHandler implements InvocationHandler {
 	@Override
 	public Object invoke(Object proxy, Method method, Object[] args)
 			throws Throwable {
-		this.logger.info("Invoking " + method.getName() + " on proxy: "
-				+ proxy.getClass().getName());
-		if (this.logger.getLevel() != null
-				&& this.logger.getLevel().intValue() <= Level.CONFIG.intValue()) {
+		long start = System.nanoTime();
+		if (this.logger.isLoggable(Level.INFO)) {
+			this.logger.info("Invoking " + method.getName() + " on proxy: "
+					+ proxy.getClass().getName());
+		}
+		if (this.logger.isLoggable(Level.CONFIG)) {
 			String intfs = "";
 			for (Class<?> intf : proxy.getClass().getInterfaces()) {
 				intfs += intf.getName() + ",";
@@ -318,12 +363,36 @@ public class RemoteServiceInvocationHandler implements InvocationHandler {
 			.info("Handling invocation of HasProxySettings Interface");
 			return handleHasProxySettings(proxy, method, args);
 		}
-		RemoteServiceSyncProxy syncProxy = new RemoteServiceSyncProxy(
-				this.settings.getModuleBaseUrl(),
-				this.settings.getRemoteServiceRelativePath(),
-				this.settings.getPolicyName(),
-				this.settings.getCookieManager(), this.token,
-				this.rpcTokenExceptionHandler);
+		// Switch to the new policy if a PolicyWatcher detected a redeploy
+		String policyName = PolicyWatcher.getCurrentPolicyName(this.settings
+				.getPolicyName());
+		if (policyName != null
+				&& !policyName.equals(this.settings.getPolicyName())) {
+			if (this.logger.isLoggable(Level.INFO)) {
+				this.logger.info("Using policy " + policyName + " instead of "
+						+ this.settings.getPolicyName());
+			}
+			this.settings.setPolicyName(policyName);
+		}
+		LoadBalancer loadBalancer = this.settings.getLoadBalancer();
+		LoadBalancer.Endpoint endpoint = null;
+		String moduleBaseUrl = this.settings.getModuleBaseUrl();
+		if (loadBalancer != null) {
+			endpoint = loadBalancer.select(this.settings.getCookieManager());
+			moduleBaseUrl = endpoint.getModuleBaseUrl();
+			if (this.logger.isLoggable(Level.FINE)) {
+				this.logger.fine("Selected endpoint: " + moduleBaseUrl);
+			}
+		}
+		// Loading the policy must not outlast the call
+		CallTimeouts previousTimeouts = RpcPolicyFinder
+				.setCallTimeouts(CallTimeouts.of(this.settings, start, method));
+		RemoteServiceSyncProxy syncProxy;
+		try {
+			syncProxy = createSyncProxy(moduleBaseUrl, policyName);
+		} finally {
+			RpcPolicyFinder.setCallTimeouts(previousTimeouts);
+		}
 		// Handle delegation of calls to the RemoteServiceProxy hierarchy
 		if (SerializationStreamFactory.class.getName().equals(
 				method.getDeclaringClass().getName())) {
@@ -335,10 +404,9 @@ public class RemoteServiceInvocationHandler implements InvocationHandler {
 		// // Get Service Interface
 		Class<?> remoteServiceIntf = method.getDeclaringClass();
 
-		SerializationStreamWriter streamWriter = syncProxy.createStreamWriter();
-
 		AsyncCallback<?> callback = null;
 		Class<?>[] paramTypes = method.getParameterTypes();
+		CallContext call = null;
 		try {
 			// Determine whether sync or async
 			boolean isAsync = false;
@@ -347,6 +415,7 @@ public class RemoteServiceInvocationHandler implements InvocationHandler {
 			String serviceIntfName = remoteServiceIntf.getCanonicalName();
 			int paramCount = paramTypes.length;
 			Class<?> returnType = method.getReturnType();
+			Method syncMethod = null;
 			if (method.getDeclaringClass().getCanonicalName().endsWith("Async")) {
 				this.logger.info("Invoking as an Async Service");
 				isAsync = true;
@@ -366,12 +435,13 @@ public class RemoteServiceInvocationHandler implements InvocationHandler {
 							"There is no sync version of " + serviceIntfName
 									+ "Async");
 				}
-				Method syncMethod = null;
 				try {
 					syncMethod = clazz.getMethod(method.getName(),
 							syncParamTypes);
-					this.logger.fine("Sync Method determined: "
-							+ syncMethod.getName());
+					if (this.logger.isLoggable(Level.FINE)) {
+						this.logger.fine("Sync Method determined: "
+								+ syncMethod.getName());
+					}
 				} catch (NoSuchMethodException nsme) {
 					String temp = "";
 					for (Class<?> cl : syncParamTypes) {
@@ -386,66 +456,117 @@ public class RemoteServiceInvocationHandler implements InvocationHandler {
 				}
 			}
 
-			// Interface name
-			streamWriter.writeString(serviceIntfName);
-			// Method name
-			streamWriter.writeString(method.getName());
-
-			// Params count
-			streamWriter.writeInt(paramCount);
-
-			// Params type
-			for (int i = 0; i < paramCount; i++) {
-				// streamWriter.writeString(computeBinaryClassName(paramTypes[i]));
-				streamWriter.writeString(SerializabilityUtil
-						.getSerializedTypeName(paramTypes[i]));
+			CallTimeouts timeouts = CallTimeouts.of(this.settings, start,
+					method, syncMethod);
+			// Only idempotent methods are retried
+			RetryPolicy retryPolicy = CallContext.isIdempotent(method,
+					syncMethod) ? this.settings.getRetryPolicy() : null;
+			call = new CallContext(method, syncMethod, serviceIntfName,
+					paramTypes, paramCount, args, timeouts, retryPolicy);
+			call.event = FlightRecorderEvent.CALL.begin();
+			call.span = startSpan(call);
+			if (call.event != null || call.span != null
+					|| this.settings.getMetricsListener() != null) {
+				call.metrics = new CallMetrics(serviceIntfName,
+						method.getName(), start);
 			}
-
-			// Params
-			for (int i = 0; i < paramCount; i++) {
-				writeParam(streamWriter, paramTypes[i], args[i]);
+			call.endpoint = endpoint;
+			Hedged hedged = method.getAnnotation(Hedged.class);
+			if (hedged == null && syncMethod != null) {
+				hedged = syncMethod.getAnnotation(Hedged.class);
 			}
-
-			String payload = streamWriter.toString();
-			this.logger.config("Payload: " + payload);
+			if (hedged != null && CallContext.isIdempotent(method, syncMethod)) {
+				call.hedged = hedged;
+				call.latencyTracker = getLatencyTracker(syncMethod != null ? syncMethod
+						: method);
+			}
+			Coalesce coalesce = method.getAnnotation(Coalesce.class);
+			if (coalesce == null && syncMethod != null) {
+				coalesce = syncMethod.getAnnotation(Coalesce.class);
+			}
+			call.coalesce = coalesce;
+			Method cachedMethod = method;
+			Cached cached = method.getAnnotation(Cached.class);
+			if (cached == null && syncMethod != null) {
+				cachedMethod = syncMethod;
+				cached = syncMethod.getAnnotation(Cached.class);
+			}
+			if (cached != null) {
+				call.cache = ResponseCache.forMethod(cachedMethod, cached);
+			}
+			// Throttled calls are neither serialized nor sent
+			call.addPhase(CallMetrics.Phase.SETUP, System.nanoTime() - start);
+			long delay = throttle(call, isAsync
+					&& !this.settings.isWaitForInvocation());
+			prepare(syncProxy, call);
+			String payload = serialize(syncProxy, call);
 			if (isAsync) {
 				this.logger.info("Making Remote call as Async");
 				final RemoteServiceSyncProxy syncProxy_2 = syncProxy;
 				final Class<?> returnType_2 = returnType;
 				final String payload_2 = payload;
 				final AsyncCallback callback_2 = callback;
+				final CallContext call_2 = call;
 
 				// Separate Thread since this should be de-synchronized
 				Thread thread = new Thread() {
 					@Override
 					public void run() {
-						Object result;
+						Object result = null;
+						Throwable failure = null;
+						try {
+							result = intercept(syncProxy_2,
+									getReaderFor(returnType_2), payload_2,
+									call_2);
+						} catch (Throwable e) {
+							failure = e;
+						}
+						// The call is completed even if the callback throws,
+						// whose exceptions are not failures of the call
 						try {
-							result = syncProxy_2.doInvoke(
-									getReaderFor(returnType_2), payload_2);
 							// Check to make sure response should be processed,
 							// or not in case of situation such as
 							// RpcTokenException handled by a separate handler
-							if (!syncProxy_2.shouldIgnoreResponse()
-									&& callback_2 != null) {
-								callback_2.onSuccess(result);
-							}
-						} catch (Throwable e) {
-							if (callback_2 != null) {
-								callback_2.onFailure(e);
+							if (callback_2 != null
+									&& (failure != null || !syncProxy_2
+											.shouldIgnoreResponse())) {
+								long mark = System.nanoTime();
+								try {
+									if (failure == null) {
+										callback_2.onSuccess(result);
+									} else {
+										callback_2.onFailure(failure);
+									}
+								} finally {
+									call_2.addPhase(CallMetrics.Phase.CALLBACK,
+											System.nanoTime() - mark);
+								}
 							}
+						} finally {
+							completed(call_2, failure);
 						}
 					}
 				};
 				if (this.settings.isWaitForInvocation()) {
 					thread.run();
+				} else if (delay > 0) {
+					final Thread thread_2 = thread;
+					SyncProxyScheduler.get().schedule(new Runnable() {
+						@Override
+						public void run() {
+							thread_2.start();
+						}
+					}, delay, TimeUnit.MILLISECONDS);
 				} else {
 					thread.start();
 				}
 				return null;
 			} else {
 				this.logger.info("Making Remote call as Sync");
-				return syncProxy.doInvoke(getReaderFor(returnType), payload);
+				Object result = intercept(syncProxy, getReaderFor(returnType),
+						payload, call);
+				completed(call, null);
+				return result;
 			}
 			/*
 			 * Object result = syncProxy.doInvoke(getReaderFor(returnType),
@@ -453,6 +574,9 @@ public class RemoteServiceInvocationHandler implements InvocationHandler {
 			 * return result;
 			 */
 		} catch (Throwable ex) {
+			if (call != null) {
+				completed(call, ex);
+			}
 			if (callback != null) {
 				callback.onFailure(ex);
 				return null;
@@ -468,6 +592,699 @@ public class RemoteServiceInvocationHandler implements InvocationHandler {
 		}
 	}
 
+	/**
+	 * Hands the state of the call to a proxy about to send it
+	 */
+	private void prepare(RemoteServiceSyncProxy syncProxy, CallContext call) {
+		syncProxy.setTimeouts(call.timeouts);
+		syncProxy.setMetrics(call.metrics);
+		syncProxy.setInterceptors(this.settings.getInterceptors());
+		syncProxy.setTraceparent(call.span == null ? null : call.span
+				.getTraceparent());
+	}
+
+	/**
+	 * @return the span of the call started by the {@link Tracer}, null if
+	 *         not traced
+	 */
+	private Tracer.Span startSpan(CallContext call) {
+		Tracer tracer = this.settings.getTracer();
+		if (tracer == null) {
+			return null;
+		}
+		try {
+			Tracer.Span span = tracer.startSpan(call.serviceIntfName + "/"
+					+ call.getMethodName());
+			if (span != null) {
+				span.setAttribute("rpc.system", "gwt-rpc");
+				span.setAttribute("rpc.service", call.serviceIntfName);
+				span.setAttribute("rpc.method", call.getMethodName());
+			}
+			return span;
+		} catch (RuntimeException e) {
+			this.logger.log(Level.WARNING, "Tracer failed for "
+					+ call.getMethodName(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Sets the outcome and the sizes of the call on its span, and ends it
+	 */
+	private void endSpan(CallContext call, Throwable failure) {
+		CallMetrics metrics = call.metrics;
+		Tracer.Span span = call.span;
+		try {
+			span.setAttribute("rpc.attempts", call.attempts);
+			span.setAttribute("rpc.request.size",
+					metrics.getCount(CallMetrics.Counter.REQUEST_BYTES));
+			span.setAttribute("rpc.response.size",
+					metrics.getCount(CallMetrics.Counter.RESPONSE_BYTES));
+			span.setAttribute("rpc.status",
+					FlightRecorderEvent.outcome(failure));
+			if (failure instanceof StatusCodeException) {
+				span.setAttribute("http.status_code",
+						((StatusCodeException) failure).getStatusCode());
+			}
+			span.end(failure);
+		} catch (RuntimeException e) {
+			this.logger.log(Level.WARNING, "Tracer failed for "
+					+ call.getMethodName(), e);
+		}
+	}
+
+	/**
+	 * Sends the call through the {@link RpcInterceptor}s, if any
+	 */
+	private Object intercept(final RemoteServiceSyncProxy syncProxy,
+			final ResponseReader responseReader, final String payload,
+			final CallContext call) throws Throwable {
+		List<RpcInterceptor> interceptors = this.settings.getInterceptors();
+		if (interceptors == null || interceptors.isEmpty()) {
+			return send(syncProxy, responseReader, payload, call);
+		}
+		Object[] arguments = new Object[call.paramCount];
+		if (call.args != null) {
+			System.arraycopy(call.args, 0, arguments, 0, call.paramCount);
+		}
+		return new RpcInterceptor.Invocation(interceptors, call.method,
+				call.serviceIntfName, arguments, payload) {
+			@Override
+			Object invoke() throws Throwable {
+				return send(syncProxy, responseReader, payload, call);
+			}
+		}.proceed();
+	}
+
+	/**
+	 * Hands the measurements of the completed call to the
+	 * {@link MetricsListener}, if any
+	 */
+	private void completed(CallContext call, Throwable failure) {
+		CallMetrics metrics = call.metrics;
+		if (call.span != null) {
+			endSpan(call, failure);
+		}
+		if (call.event != null) {
+			FlightRecorderEvent.CALL.commit(call.event,
+					metrics.getServiceName(), metrics.getMethodName(),
+					metrics.getCount(CallMetrics.Counter.REQUEST_BYTES),
+					metrics.getCount(CallMetrics.Counter.RESPONSE_BYTES),
+					call.attempts, FlightRecorderEvent.outcome(failure));
+		}
+		MetricsListener listener = this.settings.getMetricsListener();
+		if (listener == null || metrics == null) {
+			// Not measured if the listener was set during the call
+			return;
+		}
+		metrics.durationNanos = System.nanoTime() - metrics.getStartNanos();
+		metrics.failure = failure;
+		metrics.attempts = call.attempts;
+		try {
+			listener.onCallCompleted(metrics);
+		} catch (RuntimeException e) {
+			this.logger.log(Level.WARNING, "Metrics listener failed for "
+					+ call.getMethodName(), e);
+		}
+	}
+
+	/**
+	 * Looks up the new policy name of the service after the server rejected
+	 * the current one, see {@link SyncProxy#refreshPolicyName}.
+	 *
+	 * @return a proxy using the new policy, or null if the policy did not
+	 *         change
+	 * @since 0.6
+	 */
+	protected RemoteServiceSyncProxy refreshPolicy(
+			RemoteServiceSyncProxy syncProxy, String serviceIntfName) {
+		String stalePolicyName = syncProxy.getSerializationPolicyName();
+		if (stalePolicyName == null) {
+			return null;
+		}
+		String policyName;
+		try {
+			policyName = SyncProxy.refreshPolicyName(
+					syncProxy.getModuleBaseURL(), serviceIntfName,
+					stalePolicyName, this.settings.getCookieManager());
+		} catch (SyncProxyException e) {
+			if (this.logger.isLoggable(Level.WARNING)) {
+				this.logger.warning("Unable to refresh policy of "
+						+ serviceIntfName + ": " + e.getMessage());
+			}
+			return null;
+		}
+		if (policyName == null || policyName.equals(stalePolicyName)) {
+			return null;
+		}
+		if (this.logger.isLoggable(Level.WARNING)) {
+			this.logger.warning("Policy of " + serviceIntfName
+					+ " changed on server from " + stalePolicyName + " to "
+					+ policyName);
+		}
+		if (stalePolicyName.equals(this.settings.getPolicyName())) {
+			this.settings.setPolicyName(policyName);
+		}
+		return createSyncProxy(syncProxy.getModuleBaseURL(), policyName);
+	}
+
+	/**
+	 * @return a proxy sending requests with the current settings
+	 * @since 0.6
+	 */
+	protected RemoteServiceSyncProxy createSyncProxy(String moduleBaseUrl,
+			String policyName) {
+		RemoteServiceSyncProxy syncProxy = new RemoteServiceSyncProxy(
+				moduleBaseUrl,
+				this.settings.getRemoteServiceRelativePath(), policyName,
+				this.settings.getCookieManager(), this.token,
+				this.rpcTokenExceptionHandler);
+		CircuitBreakerPolicy circuitBreakerPolicy = this.settings
+				.getCircuitBreakerPolicy();
+		if (circuitBreakerPolicy != null) {
+			syncProxy.setCircuitBreaker(CircuitBreaker.forEndpoint(
+					syncProxy.getRemoteServiceURL(), circuitBreakerPolicy));
+		}
+		return syncProxy;
+	}
+
+	/**
+	 * Returns the cached response of a {@link Cached} method, or sends the
+	 * payload and caches the response
+	 */
+	private Object send(RemoteServiceSyncProxy syncProxy,
+			ResponseReader responseReader, String payload, CallContext call)
+			throws Throwable {
+		ResponseCache cache = call.cache;
+		if (cache == null) {
+			return sendCoalesced(syncProxy, responseReader, payload, call);
+		}
+		List<Object> key = Arrays.<Object> asList(
+				syncProxy.getRemoteServiceURL(), payload);
+		boolean encoded = cache.getStorage() == ResponseCache.Storage.ENCODED;
+		ResponseCache.Entry entry = cache.lookup(key);
+		if (entry != null) {
+			if (this.logger.isLoggable(Level.FINE)) {
+				this.logger.fine("Cached response of " + call.getMethodName());
+			}
+			if (!encoded) {
+				return entry.value;
+			}
+			try {
+				return syncProxy.readReturnValue(responseReader,
+						(String) entry.value);
+			} catch (SerializationException e) {
+				// Stale for the current policy, fetched again
+				cache.invalidate(key);
+				this.logger.warning("Unable to decode cached response of "
+						+ call.getMethodName() + ": " + e);
+			}
+		}
+		Object result = sendCoalesced(syncProxy, responseReader, payload,
+				call);
+		// Only responses returning a value are cached, not handled errors
+		String encodedResponse = call.encodedResponse;
+		if (encodedResponse != null && !syncProxy.shouldIgnoreResponse()) {
+			cache.put(key, encoded ? encodedResponse : result,
+					encodedResponse.length());
+		}
+		return result;
+	}
+
+	/**
+	 * Sends the payload, or waits for an identical call in flight when the
+	 * method is {@link Coalesce}d.
+	 */
+	private Object sendCoalesced(final RemoteServiceSyncProxy syncProxy,
+			final ResponseReader responseReader, final String payload,
+			final CallContext call) throws Throwable {
+		if (call.coalesce == null) {
+			return sendRefreshing(syncProxy, responseReader, payload, call);
+		}
+		final Coalesce.Sharing sharing = call.coalesce.value();
+		// Cookie managers compare by identity, a session is never shared
+		List<Object> key = Arrays.<Object> asList(
+				syncProxy.getRemoteServiceURL(), payload,
+				this.settings.getCookieManager(), sharing);
+		final Object[] ownResult = new Object[1];
+		final boolean[] leader = new boolean[1];
+		long remaining = call.timeouts.getRemainingMillis();
+		Object shared;
+		try {
+			shared = COALESCED_CALLS.execute(key, new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					leader[0] = true;
+					try {
+						ownResult[0] = sendRefreshing(syncProxy,
+								responseReader, payload, call);
+					} catch (Exception e) {
+						throw e;
+					} catch (Error e) {
+						throw e;
+					} catch (Throwable e) {
+						throw new InvocationException("Unexpected throwable", e);
+					}
+					if (syncProxy.shouldIgnoreResponse()) {
+						return IGNORED_RESPONSE;
+					}
+					return sharing == Coalesce.Sharing.SHARE ? ownResult[0]
+							: call.encodedResponse;
+				}
+			}, remaining == Long.MAX_VALUE ? Long.MAX_VALUE
+					: TimeUnit.MILLISECONDS.toNanos(remaining));
+		} catch (TimeoutException e) {
+			throw call.timeouts.expired(syncProxy.getRemoteServiceURL(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InvocationException("Interrupted while waiting for "
+					+ call.getMethodName(), e);
+		}
+		if (leader[0]) {
+			return ownResult[0];
+		}
+		if (this.logger.isLoggable(Level.FINE)) {
+			this.logger.fine("Coalesced " + call.getMethodName()
+					+ " with a call in flight");
+		}
+		if (shared == IGNORED_RESPONSE) {
+			syncProxy.ignoreResponse = true;
+			return null;
+		}
+		if (sharing == Coalesce.Sharing.SHARE || shared == null) {
+			return shared;
+		}
+		try {
+			return syncProxy.readReturnValue(responseReader, (String) shared);
+		} catch (SerializationException e) {
+			throw new InvocationException(
+					"Error while deserialization response", e);
+		}
+	}
+
+	/**
+	 * Sends the payload, retrying according to the {@link RetryPolicy} of the
+	 * call. If the server no longer knows the policy (it was redeployed), the
+	 * policy is refreshed and the call is serialized and sent again.
+	 */
+	private Object sendRefreshing(RemoteServiceSyncProxy syncProxy,
+			ResponseReader responseReader, String payload, CallContext call)
+			throws Throwable {
+		try {
+			return sendWithRetry(syncProxy, responseReader, payload, call);
+		} catch (IncompatibleRemoteServiceException e) {
+			RemoteServiceSyncProxy refreshed;
+			CallTimeouts previousTimeouts = RpcPolicyFinder
+					.setCallTimeouts(call.timeouts);
+			try {
+				refreshed = refreshPolicy(syncProxy, call.serviceIntfName);
+			} finally {
+				RpcPolicyFinder.setCallTimeouts(previousTimeouts);
+			}
+			if (refreshed == null) {
+				throw e;
+			}
+			prepare(refreshed, call);
+			String refreshedPayload = serialize(refreshed, call);
+			Object result = sendWithRetry(refreshed, responseReader,
+					refreshedPayload, call);
+			syncProxy.ignoreResponse = refreshed.shouldIgnoreResponse();
+			return result;
+		}
+	}
+
+	/**
+	 * Sends the same payload again while the failure is retryable, the
+	 * attempts are not exhausted and the backoff fits before the deadline.
+	 */
+	private Object sendWithRetry(RemoteServiceSyncProxy syncProxy,
+			ResponseReader responseReader, String payload, CallContext call)
+			throws Throwable {
+		RetryPolicy retryPolicy = call.retryPolicy;
+		int attempt = 0;
+		while (true) {
+			attempt++;
+			call.attempts++;
+			try {
+				return sendOnce(syncProxy, responseReader, payload, call);
+			} catch (Throwable e) {
+				if (retryPolicy == null
+						|| attempt >= retryPolicy.getMaxAttempts()
+						|| !retryPolicy.isRetryable(e)) {
+					throw e;
+				}
+				long backoff = retryPolicy.getBackoffMillis(attempt);
+				if (backoff >= call.timeouts.getRemainingMillis()) {
+					if (this.logger.isLoggable(Level.INFO)) {
+						this.logger.info("Not retrying " + call.getMethodName()
+								+ ", deadline too close");
+					}
+					throw e;
+				}
+				if (this.logger.isLoggable(Level.WARNING)) {
+					this.logger.warning("Retrying " + call.getMethodName()
+							+ " in " + backoff + "ms (attempt " + (attempt + 1)
+							+ "/" + retryPolicy.getMaxAttempts() + ") after: "
+							+ e);
+				}
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the limiter of the {@link RateLimit} annotation of the methods,
+	 *         or of their interfaces, shared by all the proxies; null if none
+	 */
+	private static RateLimiter getRateLimiter(Method... methods) {
+		for (int pass = 0; pass < 2; pass++) {
+			for (Method method : methods) {
+				if (method == null) {
+					continue;
+				}
+				AnnotatedElement element = pass == 0 ? method : method
+						.getDeclaringClass();
+				RateLimit rateLimit = element.getAnnotation(RateLimit.class);
+				if (rateLimit == null) {
+					continue;
+				}
+				RateLimiter limiter = RATE_LIMITERS.get(element);
+				if (limiter == null) {
+					int burst = rateLimit.burst() > 0 ? rateLimit.burst()
+							: (int) Math.max(1,
+									Math.ceil(rateLimit.permitsPerSecond()));
+					RateLimiter created = new RateLimiter(
+							rateLimit.permitsPerSecond(), burst).setMode(
+							rateLimit.mode()).setMaxWait(rateLimit.maxWait());
+					limiter = RATE_LIMITERS.putIfAbsent(element, created);
+					if (limiter == null) {
+						limiter = created;
+					}
+				}
+				return limiter;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Takes a permit from the rate limiters of the method and of the proxy,
+	 * waiting for it unless the call can be delayed.
+	 *
+	 * @param canDelay
+	 *            true for an asynchronous call which may be sent later
+	 * @return the time in milliseconds to wait before sending the call, 0 to
+	 *         send it now
+	 */
+	private long throttle(CallContext call, boolean canDelay) {
+		RateLimiter[] limiters = {
+				getRateLimiter(call.method, call.syncMethod),
+				this.settings.getRateLimiter() };
+		long block = 0;
+		long delay = 0;
+		for (int i = 0; i < limiters.length; i++) {
+			RateLimiter limiter = limiters[i];
+			if (limiter == null) {
+				continue;
+			}
+			long wait;
+			try {
+				wait = limiter.reserve(call.timeouts.getRemainingMillis());
+			} catch (RateLimitedException e) {
+				// The call is not sent, the permits already taken are unused
+				for (int j = 0; j < i; j++) {
+					if (limiters[j] != null) {
+						limiters[j].release();
+					}
+				}
+				throw e;
+			}
+			if (canDelay && limiter.getMode() == RateLimiter.Mode.DELAY) {
+				delay = Math.max(delay, wait);
+			} else {
+				block = Math.max(block, wait);
+			}
+		}
+		if (block > 0) {
+			if (this.logger.isLoggable(Level.FINE)) {
+				this.logger.fine("Throttling " + call.getMethodName() + " for "
+						+ block + "ms");
+			}
+			try {
+				Thread.sleep(block);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InvocationException("Interrupted while throttling "
+						+ call.getMethodName(), e);
+			}
+		}
+		return Math.max(0, delay - block);
+	}
+
+	/**
+	 * @return the latencies of the hedged method, shared by all the proxies
+	 */
+	private static LatencyTracker getLatencyTracker(Method method) {
+		LatencyTracker tracker = LATENCY_TRACKERS.get(method);
+		if (tracker == null) {
+			LatencyTracker created = new LatencyTracker();
+			tracker = LATENCY_TRACKERS.putIfAbsent(method, created);
+			if (tracker == null) {
+				tracker = created;
+			}
+		}
+		return tracker;
+	}
+
+	/**
+	 * @return the bulkhead of the proxy or of its endpoint, null if calls are
+	 *         not limited
+	 */
+	private Bulkhead getBulkhead(RemoteServiceSyncProxy syncProxy) {
+		BulkheadPolicy bulkheadPolicy = this.settings.getBulkheadPolicy();
+		if (bulkheadPolicy == null) {
+			return null;
+		}
+		if (bulkheadPolicy.isPerEndpoint()) {
+			return Bulkhead.forEndpoint(syncProxy.getRemoteServiceURL(),
+					bulkheadPolicy);
+		}
+		synchronized (this) {
+			if (this.bulkhead == null
+					|| this.bulkhead.getPolicy() != bulkheadPolicy) {
+				this.bulkhead = new Bulkhead(syncProxy.getRemoteServiceURL(),
+						bulkheadPolicy);
+			}
+			return this.bulkhead;
+		}
+	}
+
+	/**
+	 * Sends the payload once, within a slot of the {@link Bulkhead} if calls
+	 * are limited
+	 */
+	private Object sendOnce(RemoteServiceSyncProxy syncProxy,
+			ResponseReader responseReader, String payload, CallContext call)
+			throws Throwable {
+		Bulkhead bulkhead = getBulkhead(syncProxy);
+		if (bulkhead == null) {
+			return sendBalanced(syncProxy, responseReader, payload, call);
+		}
+		try {
+			bulkhead.acquire(call.timeouts.getRemainingMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InvocationException("Interrupted while waiting for "
+					+ call.getMethodName(), e);
+		}
+		Throwable failure = null;
+		try {
+			return sendBalanced(syncProxy, responseReader, payload, call);
+		} catch (Throwable e) {
+			failure = e;
+			throw e;
+		} finally {
+			bulkhead.release(failure);
+		}
+	}
+
+	/**
+	 * Sends the payload once, or hedged, and records the outcome for the
+	 * {@link LoadBalancer}
+	 */
+	private Object sendBalanced(RemoteServiceSyncProxy syncProxy,
+			ResponseReader responseReader, String payload, CallContext call)
+			throws Throwable {
+		LoadBalancer loadBalancer = this.settings.getLoadBalancer();
+		if (call.endpoint == null || loadBalancer == null) {
+			return call.hedged != null ? sendHedged(syncProxy, responseReader,
+					payload, call) : invokeProxy(syncProxy, responseReader,
+					payload, call);
+		}
+		long start = System.nanoTime();
+		loadBalancer.onStart(call.endpoint);
+		Throwable failure = null;
+		try {
+			return call.hedged != null ? sendHedged(syncProxy, responseReader,
+					payload, call) : invokeProxy(syncProxy, responseReader,
+					payload, call);
+		} catch (Throwable e) {
+			failure = e;
+			throw e;
+		} finally {
+			loadBalancer.onEnd(call.endpoint,
+					(System.nanoTime() - start) / 1000000, failure);
+		}
+	}
+
+	/**
+	 * Sends the payload, and sends it again with another proxy if no response
+	 * arrived after the hedging delay. The first successful response is
+	 * returned and the other request aborted. Fails only when both requests
+	 * failed, with the last failure.
+	 */
+	private Object sendHedged(RemoteServiceSyncProxy syncProxy,
+			ResponseReader responseReader, String payload, CallContext call)
+			throws Throwable {
+		long delay = call.hedged.delay();
+		if (call.hedged.percentile() > 0) {
+			long percentile = call.latencyTracker.getPercentile(call.hedged
+					.percentile());
+			if (percentile >= 0) {
+				delay = percentile;
+			}
+		}
+		CompletionService<Object> completionService = new ExecutorCompletionService<Object>(
+				SyncProxyScheduler.getWorkers());
+		Map<Future<Object>, RemoteServiceSyncProxy> pending = new HashMap<Future<Object>, RemoteServiceSyncProxy>();
+		pending.put(completionService.submit(timedInvoke(syncProxy,
+				responseReader, payload, call)), syncProxy);
+		try {
+			Future<Object> done = completionService.poll(delay,
+					TimeUnit.MILLISECONDS);
+			if (done == null && call.timeouts.getRemainingMillis() > 0) {
+				if (this.logger.isLoggable(Level.INFO)) {
+					this.logger.info("Hedging " + call.getMethodName()
+							+ " after " + delay + "ms");
+				}
+				RemoteServiceSyncProxy hedge = createSyncProxy(
+						syncProxy.getModuleBaseURL(),
+						syncProxy.getSerializationPolicyName());
+				prepare(hedge, call);
+				pending.put(completionService.submit(timedInvoke(hedge,
+						responseReader, payload, call)), hedge);
+				call.attempts++;
+			}
+			Throwable failure = null;
+			while (!pending.isEmpty()) {
+				if (done == null) {
+					done = completionService.take();
+				}
+				RemoteServiceSyncProxy proxy = pending.remove(done);
+				try {
+					Object result = done.get();
+					syncProxy.ignoreResponse = proxy.shouldIgnoreResponse();
+					return result;
+				} catch (ExecutionException e) {
+					failure = e.getCause();
+				}
+				done = null;
+			}
+			throw failure;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InvocationException("Interrupted while waiting for "
+					+ call.getMethodName(), e);
+		} finally {
+			// Aborts the loser, if any
+			for (RemoteServiceSyncProxy proxy : pending.values()) {
+				proxy.abort();
+			}
+		}
+	}
+
+	private Callable<Object> timedInvoke(final RemoteServiceSyncProxy proxy,
+			final ResponseReader responseReader, final String payload,
+			final CallContext call) {
+		return new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				long start = System.nanoTime();
+				Object result;
+				try {
+					result = invokeProxy(proxy, responseReader, payload, call);
+				} catch (Exception e) {
+					throw e;
+				} catch (Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new InvocationException("Unexpected throwable", e);
+				}
+				call.latencyTracker.record((System.nanoTime() - start) / 1000000);
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Sends the payload with the proxy, and records the encoded response of
+	 * the call
+	 */
+	private static Object invokeProxy(RemoteServiceSyncProxy proxy,
+			ResponseReader responseReader, String payload, CallContext call)
+			throws Throwable {
+		Object result = proxy.doInvoke(responseReader, payload);
+		String encodedResponse = proxy.getEncodedResponse();
+		if (encodedResponse != null) {
+			call.encodedResponse = encodedResponse;
+		}
+		return result;
+	}
+
+	private String serialize(RemoteServiceSyncProxy syncProxy, CallContext call)
+			throws SerializationException {
+		long start = System.nanoTime();
+		Object event = FlightRecorderEvent.SERIALIZATION.begin();
+		SerializationStreamWriter streamWriter = syncProxy.createStreamWriter();
+		// Interface name
+		streamWriter.writeString(call.serviceIntfName);
+		// Method name
+		streamWriter.writeString(call.getMethodName());
+
+		// Params count
+		streamWriter.writeInt(call.paramCount);
+
+		// Params type
+		for (int i = 0; i < call.paramCount; i++) {
+			// streamWriter.writeString(computeBinaryClassName(paramTypes[i]));
+			streamWriter.writeString(SerializabilityUtil
+					.getSerializedTypeName(call.paramTypes[i]));
+		}
+
+		// Params
+		for (int i = 0; i < call.paramCount; i++) {
+			writeParam(streamWriter, call.paramTypes[i], call.args[i]);
+		}
+
+		String payload = streamWriter.toString();
+		call.addPhase(CallMetrics.Phase.SERIALIZATION, System.nanoTime()
+				- start);
+		if (event != null) {
+			FlightRecorderEvent.SERIALIZATION.commit(event,
+					call.serviceIntfName, call.getMethodName(),
+					payload.length());
+		}
+		if (this.logger.isLoggable(Level.CONFIG)) {
+			this.logger.config("Payload: " + payload);
+		}
+		return payload;
+	}
+
 	private void writeParam(SerializationStreamWriter streamWriter,
 			Class<?> paramType, Object paramValue)
 			throws SerializationException {
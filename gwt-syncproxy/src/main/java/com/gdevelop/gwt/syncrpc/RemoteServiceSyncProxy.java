@@ -20,18 +20,25 @@ import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.net.CookieHandler;
 import java.net.CookieManager;
 import java.net.CookieStore;
 import java.net.HttpCookie;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URL;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException;
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException.Kind;
 import com.google.gwt.http.client.Response;
 import com.google.gwt.user.client.rpc.InvocationException;
 import com.google.gwt.user.client.rpc.RpcRequestBuilder;
@@ -90,6 +97,21 @@ public class RemoteServiceSyncProxy implements SerializationStreamFactory {
 	RpcTokenExceptionHandler rpcTokenExceptionHandler;
 
 	boolean ignoreResponse = false;
+
+	private CallTimeouts timeouts = CallTimeouts.NONE;
+	private CircuitBreaker circuitBreaker;
+	private CallMetrics metrics;
+	private List<RpcInterceptor> interceptors;
+	private String traceparent;
+
+	private volatile HttpURLConnection activeConnection;
+	private volatile boolean aborted;
+	private volatile String encodedResponse;
+	/**
+	 * W3C trace context header of the span of the call
+	 */
+	static final String TRACEPARENT_HEADER = "traceparent";
+
 	static Logger logger = Logger.getLogger(RemoteServiceSyncProxy.class
 			.getName());
 
@@ -106,35 +128,16 @@ public class RemoteServiceSyncProxy implements SerializationStreamFactory {
 		if (serializationPolicyName == null) {
 			this.serializationPolicy = new DummySerializationPolicy();
 		} else {
-			String policyFileName = SerializationPolicyLoader
-					.getSerializationPolicyFileName(serializationPolicyName);
-			InputStream is = getClass().getResourceAsStream(
-					"/" + policyFileName);
 			try {
-				if (is == null) {
-					logger.warning("Unable to get policy file from stream, attempting cache: "
-							+ policyFileName + " at base: " + moduleBaseURL);
-					// Try to get from cache
-					String text = RpcPolicyFinder
-							.getCachedPolicyFile(moduleBaseURL + policyFileName);
-					if (text != null) {
-						is = new ByteArrayInputStream(text.getBytes("UTF8"));
-					}
-				}
-				this.serializationPolicy = SerializationPolicyLoader
-						.loadFromStream(is, null);
+				this.serializationPolicy = RpcPolicyFinder
+						.getSerializationPolicy(moduleBaseURL,
+								serializationPolicyName, cookieManager);
+			} catch (RpcTimeoutException e) {
+				throw e;
 			} catch (Exception e) {
 				throw new InvocationException(
 						"Error while loading serialization policy "
 								+ serializationPolicyName, e);
-			} finally {
-				if (is != null) {
-					try {
-						is.close();
-					} catch (IOException e) {
-						// Ignore this error
-					}
-				}
 			}
 		}
 	}
@@ -163,22 +166,107 @@ public class RemoteServiceSyncProxy implements SerializationStreamFactory {
 	public Object doInvoke(
 			RequestCallbackAdapter.ResponseReader responseReader,
 			String requestData) throws Throwable {
-		// Workaround for unknown reset of the logger
-		logger.setLevel(SyncProxy.getLoggingLevel());
+		CircuitBreaker breaker = this.circuitBreaker;
+		if (breaker == null) {
+			return send(responseReader, requestData);
+		}
+		boolean probe = breaker.acquire();
+		Object result;
+		try {
+			result = send(responseReader, requestData);
+		} catch (Throwable e) {
+			if (this.aborted) {
+				breaker.onIgnored(probe);
+			} else if (CircuitBreaker.isFailure(e)) {
+				breaker.onFailure(probe);
+			} else {
+				breaker.onSuccess(probe);
+			}
+			throw e;
+		}
+		breaker.onSuccess(probe);
+		return result;
+	}
+
+	private Object send(RequestCallbackAdapter.ResponseReader responseReader,
+			String requestData) throws Throwable {
+		List<RpcInterceptor> interceptors = this.interceptors;
+		RpcInterceptor.Response response;
+		if (interceptors == null || interceptors.isEmpty()) {
+			response = exchange(requestData, null);
+		} else {
+			response = new RpcInterceptor.Request(interceptors,
+					this.remoteServiceURL, requestData) {
+				@Override
+				RpcInterceptor.Response send() throws Throwable {
+					return exchange(getPayload(), getHeaders());
+				}
+			}.proceed();
+		}
+		return decode(responseReader, response);
+	}
+
+	/**
+	 * Sends the request and reads the response
+	 *
+	 * @param headers
+	 *            added to the request, null for none
+	 */
+	private RpcInterceptor.Response exchange(String requestData,
+			Map<String, String> headers) throws Throwable {
+		// Workaround for unknown reset of the logger, setLevel being costly
+		Level level = SyncProxy.getLoggingLevel();
+		if (level != null && logger.getLevel() != level) {
+			logger.setLevel(level);
+		}
 		HttpURLConnection connection = null;
 		InputStream is = null;
 		int statusCode;
-		logger.info("Send request to " + this.remoteServiceURL);
-		logger.fine("Request payload: " + requestData);
+		Map<String, List<String>> responseHeaders;
+		if (logger.isLoggable(Level.INFO)) {
+			logger.info("Send request to " + this.remoteServiceURL);
+		}
+		if (logger.isLoggable(Level.FINE)) {
+			logger.fine("Request payload: " + requestData);
+		}
+
+		long remaining = this.timeouts.getRemainingMillis();
+		if (remaining <= 0) {
+			throw this.timeouts.expired(this.remoteServiceURL, null);
+		}
+		// Disconnects when the deadline expires, which unblocks the reads
+		final AtomicBoolean expired = new AtomicBoolean();
+		ScheduledFuture<?> watchdog = null;
+		boolean connected = false;
+		long mark = System.nanoTime();
 
 		// Send request
 		CookieHandler oldCookieHandler = CookieHandler.getDefault();
 		try {
 			CookieHandler.setDefault(this.cookieManager);
-			logger.config("Starting Request sending to "
-					+ this.remoteServiceURL);
+			if (logger.isLoggable(Level.CONFIG)) {
+				logger.config("Starting Request sending to "
+						+ this.remoteServiceURL);
+			}
 			URL url = new URL(this.remoteServiceURL);
 			connection = (HttpURLConnection) url.openConnection();
+			this.activeConnection = connection;
+			if (this.aborted) {
+				throw new InvocationException("Request aborted");
+			}
+			connection.setConnectTimeout(this.timeouts
+					.getConnectTimeout(remaining));
+			connection.setReadTimeout(this.timeouts.getReadTimeout(remaining));
+			if (this.timeouts.hasDeadline()) {
+				final HttpURLConnection watched = connection;
+				watchdog = SyncProxyScheduler.get().schedule(new Runnable() {
+					@Override
+					public void run() {
+						expired.set(true);
+						watched.disconnect();
+					}
+				}, remaining, TimeUnit.MILLISECONDS);
+			}
 			connection.setDoInput(true);
 			connection.setDoOutput(true);
 			connection.setRequestMethod("POST");
@@ -188,8 +276,21 @@ public class RemoteServiceSyncProxy implements SerializationStreamFactory {
 					this.moduleBaseURL);
 			connection.setRequestProperty("Content-Type",
 					"text/x-gwt-rpc; charset=utf-8");
+			// Encoded once, the charset of the length and of the body match
+			byte[] requestBytes = requestData.getBytes("UTF-8");
+			addCount(CallMetrics.Counter.REQUEST_BYTES, requestBytes.length);
 			connection.setRequestProperty("Content-Length",
-					"" + requestData.getBytes("UTF-8").length);
+					"" + requestBytes.length);
+			if (this.traceparent != null) {
+				connection.setRequestProperty(TRACEPARENT_HEADER,
+						this.traceparent);
+			}
+			if (headers != null) {
+				for (Map.Entry<String, String> header : headers.entrySet()) {
+					connection.setRequestProperty(header.getKey(),
+							header.getValue());
+				}
+			}
 			// Patch for Issue 21 - Modified to only send cookies for
 			// moduleBaseURL host and sets the domain/path for the cookie in the
 			// event
@@ -200,38 +301,52 @@ public class RemoteServiceSyncProxy implements SerializationStreamFactory {
 					+ URI.create(this.moduleBaseURL).getHost());
 			String domain = URI.create(this.moduleBaseURL).getHost();
 			String path = URI.create(this.remoteServiceURL).getPath();
-			logger.fine("Cookie target uri: " + uri);
-			logger.config("Setting cookies:"
-					+ this.cookieManager.getCookieStore().get(uri));
-			for (HttpCookie cookie : store.get(uri)) {
+			List<HttpCookie> cookies = store.get(uri);
+			if (logger.isLoggable(Level.CONFIG)) {
+				logger.fine("Cookie target uri: " + uri);
+				logger.config("Setting cookies:" + cookies);
+			}
+			for (HttpCookie cookie : cookies) {
 				// Domain must be specified on Cookie to be passed along in
 				// Android
 				if (cookie.getDomain() == null) {
-					logger.finer("Setting domain for Cookie: "
-							+ cookie.getName() + " to " + domain);
+					if (logger.isLoggable(Level.FINER)) {
+						logger.finer("Setting domain for Cookie: "
+								+ cookie.getName() + " to " + domain);
+					}
 					cookie.setDomain(domain);
 				}
 				// Path must be specified on Cookie to be passed along in POJ
 				// and Android
 				if (cookie.getPath() == null) {
-					logger.finer("Setting path for Cookie: " + cookie.getName()
-							+ " to " + path);
+					if (logger.isLoggable(Level.FINER)) {
+						logger.finer("Setting path for Cookie: "
+								+ cookie.getName() + " to " + path);
+					}
 					cookie.setPath(path);
 				}
 			}
-			OutputStreamWriter writer = new OutputStreamWriter(
-					connection.getOutputStream());
-			writer.write(requestData);
-			writer.flush();
-			writer.close();
+			connection.connect();
+			connected = true;
+			mark = phase(CallMetrics.Phase.CONNECT, mark);
+			OutputStream os = connection.getOutputStream();
+			os.write(requestBytes);
+			os.close();
+			mark = phase(CallMetrics.Phase.REQUEST_WRITE, mark);
 			// get all headers
 			logger.fine("Checking Response");
-			Map<String, List<String>> map2 = connection.getHeaderFields();
-			for (Map.Entry<String, List<String>> entry : map2.entrySet()) {
-				logger.finer(entry.getKey() + " : " + entry.getValue());
+			responseHeaders = connection.getHeaderFields();
+			mark = phase(CallMetrics.Phase.TIME_TO_FIRST_BYTE, mark);
+			if (logger.isLoggable(Level.FINER)) {
+				for (Map.Entry<String, List<String>> entry : responseHeaders
+						.entrySet()) {
+					logger.finer(entry.getKey() + " : " + entry.getValue());
+				}
 			}
 
 		} catch (IOException e) {
+			cancel(watchdog);
+			checkTimeout(e, expired, connected ? Kind.READ : Kind.CONNECT);
 			throw new InvocationException(
 					"IOException while sending RPC request", e);
 		} finally {
@@ -241,7 +356,17 @@ public class RemoteServiceSyncProxy implements SerializationStreamFactory {
 		// Receive and process response
 		try {
 			statusCode = connection.getResponseCode();
-			is = connection.getInputStream();
+			if (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST
+					&& statusCode != HttpURLConnection.HTTP_NOT_FOUND) {
+				// Read the error body so that the status is reported as a
+				// StatusCodeException, as by the GWT client
+				is = connection.getErrorStream();
+				if (is == null) {
+					is = new ByteArrayInputStream(new byte[0]);
+				}
+			} else {
+				is = connection.getInputStream();
+			}
 			ByteArrayOutputStream baos = new ByteArrayOutputStream();
 			byte[] buffer = new byte[1024];
 			int len;
@@ -249,42 +374,21 @@ public class RemoteServiceSyncProxy implements SerializationStreamFactory {
 				baos.write(buffer, 0, len);
 			}
 			String encodedResponse = baos.toString("UTF8");
-			logger.config("Response code: " + statusCode);
-			logger.fine("Response payload: " + encodedResponse);
-			logger.config("Post-Response cookies:"
-					+ this.cookieManager
-							.getCookieStore()
-							.get(URI.create("http://"
-									+ URI.create(this.moduleBaseURL).getHost())));
-			if (statusCode != HttpURLConnection.HTTP_OK) {
-				throw new StatusCodeException(statusCode, encodedResponse);
-			} else if (encodedResponse == null) {
-				// This can happen if the XHR is interrupted by the server dying
-				throw new InvocationException("No response payload");
-			} else if (isReturnValue(encodedResponse)) {
-				logger.info("Reading return value");
-				encodedResponse = encodedResponse.substring(4);
-				return responseReader.read(createStreamReader(encodedResponse));
-			} else if (isThrownException(encodedResponse)) {
-				logger.info("Handling Thrown exception");
-				encodedResponse = encodedResponse.substring(4);
-				Throwable throwable = (Throwable) createStreamReader(
-						encodedResponse).readObject();
-				// Handle specific instance of RpcTokenException which may have
-				// a specified handler
-				if (throwable instanceof RpcTokenException
-						&& this.rpcTokenExceptionHandler != null) {
-					this.rpcTokenExceptionHandler
-							.onRpcTokenException((RpcTokenException) throwable);
-					this.ignoreResponse = true;
-					return null;
-				}
-				throw throwable;
-			} else {
-				throw new InvocationException("Unknown response "
-						+ encodedResponse);
+			mark = phase(CallMetrics.Phase.RESPONSE_READ, mark);
+			addCount(CallMetrics.Counter.RESPONSE_BYTES, baos.size());
+			if (logger.isLoggable(Level.CONFIG)) {
+				logger.config("Response code: " + statusCode);
+				logger.fine("Response payload: " + encodedResponse);
+				logger.config("Post-Response cookies:"
+						+ this.cookieManager.getCookieStore().get(
+								URI.create("http://"
+										+ URI.create(this.moduleBaseURL)
+												.getHost())));
 			}
+			return new RpcInterceptor.Response(statusCode, encodedResponse,
+					responseHeaders);
 		} catch (IOException e) {
+			checkTimeout(e, expired, Kind.READ);
 			// Handle Status Code 404 not found exception - Does not provide
 			// full response data
 			if (e.getCause() instanceof FileNotFoundException
@@ -294,10 +398,8 @@ public class RemoteServiceSyncProxy implements SerializationStreamFactory {
 			}
 			throw new InvocationException(
 					"IOException while receiving RPC response", e);
-		} catch (SerializationException e) {
-			throw new InvocationException(
-					"Error while deserialization response", e);
 		} finally {
+			cancel(watchdog);
 			if (is != null) {
 				try {
 					is.close();
@@ -310,6 +412,109 @@ public class RemoteServiceSyncProxy implements SerializationStreamFactory {
 		}
 	}
 
+	/**
+	 * Decodes the response of the server, or returned by an interceptor
+	 */
+	private Object decode(RequestCallbackAdapter.ResponseReader responseReader,
+			RpcInterceptor.Response response) throws Throwable {
+		String encodedResponse = response.getBody();
+		if (response.getStatusCode() != HttpURLConnection.HTTP_OK) {
+			throw new StatusCodeException(response.getStatusCode(),
+					encodedResponse);
+		} else if (encodedResponse == null) {
+			// This can happen if the XHR is interrupted by the server dying
+			throw new InvocationException("No response payload");
+		}
+		try {
+			if (isReturnValue(encodedResponse)) {
+				logger.info("Reading return value");
+				this.encodedResponse = encodedResponse;
+				return readReturnValue(responseReader, encodedResponse);
+			} else if (isThrownException(encodedResponse)) {
+				logger.info("Handling Thrown exception");
+				long start = System.nanoTime();
+				encodedResponse = encodedResponse.substring(4);
+				Object event = FlightRecorderEvent.DESERIALIZATION.begin();
+				SyncClientSerializationStreamReader reader = createStreamReader(encodedResponse);
+				Throwable throwable = (Throwable) reader.readObject();
+				decoded(reader, start, event, encodedResponse.length());
+				// Handle specific instance of RpcTokenException which may have
+				// a specified handler
+				if (throwable instanceof RpcTokenException
+						&& this.rpcTokenExceptionHandler != null) {
+					this.rpcTokenExceptionHandler
+							.onRpcTokenException((RpcTokenException) throwable);
+					this.ignoreResponse = true;
+					return null;
+				}
+				throw throwable;
+			} else {
+				throw new InvocationException("Unknown response "
+						+ encodedResponse);
+			}
+		} catch (SerializationException e) {
+			throw new InvocationException(
+					"Error while deserialization response", e);
+		}
+	}
+
+	/**
+	 * Aborts the current request, and any later one. Used to cancel the
+	 * losing request of a hedged call.
+	 *
+	 * @since 0.6
+	 */
+	void abort() {
+		this.aborted = true;
+		HttpURLConnection connection = this.activeConnection;
+		if (connection != null) {
+			connection.disconnect();
+		}
+	}
+
+	/**
+	 * @return the <code>//OK</code> payload of the last call which returned a
+	 *         value, null if none
+	 * @since 0.6
+	 */
+	String getEncodedResponse() {
+		return this.encodedResponse;
+	}
+
+	/**
+	 * Decodes the return value of a <code>//OK</code> payload, which creates
+	 * new objects at each call
+	 *
+	 * @since 0.6
+	 */
+	Object readReturnValue(
+			RequestCallbackAdapter.ResponseReader responseReader,
+			String encodedResponse) throws SerializationException {
+		long start = System.nanoTime();
+		Object event = FlightRecorderEvent.DESERIALIZATION.begin();
+		SyncClientSerializationStreamReader reader = createStreamReader(encodedResponse
+				.substring(4));
+		Object result = responseReader.read(reader);
+		decoded(reader, start, event, encodedResponse.length());
+		return result;
+	}
+
+	/**
+	 * @return the time budgets of the calls
+	 * @since 0.6
+	 */
+	CallTimeouts getTimeouts() {
+		return this.timeouts;
+	}
+
+	/**
+	 * @return the strong name of the policy used by this proxy
+	 * @since 0.6
+	 */
+	public String getSerializationPolicyName() {
+		return this.serializationPolicyName;
+	}
+
 	/**
 	 * Specifically utilized if an RpcTokenException is returned and handled by
 	 * a separate handler
@@ -319,4 +524,135 @@ public class RemoteServiceSyncProxy implements SerializationStreamFactory {
 	public boolean shouldIgnoreResponse() {
 		return this.ignoreResponse;
 	}
+
+	/**
+	 * Sets the circuit breaker of the endpoint, null for none
+	 *
+	 * @since 0.6
+	 */
+	void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * @return the module base url the requests are sent to
+	 * @since 0.6
+	 */
+	public String getModuleBaseURL() {
+		return this.moduleBaseURL;
+	}
+
+	/**
+	 * @return the url of the remote service
+	 * @since 0.6
+	 */
+	public String getRemoteServiceURL() {
+		return this.remoteServiceURL;
+	}
+
+	/**
+	 * Sets the interceptors of the requests, null for none
+	 *
+	 * @since 0.6
+	 */
+	void setInterceptors(List<RpcInterceptor> interceptors) {
+		this.interceptors = interceptors;
+	}
+
+	/**
+	 * Sets the W3C <code>traceparent</code> header of the requests, null for
+	 * none
+	 *
+	 * @since 0.6
+	 */
+	void setTraceparent(String traceparent) {
+		this.traceparent = traceparent;
+	}
+
+	/**
+	 * Sets the measurements the phases of the calls are added to, null for
+	 * none
+	 *
+	 * @since 0.6
+	 */
+	void setMetrics(CallMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the time budgets of the calls
+	 *
+	 * @since 0.6
+	 */
+	void setTimeouts(CallTimeouts timeouts) {
+		this.timeouts = timeouts;
+	}
+
+	private void addCount(CallMetrics.Counter counter, long count) {
+		CallMetrics m = this.metrics;
+		if (m != null) {
+			m.addCount(counter, count);
+		}
+	}
+
+	/**
+	 * Records the deserialization of a response
+	 *
+	 * @param event
+	 *            the {@link FlightRecorderEvent#DESERIALIZATION} event, null if
+	 *            not recorded
+	 */
+	private void decoded(SyncClientSerializationStreamReader reader,
+			long start, Object event, int payloadLength) {
+		phase(CallMetrics.Phase.DESERIALIZATION, start);
+		addCount(CallMetrics.Counter.STRING_TABLE_SIZE,
+				reader.getStringTableSize());
+		addCount(CallMetrics.Counter.TOKENS, reader.getTokenCount());
+		addCount(CallMetrics.Counter.OBJECTS, reader.getObjectCount());
+		if (event != null) {
+			CallMetrics m = this.metrics;
+			FlightRecorderEvent.DESERIALIZATION.commit(event,
+					m == null ? null : m.getServiceName(),
+					m == null ? null : m.getMethodName(), payloadLength,
+					reader.getTokenCount(), reader.getStringTableSize(),
+					reader.getObjectCount());
+		}
+	}
+
+	/**
+	 * Adds the time elapsed since the mark to the phase
+	 *
+	 * @return the new mark
+	 */
+	private long phase(CallMetrics.Phase phase, long mark) {
+		long now = System.nanoTime();
+		CallMetrics m = this.metrics;
+		if (m != null) {
+			m.addPhase(phase, now - mark);
+		}
+		return now;
+	}
+
+	private void cancel(ScheduledFuture<?> watchdog) {
+		if (watchdog != null) {
+			watchdog.cancel(false);
+		}
+	}
+
+	/**
+	 * Reports expired budgets as {@link RpcTimeoutException}
+	 */
+	private void checkTimeout(IOException e, AtomicBoolean expired, Kind kind) {
+		if (expired.get()
+				|| (this.timeouts.hasDeadline() && this.timeouts
+						.getRemainingMillis() == 0)) {
+			throw this.timeouts.expired(this.remoteServiceURL, e);
+		}
+		if (e instanceof SocketTimeoutException) {
+			throw new RpcTimeoutException(kind,
+					kind == Kind.CONNECT ? this.timeouts.connectTimeout
+							: this.timeouts.readTimeout,
+					this.remoteServiceURL, e);
+		}
+	}
 }
@@ -0,0 +1,250 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Responses of a {@link Cached} method, bounded by a number of entries and a
+ * total weight. When full, the least recently used (LRU) or the least
+ * frequently used (LFU, ties broken by recency) entry is evicted. Expired
+ * entries are removed when looked up.
+ *
+ * @since 0.6
+ */
+public class ResponseCache {
+	public enum Eviction {
+		LRU, LFU
+	}
+
+	/**
+	 * Form of the cached responses
+	 */
+	public enum Storage {
+		/**
+		 * The decoded return value, returned as is on each hit. Only for
+		 * immutable results since all the callers share the instance, but a
+		 * hit costs nothing.
+		 */
+		OBJECT,
+		/**
+		 * The encoded <code>//OK</code> payload, decoded again on each hit so
+		 * that each caller gets its own objects. Also smaller than the
+		 * decoded object graph.
+		 */
+		ENCODED
+	}
+
+	/**
+	 * A cached response
+	 */
+	static final class Entry {
+		final Object value;
+		final int weight;
+		final long expiresAt;
+		int hits;
+
+		Entry(Object value, int weight, long expiresAt) {
+			this.value = value;
+			this.weight = weight;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	/**
+	 * @return the cache of the method, created from its {@link Cached}
+	 *         annotation on first use
+	 */
+	static ResponseCache forMethod(Method method, Cached cached) {
+		ResponseCache cache = CACHES.get(method);
+		if (cache == null) {
+			ResponseCache created = new ResponseCache(cached.maxEntries(),
+					cached.maxWeight(), cached.ttl(), cached.eviction(),
+					cached.storage());
+			cache = CACHES.putIfAbsent(method, created);
+			if (cache == null) {
+				cache = created;
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * @return the cache of the {@link Cached} method, null if it was never
+	 *         called
+	 */
+	public static ResponseCache get(Method method) {
+		return CACHES.get(method);
+	}
+
+	/**
+	 * Empties the caches of all the methods
+	 */
+	public static void invalidateAll() {
+		for (ResponseCache cache : CACHES.values()) {
+			cache.clear();
+		}
+	}
+
+	private final int maxEntries;
+	private final long maxWeight;
+	private final long ttlMillis;
+	private final Eviction eviction;
+	private final Storage storage;
+	/**
+	 * In access order, the eldest entry is the least recently used
+	 */
+	private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<Object, Entry>(
+			16, 0.75f, true);
+	private long weight;
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	/**
+	 * Creates a cache of encoded responses
+	 */
+	public ResponseCache(int maxEntries, long maxWeight, long ttlMillis,
+			Eviction eviction) {
+		this(maxEntries, maxWeight, ttlMillis, eviction, Storage.ENCODED);
+	}
+
+	public ResponseCache(int maxEntries, long maxWeight, long ttlMillis,
+			Eviction eviction, Storage storage) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries must be positive");
+		}
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.ttlMillis = ttlMillis;
+		this.eviction = eviction;
+		this.storage = storage;
+	}
+
+	public synchronized void clear() {
+		this.entries.clear();
+		this.weight = 0;
+	}
+
+	public synchronized long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+	public synchronized long getHitCount() {
+		return this.hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return this.missCount;
+	}
+
+	public Storage getStorage() {
+		return this.storage;
+	}
+
+	/**
+	 * @return the total weight of the cached responses
+	 */
+	public synchronized long getWeight() {
+		return this.weight;
+	}
+
+	public synchronized void invalidate(Object key) {
+		Entry entry = this.entries.remove(key);
+		if (entry != null) {
+			this.weight -= entry.weight;
+		}
+	}
+
+	/**
+	 * @return the entry of the key, null if missing or expired
+	 */
+	synchronized Entry lookup(Object key) {
+		Entry entry = this.entries.get(key);
+		if (entry != null && entry.expiresAt != 0
+				&& entry.expiresAt - System.nanoTime() <= 0) {
+			this.entries.remove(key);
+			this.weight -= entry.weight;
+			entry = null;
+		}
+		if (entry == null) {
+			this.missCount++;
+			return null;
+		}
+		this.hitCount++;
+		entry.hits++;
+		return entry;
+	}
+
+	/**
+	 * Caches a response, evicting other ones if needed. A response heavier
+	 * than the maximum weight is not cached.
+	 */
+	synchronized void put(Object key, Object value, int weight) {
+		if (this.maxWeight > 0 && weight > this.maxWeight) {
+			return;
+		}
+		long expiresAt = 0;
+		if (this.ttlMillis > 0) {
+			// 0 is reserved for no expiry
+			expiresAt = (System.nanoTime() + this.ttlMillis * 1000000L) | 1;
+		}
+		invalidate(key);
+		while (this.entries.size() >= this.maxEntries
+				|| (this.maxWeight > 0 && this.weight + weight > this.maxWeight)) {
+			evict();
+		}
+		this.entries.put(key, new Entry(value, weight, expiresAt));
+		this.weight += weight;
+	}
+
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ResponseCache[" + this.eviction + ", " + this.storage
+				+ ", size="
+				+ this.entries.size() + "/" + this.maxEntries + ", hits="
+				+ this.hitCount + ", misses=" + this.missCount + "]";
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<Object, Entry>> it = this.entries.entrySet()
+				.iterator();
+		Map.Entry<Object, Entry> victim = it.next();
+		if (this.eviction == Eviction.LFU) {
+			// Scans from the least recently used, the first lowest count wins
+			while (it.hasNext() && victim.getValue().hits > 0) {
+				Map.Entry<Object, Entry> candidate = it.next();
+				if (candidate.getValue().hits < victim.getValue().hits) {
+					victim = candidate;
+				}
+			}
+		}
+		this.entries.remove(victim.getKey());
+		this.weight -= victim.getValue().weight;
+		this.evictionCount++;
+	}
+
+	private static final ConcurrentMap<Method, ResponseCache> CACHES = new ConcurrentHashMap<Method, ResponseCache>();
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException;
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException.Kind;
+import com.google.gwt.user.client.rpc.InvocationException;
+import com.google.gwt.user.client.rpc.StatusCodeException;
+
+/**
+ * Describes how failed calls of {@link Idempotent} methods are sent again:
+ * number of attempts, exponential backoff with jitter between them, and which
+ * failures are transient. The serialized payload is sent again as is. Retries
+ * never extend past the deadline of the call, see {@link Timeout}.
+ *
+ * Set methods return the policy for chaining. A policy should be configured
+ * before being set on the {@link ProxySettings}.
+ *
+ * @since 0.6
+ */
+public class RetryPolicy {
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+	public static final long DEFAULT_INITIAL_BACKOFF = 100;
+	public static final long DEFAULT_MAX_BACKOFF = 2000;
+
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+	private long maxBackoff = DEFAULT_MAX_BACKOFF;
+	private double multiplier = 2;
+	private double jitter = 0.5;
+	private final Set<Integer> retryableStatusCodes = new HashSet<Integer>(
+			Arrays.asList(502, 503, 504));
+	private final List<Class<? extends IOException>> retryableExceptions = new ArrayList<Class<? extends IOException>>();
+
+	public RetryPolicy() {
+		// Connection refused or reset, and read timeouts
+		this.retryableExceptions.add(SocketException.class);
+		this.retryableExceptions.add(SocketTimeoutException.class);
+	}
+
+	/**
+	 * @param exceptionClass
+	 *            IOException causing a failure which is worth retrying,
+	 *            including its subclasses
+	 */
+	public RetryPolicy addRetryableException(
+			Class<? extends IOException> exceptionClass) {
+		this.retryableExceptions.add(exceptionClass);
+		return this;
+	}
+
+	/**
+	 * @param statusCodes
+	 *            HTTP status codes worth retrying, in addition to 502, 503 and
+	 *            504
+	 */
+	public RetryPolicy addRetryableStatusCodes(int... statusCodes) {
+		for (int statusCode : statusCodes) {
+			this.retryableStatusCodes.add(statusCode);
+		}
+		return this;
+	}
+
+	/**
+	 * @param retry
+	 *            1 for the delay before the first retry
+	 * @return the delay in milliseconds before the provided retry
+	 */
+	public long getBackoffMillis(int retry) {
+		double delay = this.initialBackoff
+				* Math.pow(this.multiplier, retry - 1);
+		delay = Math.min(delay, this.maxBackoff);
+		if (this.jitter > 0) {
+			// Spreads the retries of concurrent clients
+			delay -= delay * this.jitter
+					* ThreadLocalRandom.current().nextDouble();
+		}
+		return (long) delay;
+	}
+
+	public long getInitialBackoff() {
+		return this.initialBackoff;
+	}
+
+	public double getJitter() {
+		return this.jitter;
+	}
+
+	/**
+	 * @return the maximum number of times a call is sent, including the first
+	 */
+	public int getMaxAttempts() {
+		return this.maxAttempts;
+	}
+
+	public long getMaxBackoff() {
+		return this.maxBackoff;
+	}
+
+	public double getMultiplier() {
+		return this.multiplier;
+	}
+
+	/**
+	 * @return true if the failure is transient. Expired deadlines are never
+	 *         retryable.
+	 */
+	public boolean isRetryable(Throwable failure) {
+		if (failure instanceof RpcTimeoutException
+				&& ((RpcTimeoutException) failure).getKind() == Kind.DEADLINE) {
+			return false;
+		}
+		if (failure instanceof StatusCodeException) {
+			return this.retryableStatusCodes
+					.contains(((StatusCodeException) failure).getStatusCode());
+		}
+		Throwable cause = failure instanceof InvocationException ? failure
+				.getCause() : failure;
+		if (cause instanceof IOException) {
+			for (Class<? extends IOException> exceptionClass : this.retryableExceptions) {
+				if (exceptionClass.isInstance(cause)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param initialBackoff
+	 *            the delay before the first retry, in milliseconds
+	 */
+	public RetryPolicy setInitialBackoff(long initialBackoff) {
+		this.initialBackoff = initialBackoff;
+		return this;
+	}
+
+	/**
+	 * @param jitter
+	 *            fraction of each delay which is randomly removed, from 0 to 1
+	 */
+	public RetryPolicy setJitter(double jitter) {
+		if (jitter < 0 || jitter > 1) {
+			throw new IllegalArgumentException("jitter must be within [0, 1]");
+		}
+		this.jitter = jitter;
+		return this;
+	}
+
+	/**
+	 * @param maxAttempts
+	 *            the maximum number of times a call is sent, including the
+	 *            first
+	 */
+	public RetryPolicy setMaxAttempts(int maxAttempts) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("maxAttempts must be positive");
+		}
+		this.maxAttempts = maxAttempts;
+		return this;
+	}
+
+	/**
+	 * @param maxBackoff
+	 *            the upper bound of the delays, in milliseconds
+	 */
+	public RetryPolicy setMaxBackoff(long maxBackoff) {
+		this.maxBackoff = maxBackoff;
+		return this;
+	}
+
+	/**
+	 * @param multiplier
+	 *            growth factor of the delay between consecutive retries
+	 */
+	public RetryPolicy setMultiplier(double multiplier) {
+		this.multiplier = multiplier;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "RetryPolicy[maxAttempts=" + this.maxAttempts
+				+ ", initialBackoff=" + this.initialBackoff + ", maxBackoff="
+				+ this.maxBackoff + ", multiplier=" + this.multiplier
+				+ ", jitter=" + this.jitter + ", statusCodes="
+				+ this.retryableStatusCodes + "]";
+	}
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Intercepts the calls of a proxy, at two levels:
+ * <ul>
+ * <li>{@link #interceptInvocation(Invocation)} once per invocation of a
+ * service method, around the cache, the retries, the hedging and the
+ * sending. It runs in the invoking thread for a synchronous call and in the
+ * thread of the call for an asynchronous one.</li>
+ * <li>{@link #interceptRequest(Request)} around each HTTP exchange with the
+ * server, such as each attempt of a retried call.</li>
+ * </ul>
+ * The interceptors set on the {@link ProxySettings} run in their order, each
+ * calling <code>proceed()</code> to run the next ones and then the call
+ * itself. An interceptor may short-circuit the call by returning without
+ * proceeding, or by throwing, and may proceed more than once. Extend
+ * {@link RpcInterceptorAdapter} to intercept a single level.
+ *
+ * @since 0.6
+ */
+public interface RpcInterceptor {
+	/**
+	 * The invocation of a service method, after its serialization
+	 */
+	public abstract static class Invocation {
+		private final List<RpcInterceptor> interceptors;
+		private final Method method;
+		private final String serviceName;
+		private final Object[] arguments;
+		private final String payload;
+		private int index;
+
+		Invocation(List<RpcInterceptor> interceptors, Method method,
+				String serviceName, Object[] arguments, String payload) {
+			this.interceptors = interceptors;
+			this.method = method;
+			this.serviceName = serviceName;
+			this.arguments = arguments;
+			this.payload = payload;
+		}
+
+		/**
+		 * @return the arguments of the method, without the callback of an
+		 *         asynchronous invocation
+		 */
+		public Object[] getArguments() {
+			return this.arguments;
+		}
+
+		/**
+		 * @return the invoked method, of the asynchronous interface for an
+		 *         asynchronous invocation
+		 */
+		public Method getMethod() {
+			return this.method;
+		}
+
+		/**
+		 * @return the serialized request, already built from the arguments
+		 */
+		public String getPayload() {
+			return this.payload;
+		}
+
+		/**
+		 * @return the name of the synchronous service interface
+		 */
+		public String getServiceName() {
+			return this.serviceName;
+		}
+
+		/**
+		 * Runs the next interceptors, then the call.
+		 *
+		 * @return the value returned by the service method
+		 * @throws Throwable
+		 *             the exception thrown by the service method or the call
+		 */
+		public Object proceed() throws Throwable {
+			int i = this.index;
+			if (i == this.interceptors.size()) {
+				return invoke();
+			}
+			this.index = i + 1;
+			try {
+				return this.interceptors.get(i).interceptInvocation(this);
+			} finally {
+				this.index = i;
+			}
+		}
+
+		abstract Object invoke() throws Throwable;
+	}
+
+	/**
+	 * An HTTP request to the server
+	 */
+	public abstract static class Request {
+		private final List<RpcInterceptor> interceptors;
+		private final String url;
+		private final String payload;
+		private final Map<String, String> headers = new LinkedHashMap<String, String>();
+		private int index;
+
+		Request(List<RpcInterceptor> interceptors, String url, String payload) {
+			this.interceptors = interceptors;
+			this.url = url;
+			this.payload = payload;
+		}
+
+		/**
+		 * @return the headers added to the request, to which interceptors can
+		 *         add or replace headers
+		 */
+		public Map<String, String> getHeaders() {
+			return this.headers;
+		}
+
+		public String getPayload() {
+			return this.payload;
+		}
+
+		/**
+		 * @return the url of the remote service
+		 */
+		public String getUrl() {
+			return this.url;
+		}
+
+		/**
+		 * Runs the next interceptors, then sends the request.
+		 *
+		 * @return the response of the server
+		 * @throws Throwable
+		 *             if the request could not be sent or timed out
+		 */
+		public Response proceed() throws Throwable {
+			int i = this.index;
+			if (i == this.interceptors.size()) {
+				return send();
+			}
+			this.index = i + 1;
+			try {
+				return this.interceptors.get(i).interceptRequest(this);
+			} finally {
+				this.index = i;
+			}
+		}
+
+		abstract Response send() throws Throwable;
+	}
+
+	/**
+	 * An HTTP response of the server, decoded once returned by the
+	 * interceptors
+	 */
+	public static class Response {
+		private final int statusCode;
+		private final String body;
+		private final Map<String, List<String>> headers;
+
+		/**
+		 * @param body
+		 *            the payload, such as <code>//OK[...]</code>
+		 * @param headers
+		 *            the headers of the response, null for none
+		 */
+		public Response(int statusCode, String body,
+				Map<String, List<String>> headers) {
+			this.statusCode = statusCode;
+			this.body = body;
+			this.headers = headers == null ? Collections
+					.<String, List<String>> emptyMap() : headers;
+		}
+
+		public String getBody() {
+			return this.body;
+		}
+
+		public Map<String, List<String>> getHeaders() {
+			return this.headers;
+		}
+
+		public int getStatusCode() {
+			return this.statusCode;
+		}
+	}
+
+	/**
+	 * @return the value to return from the service method, usually the one of
+	 *         {@link Invocation#proceed()}
+	 */
+	Object interceptInvocation(Invocation invocation) throws Throwable;
+
+	/**
+	 * @return the response to decode, usually the one of
+	 *         {@link Request#proceed()}
+	 */
+	Response interceptRequest(Request request) throws Throwable;
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+/**
+ * {@link RpcInterceptor} proceeding at both levels, to extend by
+ * interceptors of a single level.
+ *
+ * @since 0.6
+ */
+public abstract class RpcInterceptorAdapter implements RpcInterceptor {
+	@Override
+	public Object interceptInvocation(Invocation invocation) throws Throwable {
+		return invocation.proceed();
+	}
+
+	@Override
+	public Response interceptRequest(Request request) throws Throwable {
+		return request.proceed();
+	}
+}
@@ -16,28 +16,45 @@
 package com.gdevelop.gwt.syncrpc;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilenameFilter;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PushbackInputStream;
+import java.io.Writer;
 import java.net.CookieManager;
 import java.net.HttpCookie;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLConnection;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import com.google.gwt.user.server.rpc.SerializationPolicy;
+
 public class RpcPolicyFinder {
 	private static void dumpRemoteService(Map<String, String> result) {
 		if (result.size() > 0) {
@@ -70,33 +87,35 @@ public class RpcPolicyFinder {
 		// get compilation-mappings.txt
 		// match first cache.js
 		// match all possible policy file names in the cache.js
-		
-		String responseText = getResposeText(moduleBaseURL
-				+ MODULE_COMPILATION_MAPPINGS, cookieManager);
 
 		// parse the compilation mappings for any browser cache.js
-		// Permutation name is 32 chars surrounded by apostrophe
-		String regex = "([A-Z0-9]){32}\\.cache\\.js";
-		Pattern pattern = Pattern.compile(regex);
-		Matcher matcher = pattern.matcher(responseText);
-		if (matcher.find()) {
-			String browserSpec = matcher.group();
-			responseText = getResposeText(moduleBaseURL + browserSpec, cookieManager);
-			pattern = Pattern.compile("\'([A-Z0-9]){32}\'");
-			matcher = pattern.matcher(responseText);
-			int i = 0;
-			while (matcher.find()) {
-				String policyName = matcher.group();
-				policyName = policyName.replace("\'", "");
-				if (0 == i++) {
-					// The first one is the permutation name
-					continue;
+		// Permutation name is 32 chars followed by .cache.js
+		String permutationName;
+		InputStream is = openStream(moduleBaseURL
+				+ MODULE_COMPILATION_MAPPINGS, cookieManager);
+		try {
+			permutationName = StrongNameScanner.suffixed(is, ".cache.js")
+					.next();
+		} finally {
+			is.close();
+		}
+		if (permutationName != null) {
+			String browserSpec = permutationName + ".cache.js";
+			is = openStream(moduleBaseURL + browserSpec, cookieManager);
+			try {
+				StrongNameScanner scanner = StrongNameScanner.quoted(is, '\'');
+				String policyName;
+				int i = 0;
+				while ((policyName = scanner.next()) != null) {
+					if (0 == i++) {
+						// The first one is the permutation name
+						continue;
+					}
+					result.putAll(fetchPolicyFile(moduleBaseURL, policyName,
+							cookieManager));
 				}
-				responseText = getResposeText(moduleBaseURL + policyName
-						+ GWT_PRC_POLICY_FILE_EXT,cookieManager);
-
-				result.putAll(parsePolicyName(policyName,
-						new ByteArrayInputStream(responseText.getBytes("UTF8"))));
+			} finally {
+				is.close();
 			}
 		}
 		if (result.size() == 0) {
@@ -109,81 +128,86 @@ public class RpcPolicyFinder {
 		return result;
 	}
 
+	/**
+	 * Fetches the policy names of the module. Concurrent calls for the same
+	 * module share a single discovery, see {@link SingleFlight}.
+	 *
+	 * @return unmodifiable map from service interface name to policy name,
+	 *         shared between the concurrent callers
+	 */
 	// SRU : voir pour integrer https://github.com/jcricket/gwt-syncproxy/issues/20
 	public static Map<String, String> fetchSerializationPolicyName(
+			final String moduleBaseURL, final CookieManager cookieManager)
+			throws IOException {
+		// remove outer trim just in case
+		final String trimmedBaseURL = moduleBaseURL.trim();
+		return singleFlight(POLICY_NAME_FLIGHTS, trimmedBaseURL,
+				new Callable<Map<String, String>>() {
+					@Override
+					public Map<String, String> call() throws IOException {
+						return Collections
+								.unmodifiableMap(doFetchSerializationPolicyName(
+										trimmedBaseURL, cookieManager));
+					}
+				});
+	}
+
+	private static Map<String, String> doFetchSerializationPolicyName(
 			String moduleBaseURL, CookieManager cookieManager) throws IOException {
 
 		Map<String, String> result = new HashMap<String, String>();
 
-		moduleBaseURL = moduleBaseURL.trim(); // remove outer trim just in case
 		String[] urlparts = moduleBaseURL.split("/");
 		// get last word of url appended with .nocache.js
 		String moduleNoCacheJs = urlparts[urlparts.length - 1] + ".nocache.js";
 		logger.config("Fetching Serialization Policys from: " + moduleNoCacheJs);
-		String responseText = "";
-		responseText = getResposeText(moduleBaseURL + moduleNoCacheJs, cookieManager);
 		// parse the .nocache.js for list of Permutation name
 		// Permutation name is 32 chars surrounded by apostrophe
-		String regex = "\'([A-Z0-9]){32}\'";
-		Pattern pattern = Pattern.compile(regex);
-		Matcher matcher = pattern.matcher(responseText);
+		String permutationName;
+		boolean xsiFrameLinker;
+		InputStream is = openStream(moduleBaseURL + moduleNoCacheJs,
+				cookieManager);
+		try {
+			StrongNameScanner scanner = StrongNameScanner.quoted(is, '\'')
+					.watch(".cache.js");
+			permutationName = scanner.next();
+			scanner.skipToEnd();
+			xsiFrameLinker = scanner.hasSeenMarker();
+		} finally {
+			is.close();
+		}
 
-		boolean xsiFrameLinker = responseText.contains(".cache.js");
 		logger.config("XSIFrameLinker: " + xsiFrameLinker);
-		if (matcher.find()) {
+		if (permutationName != null) {
+			StrongNameScanner scanner;
+			String permutationFile;
 			if (!xsiFrameLinker) {
 				logger.config("Searching for policy's generated by standard linker");
-				String permutationFile = matcher.group();
-				permutationFile = permutationFile.replace("\'", "");
-
 				// Load the first permutation html file
-				permutationFile += ".cache.html";
-				logger.fine("Accessing permutation file: " + permutationFile);
-				responseText = getResposeText(moduleBaseURL + permutationFile,cookieManager);
-				matcher = pattern.matcher(responseText);
-				int i = 0;
-				while (matcher.find()) {
-					String policyName = matcher.group();
-					policyName = policyName.replace("\'", "");
-					if (0 == i++) {
-						// The first one is the permutation name
-						continue;
-					}
-					logger.fine("Accessing policy file: " + policyName);
-					responseText = getResposeText(moduleBaseURL + policyName
-							+ GWT_PRC_POLICY_FILE_EXT,cookieManager);
-
-					result.putAll(parsePolicyName(
-							policyName,
-							new ByteArrayInputStream(responseText
-									.getBytes("UTF8"))));
-				}
+				permutationFile = permutationName + ".cache.html";
 			} else {
 				logger.config("Searching for policy's generated by XSIFrame linker");
-				String permutationFile = matcher.group();
-				permutationFile = permutationFile.replace("\'", "");
-
 				// Load the first permutation js file
-				permutationFile += ".cache.js";
-				logger.fine("Accessing permutation file: " + permutationFile);
-				responseText = getResposeText(moduleBaseURL + permutationFile,cookieManager);
-
-				String rpcRegex = "\\\"([A-Z0-9]){32}\\\"";
-				Pattern rpcPattern = Pattern.compile(rpcRegex);
-
-				matcher = rpcPattern.matcher(responseText);
-				while (matcher.find()) {
-					String policyName = matcher.group();
-					policyName = policyName.replace("\"", "");
+				permutationFile = permutationName + ".cache.js";
+			}
+			logger.fine("Accessing permutation file: " + permutationFile);
+			is = openStream(moduleBaseURL + permutationFile, cookieManager);
+			try {
+				if (!xsiFrameLinker) {
+					scanner = StrongNameScanner.quoted(is, '\'');
+					// The first one is the permutation name
+					scanner.next();
+				} else {
+					scanner = StrongNameScanner.quoted(is, '"');
+				}
+				String policyName;
+				while ((policyName = scanner.next()) != null) {
 					logger.fine("Accessing policy file: " + policyName);
-					responseText = getResposeText(moduleBaseURL + policyName
-							+ GWT_PRC_POLICY_FILE_EXT,cookieManager);
-
-					result.putAll(parsePolicyName(
-							policyName,
-							new ByteArrayInputStream(responseText
-									.getBytes("UTF8"))));
+					result.putAll(fetchPolicyFile(moduleBaseURL, policyName,
+							cookieManager));
 				}
+			} finally {
+				is.close();
 			}
 		}
 
@@ -198,31 +222,266 @@ public class RpcPolicyFinder {
 		return result;
 	}
 
+	/**
+	 * The text of the policy files is no longer kept once parsed, see
+	 * {@link #getCachedPolicy(String)}.
+	 *
+	 * @return null
+	 * @deprecated since 0.6, use {@link #getCachedPolicy(String)}, to be
+	 *             removed in a later release
+	 */
+	@Deprecated
 	public static String getCachedPolicyFile(String url) {
-		return CACHE_POLICY_FILE.get(url);
+		return null;
+	}
+
+	/**
+	 * @since 0.6
+	 * @param url
+	 *            the policy file url
+	 * @return the policy fetched during discovery or previously loaded by
+	 *         {@link #getSerializationPolicy(String, String, CookieManager)},
+	 *         null if absent
+	 */
+	public static SerializationPolicy getCachedPolicy(String url) {
+		return POLICY_CACHE.get(url);
+	}
+
+	/**
+	 * @since 0.6
+	 * @return the cache of parsed policies, for monitoring and configuration
+	 */
+	public static PolicyCache getPolicyCache() {
+		return POLICY_CACHE;
 	}
 
-	private static String getResposeText(String myurl, CookieManager cookieManager) throws IOException {
+	/**
+	 * Returns the policy for the provided strong name, from the cache if
+	 * available or else from the classpath (compiled policy first, see
+	 * {@link SerializationPolicyCompiler}) or the server.
+	 *
+	 * @since 0.6
+	 * @throws IOException
+	 *             if the policy can't be fetched or parsed
+	 */
+	public static SerializationPolicy getSerializationPolicy(
+			String moduleBaseURL, final String policyName,
+			final CookieManager cookieManager) throws IOException {
+		final String url = moduleBaseURL
+				+ SerializationPolicyLoader
+						.getSerializationPolicyFileName(policyName);
+		SerializationPolicy policy = POLICY_CACHE.get(url);
+		if (policy != null) {
+			return policy;
+		}
+		return singleFlight(POLICY_FLIGHTS, url,
+				new Callable<SerializationPolicy>() {
+					@Override
+					public SerializationPolicy call() throws IOException {
+						// May have been loaded by a flight that just landed,
+						// the miss is already counted
+						SerializationPolicy loaded = POLICY_CACHE.peek(url);
+						if (loaded != null) {
+							return loaded;
+						}
+						InputStream is = RpcPolicyFinder.class
+								.getResourceAsStream("/"
+										+ SerializationPolicyCompiler
+												.getCompiledPolicyFileName(policyName));
+						if (is != null) {
+							logger.config("Loading compiled policy: " + url);
+							try {
+								return loadCompiledPolicy(url, is);
+							} finally {
+								is.close();
+							}
+						}
+						logger.config("Loading policy: " + url);
+						is = openStream(url, cookieManager);
+						try {
+							return loadPolicy(url, is, null);
+						} finally {
+							is.close();
+						}
+					}
+				});
+	}
+
+	/**
+	 * Joins the flight of the key, waiting at most until the deadline of the
+	 * call set by {@link #setCallTimeouts(CallTimeouts)}
+	 */
+	private static <V> V singleFlight(SingleFlight<String, V> flights,
+			String key, Callable<V> callable) throws IOException {
+		CallTimeouts timeouts = CALL_TIMEOUTS.get();
+		long remaining = timeouts == null ? Long.MAX_VALUE : timeouts
+				.getRemainingMillis();
+		try {
+			return flights.execute(key, callable,
+					remaining == Long.MAX_VALUE ? Long.MAX_VALUE
+							: TimeUnit.MILLISECONDS.toNanos(remaining));
+		} catch (TimeoutException e) {
+			throw timeouts.expired(key, e);
+		} catch (IOException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for "
+					+ key);
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Fetches and parses a policy file, caching the policy for
+	 * {@link #getCachedPolicy(String)}. The policy is parsed while the
+	 * response is read.
+	 *
+	 * @return map from service interface name to policy name
+	 */
+	private static Map<String, String> fetchPolicyFile(String moduleBaseURL,
+			String policyName, CookieManager cookieManager) throws IOException {
+		String url = moduleBaseURL + policyName + GWT_PRC_POLICY_FILE_EXT;
+		Set<String> serviceInterfaces = new HashSet<String>();
+		InputStream is = openStream(url, cookieManager);
+		try {
+			loadPolicy(url, is, serviceInterfaces);
+		} finally {
+			is.close();
+		}
+		Map<String, String> result = new HashMap<String, String>();
+		for (String serviceInterface : serviceInterfaces) {
+			result.put(serviceInterface, policyName);
+			result.put(serviceInterface + SyncProxy.ASYNC_POSTFIX, policyName);
+		}
+		return result;
+	}
+
+	private static SerializationPolicy loadCompiledPolicy(String url,
+			InputStream is) throws IOException {
+		long start = System.nanoTime();
+		Object event = FlightRecorderEvent.POLICY_LOAD.begin();
+		CountingInputStream counting = null;
+		if (event != null) {
+			is = counting = new CountingInputStream(is);
+		}
+		SerializationPolicy policy;
+		try {
+			policy = SerializationPolicyCompiler.load(is);
+		} catch (IOException e) {
+			policyLoaded(event, url, true, counting, e);
+			throw e;
+		} catch (RuntimeException e) {
+			policyLoaded(event, url, true, counting, e);
+			throw e;
+		}
+		POLICY_CACHE.recordLoad(System.nanoTime() - start);
+		POLICY_CACHE.put(url, policy);
+		policyLoaded(event, url, true, counting, null);
+		return policy;
+	}
+
+	private static SerializationPolicy loadPolicy(String url, InputStream is,
+			Set<String> serviceInterfaces) throws IOException {
+		long start = System.nanoTime();
+		Object event = FlightRecorderEvent.POLICY_LOAD.begin();
+		CountingInputStream counting = null;
+		if (event != null) {
+			is = counting = new CountingInputStream(is);
+		}
+		SerializationPolicy policy;
+		try {
+			policy = SerializationPolicyLoader.loadFromStream(is, null,
+					serviceInterfaces);
+		} catch (ParseException e) {
+			policyLoaded(event, url, false, counting, e);
+			throw new IOException("Invalid policy file " + url, e);
+		} catch (IOException e) {
+			policyLoaded(event, url, false, counting, e);
+			throw e;
+		} catch (RuntimeException e) {
+			policyLoaded(event, url, false, counting, e);
+			throw e;
+		}
+		POLICY_CACHE.recordLoad(System.nanoTime() - start);
+		POLICY_CACHE.put(url, policy);
+		policyLoaded(event, url, false, counting, null);
+		return policy;
+	}
+
+	/**
+	 * Commits the {@link FlightRecorderEvent#POLICY_LOAD} event, if recorded
+	 */
+	private static void policyLoaded(Object event, String url,
+			boolean compiled, CountingInputStream counting, Throwable failure) {
+		if (event != null) {
+			FlightRecorderEvent.POLICY_LOAD.commit(event, url, compiled,
+					counting.count, FlightRecorderEvent.outcome(failure));
+		}
+	}
+
+	/**
+	 * Counts the bytes of a policy file
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+		long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				this.count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				this.count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			this.count += skipped;
+			return skipped;
+		}
+	}
+
+	/**
+	 * Opens the provided url, using a classpath resource of the same file name
+	 * if one is available and not blank.
+	 */
+	private static InputStream openStream(String myurl,
+			CookieManager cookieManager) throws IOException {
 		String policyName = myurl.substring(myurl.lastIndexOf("/")) ;
 		InputStream cis = RpcPolicyFinder.class.getResourceAsStream(policyName) ;
 		if (cis != null) {
-			String response = IOUtils.toString(cis) ;
-			if (StringUtils.isNotBlank(response)) {
-				return response ;
+			cis = skipBlank(cis);
+			if (cis != null) {
+				return cis;
 			}
 		}
-		
+
 		URL url = new URL(myurl);
 		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 		connection.setDoInput(true);
 		connection.setInstanceFollowRedirects(true); // follow redirect
-		String cookieString = "";
-		for (HttpCookie cookie : cookieManager.getCookieStore().getCookies()) {
-			
-			cookieString = cookie.toString();			
-		}
+		applyTimeouts(connection);
+		String cookieString = getCookieHeader(cookieManager);
 		
-		logger.fine("getResposeText HttpURLConnection cookieString: "+ cookieString);
+		logger.fine("openStream HttpURLConnection cookieString: "+ cookieString);
 		if (StringUtils.isNotBlank(cookieString)) {
 			connection.setDoOutput(true);
 			connection.setRequestProperty("Cookie",cookieString); 
@@ -234,20 +493,105 @@ public class RpcPolicyFinder {
 		connection.setUseCaches(false);
 		connection.connect();
 
-		InputStream is = connection.getInputStream();
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		byte[] buffer = new byte[1024];
-		int len;
-		while ((len = is.read(buffer)) > 0) {
-			baos.write(buffer, 0, len);
+		return connection.getInputStream();
+	}
+
+	/**
+	 * Skips the leading whitespace of the stream
+	 *
+	 * @return the stream positioned on its first non whitespace byte, or null
+	 *         if the stream is blank, in which case it is closed
+	 */
+	static InputStream skipBlank(InputStream is) throws IOException {
+		PushbackInputStream pis = new PushbackInputStream(is);
+		int b;
+		try {
+			do {
+				b = pis.read();
+			} while (b != -1 && Character.isWhitespace(b));
+		} catch (IOException e) {
+			pis.close();
+			throw e;
 		}
-		String responseText = baos.toString("UTF8");
+		if (b == -1) {
+			pis.close();
+			return null;
+		}
+		pis.unread(b);
+		return pis;
+	}
 
-		if (myurl.endsWith(GWT_PRC_POLICY_FILE_EXT)) {
-			CACHE_POLICY_FILE.put(myurl, responseText);
+	/**
+	 * Sets the timeouts of the requests fetching policies and policy names,
+	 * which are not made on behalf of a call (e.g. {@link PolicyWatcher}) or
+	 * whose call has no connect or read timeout
+	 *
+	 * @param connectTimeout
+	 *            in milliseconds, 0 for no limit
+	 * @param readTimeout
+	 *            in milliseconds, 0 for no limit
+	 * @since 0.6
+	 */
+	public static void setTimeouts(int connectTimeout, int readTimeout) {
+		if (connectTimeout < 0 || readTimeout < 0) {
+			throw new IllegalArgumentException("Timeouts must not be negative");
+		}
+		RpcPolicyFinder.connectTimeout = connectTimeout;
+		RpcPolicyFinder.readTimeout = readTimeout;
+	}
+
+	/**
+	 * Bounds the policy requests made by the current thread by the budgets
+	 * of a call, until restored with the returned value
+	 *
+	 * @param timeouts
+	 *            null to use the default timeouts only
+	 * @return the budgets previously set
+	 */
+	static CallTimeouts setCallTimeouts(CallTimeouts timeouts) {
+		CallTimeouts previous = CALL_TIMEOUTS.get();
+		if (timeouts == null) {
+			CALL_TIMEOUTS.remove();
+		} else {
+			CALL_TIMEOUTS.set(timeouts);
+		}
+		return previous;
+	}
+
+	/**
+	 * Sets the timeouts of a policy request: those of the current call if
+	 * set, else the defaults, bounded by the remaining time of the call
+	 */
+	static void applyTimeouts(URLConnection connection) {
+		int connect = connectTimeout;
+		int read = readTimeout;
+		long remaining = Long.MAX_VALUE;
+		CallTimeouts timeouts = CALL_TIMEOUTS.get();
+		if (timeouts != null) {
+			if (timeouts.connectTimeout > 0) {
+				connect = timeouts.connectTimeout;
+			}
+			if (timeouts.readTimeout > 0) {
+				read = timeouts.readTimeout;
+			}
+			remaining = timeouts.getRemainingMillis();
 		}
+		connection.setConnectTimeout(CallTimeouts.bound(connect, remaining));
+		connection.setReadTimeout(CallTimeouts.bound(read, remaining));
+	}
 
-		return responseText;
+	/**
+	 * @return the Cookie header value sent with policy requests, empty if none
+	 */
+	static String getCookieHeader(CookieManager cookieManager) {
+		String cookieString = "";
+		if (cookieManager != null) {
+			for (HttpCookie cookie : cookieManager.getCookieStore()
+					.getCookies()) {
+				cookieString = cookie.toString();
+			}
+		}
+		return cookieString;
 	}
 
 	private static Map<String, String> parsePolicyName(String policyName,
@@ -257,19 +601,36 @@ public class RpcPolicyFinder {
 		BufferedReader reader = new BufferedReader(new InputStreamReader(in));
 		String line = reader.readLine();
 		while (line != null) {
-			int pos = line.indexOf(", false, false, false, false, _, ");
-			if (pos > 0) {
-				result.put(line.substring(0, pos), policyName);
-				result.put(line.substring(0, pos) + "Async", policyName);
-			}
+			parsePolicyLine(policyName, line, result);
 			line = reader.readLine();
 		}
 
 		return result;
 	}
 
+	private static void parsePolicyLine(String policyName, String line,
+			Map<String, String> result) {
+		int pos = line.indexOf(", false, false, false, false, _, ");
+		if (pos > 0) {
+			result.put(line.substring(0, pos), policyName);
+			result.put(line.substring(0, pos) + "Async", policyName);
+		}
+	}
+
+	/**
+	 * Searches the classpath for policy files. If one or more
+	 * {@link #POLICY_INDEX_RESOURCE} resources are available, they are used
+	 * directly and the classpath is not scanned. Otherwise each directory, jar
+	 * and zip file of the classpath is scanned for root level policy files.
+	 */
 	public static Map<String, String> searchPolicyFileInClassPath() {
-		Map<String, String> result = new HashMap<String, String>();
+		Map<String, String> result = searchPolicyIndexInClassPath();
+		if (result.size() > 0) {
+			logger.config("RemoteServices loaded from policy index");
+			dumpRemoteService(result);
+			return result;
+		}
+
 		String classPath = System.getProperty("java.class.path");
 		StringTokenizer st = new StringTokenizer(classPath, File.pathSeparator);
 		while (st.hasMoreTokens()) {
@@ -277,8 +638,9 @@ public class RpcPolicyFinder {
 			File f = new File(path);
 			if (f.isDirectory()) {
 				result.putAll(searchPolicyFileInDirectory(path));
+			} else if (f.isFile() && isArchive(path)) {
+				result.putAll(searchPolicyFileInArchive(path));
 			}
-			// TODO: Search in jar, zip files
 		}
 
 		if (result.size() == 0) {
@@ -319,9 +681,225 @@ public class RpcPolicyFinder {
 		return result;
 	}
 
-	private static final Map<String, String> CACHE_POLICY_FILE = new HashMap<String, String>();
+	/**
+	 * Searches the root of a jar or zip file, and its class roots (see
+	 * {@link #ARCHIVE_CLASS_ROOTS}), for policy files.
+	 *
+	 * @since 0.6
+	 * @param path
+	 *            the archive location
+	 * @return map from service interface name to policy name, empty if the
+	 *         archive could not be read
+	 */
+	public static Map<String, String> searchPolicyFileInArchive(String path) {
+		Map<String, String> result = new HashMap<String, String>();
+
+		ZipFile zipFile = null;
+		try {
+			zipFile = new ZipFile(path);
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+				if (entry.isDirectory()
+						|| !name.endsWith(GWT_PRC_POLICY_FILE_EXT)) {
+					continue;
+				}
+				// Policy files are loaded back from the root of the
+				// classpath, which is either the root of the archive or one
+				// of its class roots
+				for (String classRoot : ARCHIVE_CLASS_ROOTS) {
+					if (name.startsWith(classRoot)) {
+						name = name.substring(classRoot.length());
+						break;
+					}
+				}
+				if (name.indexOf('/') >= 0) {
+					continue;
+				}
+				String policyName = name.substring(0, name.length()
+						- GWT_PRC_POLICY_FILE_EXT.length());
+				InputStream is = zipFile.getInputStream(entry);
+				try {
+					result.putAll(parsePolicyName(policyName, is));
+				} finally {
+					is.close();
+				}
+			}
+		} catch (IOException e) {
+			logger.warning("Unable to search policy files in " + path + ": "
+					+ e.getMessage());
+		} finally {
+			if (zipFile != null) {
+				try {
+					zipFile.close();
+				} catch (IOException ignore) {
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Reads every {@link #POLICY_INDEX_RESOURCE} available from the context
+	 * class loader.
+	 *
+	 * @since 0.6
+	 * @return map from service interface name (and its Async counterpart) to
+	 *         policy name, empty if no index is available
+	 */
+	public static Map<String, String> searchPolicyIndexInClassPath() {
+		Map<String, String> result = new HashMap<String, String>();
+		ClassLoader classLoader = Thread.currentThread()
+				.getContextClassLoader();
+		if (classLoader == null) {
+			classLoader = RpcPolicyFinder.class.getClassLoader();
+		}
+		try {
+			Enumeration<URL> indexes = classLoader
+					.getResources(POLICY_INDEX_RESOURCE);
+			while (indexes.hasMoreElements()) {
+				URL index = indexes.nextElement();
+				logger.fine("Reading policy index: " + index);
+				InputStream is = index.openStream();
+				try {
+					result.putAll(readPolicyIndex(is));
+				} finally {
+					is.close();
+				}
+			}
+		} catch (IOException e) {
+			logger.warning("Unable to read policy index: " + e.getMessage());
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a policy index. The index is a properties file mapping each
+	 * service interface name to the strong name of its policy file.
+	 *
+	 * @since 0.6
+	 */
+	public static Map<String, String> readPolicyIndex(InputStream in)
+			throws IOException {
+		Map<String, String> result = new HashMap<String, String>();
+		Properties properties = new Properties();
+		properties.load(new InputStreamReader(in,
+				SerializationPolicyLoader.SERIALIZATION_POLICY_FILE_ENCODING));
+		for (String serviceName : properties.stringPropertyNames()) {
+			String policyName = properties.getProperty(serviceName).trim();
+			result.put(serviceName, policyName);
+			result.put(serviceName + SyncProxy.ASYNC_POSTFIX, policyName);
+		}
+		return result;
+	}
+
+	/**
+	 * Writes a policy index readable by {@link #readPolicyIndex(InputStream)}.
+	 * Async service names are skipped since they are derived when reading.
+	 *
+	 * @since 0.6
+	 */
+	public static void writePolicyIndex(Map<String, String> policies,
+			OutputStream out) throws IOException {
+		Writer writer = new OutputStreamWriter(out,
+				SerializationPolicyLoader.SERIALIZATION_POLICY_FILE_ENCODING);
+		for (String serviceName : new TreeSet<String>(policies.keySet())) {
+			if (serviceName.endsWith(SyncProxy.ASYNC_POSTFIX)
+					&& policies.containsKey(serviceName.substring(0,
+							serviceName.length()
+									- SyncProxy.ASYNC_POSTFIX.length()))) {
+				continue;
+			}
+			writer.write(serviceName + "=" + policies.get(serviceName) + "\n");
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Build time generation of the policy index. Usage:
+	 * <code>RpcPolicyFinder outputFile (directory|jar)...</code>, e.g. with
+	 * <code>target/classes/META-INF/gwt-syncproxy/policies.idx war/module</code>
+	 *
+	 * @since 0.6
+	 * @throws IllegalArgumentException
+	 *             with the usage if arguments are missing, which the launcher
+	 *             reports with a failing exit status
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			throw new IllegalArgumentException("Usage: "
+					+ RpcPolicyFinder.class.getName()
+					+ " outputFile (directory|jar)...");
+		}
+		Map<String, String> policies = new HashMap<String, String>();
+		for (int i = 1; i < args.length; i++) {
+			if (new File(args[i]).isDirectory()) {
+				policies.putAll(searchPolicyFileInDirectory(args[i]));
+			} else {
+				policies.putAll(searchPolicyFileInArchive(args[i]));
+			}
+		}
+		File output = new File(args[0]);
+		if (output.getParentFile() != null) {
+			output.getParentFile().mkdirs();
+		}
+		OutputStream out = new FileOutputStream(output);
+		try {
+			writePolicyIndex(policies, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static boolean isArchive(String path) {
+		String lowerPath = path.toLowerCase();
+		return lowerPath.endsWith(".jar") || lowerPath.endsWith(".zip");
+	}
+
+	/**
+	 * Classpath resource listing the policy name of each service interface, see
+	 * {@link #readPolicyIndex(InputStream)}
+	 *
+	 * @since 0.6
+	 */
+	public static final String POLICY_INDEX_RESOURCE = "META-INF/gwt-syncproxy/policies.idx";
+
+	/**
+	 * Default connect timeout of the policy requests, in milliseconds
+	 *
+	 * @since 0.6
+	 */
+	public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+
+	/**
+	 * Default read timeout of the policy requests, in milliseconds
+	 *
+	 * @since 0.6
+	 */
+	public static final int DEFAULT_READ_TIMEOUT = 30000;
+
+	private static volatile int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+
+	private static volatile int readTimeout = DEFAULT_READ_TIMEOUT;
+
+	private static final ThreadLocal<CallTimeouts> CALL_TIMEOUTS = new ThreadLocal<CallTimeouts>();
+
+	private static final PolicyCache POLICY_CACHE = new PolicyCache();
+
+	private static final SingleFlight<String, Map<String, String>> POLICY_NAME_FLIGHTS = new SingleFlight<String, Map<String, String>>();
+
+	private static final SingleFlight<String, SerializationPolicy> POLICY_FLIGHTS = new SingleFlight<String, SerializationPolicy>();
 
 	private static final String GWT_PRC_POLICY_FILE_EXT = ".gwt.rpc";
+
+	/**
+	 * Directories of an archive which are roots of the classpath, as in
+	 * Spring Boot jars and war files
+	 */
+	private static final String[] ARCHIVE_CLASS_ROOTS = { "BOOT-INF/classes/",
+			"WEB-INF/classes/" };
 	
 	private static final String MODULE_COMPILATION_MAPPINGS = "compilation-mappings.txt";
 	
@@ -0,0 +1,240 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.gdevelop.gwt.syncrpc.LazySerializationPolicy.TypeInfo;
+
+/**
+ * Converts <code>.gwt.rpc</code> policy files into a compact binary form that
+ * is loaded without any text parsing, as a {@link LazySerializationPolicy}.
+ * Compiled policies are looked up in the classpath by
+ * {@link RpcPolicyFinder#getSerializationPolicy(String, String, java.net.CookieManager)}
+ * before the text policy.
+ *
+ * Format (big endian, strings in modified UTF-8): magic, version, type count,
+ * then for each type its name, flags and type id (omitted when equal to the
+ * name), then the client fields count and for each enhanced class its name
+ * and field names.
+ *
+ * @since 0.6
+ */
+public final class SerializationPolicyCompiler {
+	/**
+	 * Extension of compiled policy files, appended to the strong name
+	 */
+	public static final String COMPILED_POLICY_FILE_EXT = ".gwt.rpc.bin";
+
+	private static final int MAGIC = 0x47535052; // "GSPR"
+	private static final int VERSION = 1;
+
+	private static final int FIELD_SER = 1;
+	private static final int INSTANT_SER = 1 << 1;
+	private static final int FIELD_DESER = 1 << 2;
+	private static final int INSTANT_DESER = 1 << 3;
+	private static final int TYPE_ID_IS_NAME = 1 << 4;
+
+	/**
+	 * Client fields of a class are counted on an unsigned short
+	 */
+	private static final int MAX_FIELD_COUNT = 0xFFFF;
+
+	/**
+	 * Converts a text policy into its compiled form
+	 *
+	 * @throws ParseException
+	 *             if the text policy is not properly formatted
+	 */
+	public static void compile(InputStream textPolicy, OutputStream out)
+			throws IOException, ParseException {
+		LazySerializationPolicy policy = SerializationPolicyLoader.parse(
+				textPolicy, null);
+		write(policy, out);
+	}
+
+	/**
+	 * Returns the compiled policy file name from the serialization policy
+	 * strong name.
+	 */
+	public static String getCompiledPolicyFileName(
+			String serializationPolicyStrongName) {
+		return serializationPolicyStrongName + COMPILED_POLICY_FILE_EXT;
+	}
+
+	/**
+	 * Loads a compiled policy. Classes are resolved on first use, as for
+	 * {@link SerializationPolicyLoader#parse(InputStream, Set)}.
+	 *
+	 * @throws IOException
+	 *             if the stream can't be read or is not a compiled policy
+	 */
+	public static LazySerializationPolicy load(InputStream in)
+			throws IOException {
+		DataInputStream dis = new DataInputStream(new BufferedInputStream(in));
+		if (dis.readInt() != MAGIC) {
+			throw new IOException("Not a compiled serialization policy");
+		}
+		int version = dis.readUnsignedByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported compiled policy version "
+					+ version);
+		}
+
+		int typeCount = dis.readInt();
+		List<TypeInfo> types = new ArrayList<TypeInfo>(typeCount);
+		for (int i = 0; i < typeCount; i++) {
+			String name = dis.readUTF();
+			int flags = dis.readUnsignedByte();
+			String typeId = (flags & TYPE_ID_IS_NAME) != 0 ? name : dis
+					.readUTF();
+			types.add(new TypeInfo(name, (flags & FIELD_SER) != 0,
+					(flags & INSTANT_SER) != 0, (flags & FIELD_DESER) != 0,
+					(flags & INSTANT_DESER) != 0, typeId));
+		}
+
+		int clientFieldsCount = dis.readInt();
+		Map<String, Set<String>> clientFields = new HashMap<String, Set<String>>();
+		for (int i = 0; i < clientFieldsCount; i++) {
+			String name = dis.readUTF();
+			int fieldCount = dis.readUnsignedShort();
+			Set<String> fieldNames = new HashSet<String>();
+			for (int j = 0; j < fieldCount; j++) {
+				fieldNames.add(dis.readUTF());
+			}
+			clientFields.put(name, fieldNames);
+		}
+
+		return new LazySerializationPolicy(
+				SerializationPolicyLoader.getPolicyClassLoader(), types,
+				clientFields);
+	}
+
+	/**
+	 * Build time conversion of policy files. Usage:
+	 * <code>SerializationPolicyCompiler outputDirectory (directory|policyFile)...</code>
+	 * , each <code>STRONGNAME.gwt.rpc</code> is written as
+	 * <code>STRONGNAME.gwt.rpc.bin</code> in the output directory.
+	 *
+	 * @throws IllegalArgumentException
+	 *             with the usage if arguments are missing, which the launcher
+	 *             reports with a failing exit status
+	 */
+	public static void main(String[] args) throws IOException, ParseException {
+		if (args.length < 2) {
+			throw new IllegalArgumentException("Usage: "
+					+ SerializationPolicyCompiler.class.getName()
+					+ " outputDirectory (directory|policyFile)...");
+		}
+		File outputDirectory = new File(args[0]);
+		outputDirectory.mkdirs();
+		List<File> policyFiles = new ArrayList<File>();
+		for (int i = 1; i < args.length; i++) {
+			File f = new File(args[i]);
+			if (f.isDirectory()) {
+				File[] children = f.listFiles(new FilenameFilter() {
+					@Override
+					public boolean accept(File dir, String name) {
+						return name.endsWith(".gwt.rpc");
+					}
+				});
+				if (children != null) {
+					for (File child : children) {
+						policyFiles.add(child);
+					}
+				}
+			} else {
+				policyFiles.add(f);
+			}
+		}
+		for (File policyFile : policyFiles) {
+			String strongName = policyFile.getName().substring(0,
+					policyFile.getName().length() - ".gwt.rpc".length());
+			InputStream in = new FileInputStream(policyFile);
+			try {
+				OutputStream out = new BufferedOutputStream(
+						new FileOutputStream(new File(outputDirectory,
+								getCompiledPolicyFileName(strongName))));
+				try {
+					compile(in, out);
+				} finally {
+					out.close();
+				}
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	static void write(LazySerializationPolicy policy, OutputStream out)
+			throws IOException {
+		DataOutputStream dos = new DataOutputStream(out);
+		dos.writeInt(MAGIC);
+		dos.writeByte(VERSION);
+
+		Collection<TypeInfo> types = policy.getTypes();
+		dos.writeInt(types.size());
+		for (TypeInfo type : types) {
+			boolean typeIdIsName = type.name.equals(type.typeId);
+			int flags = (type.fieldSer ? FIELD_SER : 0)
+					| (type.instantSer ? INSTANT_SER : 0)
+					| (type.fieldDeser ? FIELD_DESER : 0)
+					| (type.instantDeser ? INSTANT_DESER : 0)
+					| (typeIdIsName ? TYPE_ID_IS_NAME : 0);
+			dos.writeUTF(type.name);
+			dos.writeByte(flags);
+			if (!typeIdIsName) {
+				dos.writeUTF(type.typeId);
+			}
+		}
+
+		Map<String, Set<String>> clientFields = policy.getClientFields();
+		dos.writeInt(clientFields.size());
+		for (Map.Entry<String, Set<String>> entry : clientFields.entrySet()) {
+			if (entry.getValue().size() > MAX_FIELD_COUNT) {
+				throw new IOException("Too many client fields in "
+						+ entry.getKey() + ": " + entry.getValue().size());
+			}
+			dos.writeUTF(entry.getKey());
+			dos.writeShort(entry.getValue().size());
+			for (String fieldName : entry.getValue()) {
+				dos.writeUTF(fieldName);
+			}
+		}
+		dos.flush();
+	}
+
+	private SerializationPolicyCompiler() {
+	}
+}
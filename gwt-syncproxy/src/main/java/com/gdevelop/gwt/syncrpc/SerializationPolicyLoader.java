@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.gdevelop.gwt.syncrpc.LazySerializationPolicy.TypeInfo;
 import com.google.gwt.user.server.rpc.SerializationPolicy;
 import com.google.gwt.user.server.rpc.impl.StandardSerializationPolicy;
 import com.google.gwt.user.server.rpc.impl.TypeNameObfuscator;
@@ -109,7 +110,9 @@ public final class SerializationPolicyLoader {
 	 * @param classNotFoundExceptions
 	 *            if not <code>null</code>, all of the
 	 *            {@link ClassNotFoundException}s thrown while loading this
-	 *            serialization policy will be added to this list
+	 *            serialization policy will be added to this list. If
+	 *            <code>null</code>, classes are only loaded on first use, see
+	 *            {@link LazySerializationPolicy}
 	 * @return a {@link SerializationPolicy} loaded from the input stream.
 	 * 
 	 * @throws IOException
@@ -120,9 +123,41 @@ public final class SerializationPolicyLoader {
 	public static SerializationPolicy loadFromStream(InputStream inputStream,
 			List<ClassNotFoundException> classNotFoundExceptions)
 			throws IOException, ParseException {
+		return loadFromStream(inputStream, classNotFoundExceptions, null);
+	}
 
-		if (inputStream == null) {
-			throw new NullPointerException("inputStream");
+	/**
+	 * Loads a SerializationPolicy from an input stream and optionally record
+	 * any {@link ClassNotFoundException}s and the service interfaces listed in
+	 * the policy.
+	 * 
+	 * @param inputStream
+	 *            stream to load the SerializationPolicy from.
+	 * @param classNotFoundExceptions
+	 *            if not <code>null</code>, all of the
+	 *            {@link ClassNotFoundException}s thrown while loading this
+	 *            serialization policy will be added to this list. If
+	 *            <code>null</code>, classes are only loaded on first use, see
+	 *            {@link LazySerializationPolicy}
+	 * @param serviceInterfaces
+	 *            if not <code>null</code>, the binary names of the service
+	 *            interfaces described by this policy will be added to this
+	 *            set
+	 * @return a {@link SerializationPolicy} loaded from the input stream.
+	 * 
+	 * @throws IOException
+	 *             if an error occurs while reading the stream
+	 * @throws ParseException
+	 *             if the input stream is not properly formatted
+	 * @since 0.6
+	 */
+	public static SerializationPolicy loadFromStream(InputStream inputStream,
+			List<ClassNotFoundException> classNotFoundExceptions,
+			Set<String> serviceInterfaces) throws IOException, ParseException {
+		LazySerializationPolicy policy = parse(inputStream, serviceInterfaces);
+		if (classNotFoundExceptions == null) {
+			// Nobody to report missing classes to, no need to load them now
+			return policy;
 		}
 
 		Map<Class<?>, Boolean> whitelistSer = new HashMap<Class<?>, Boolean>();
@@ -130,8 +165,66 @@ public final class SerializationPolicyLoader {
 		Map<Class<?>, String> typeIds = new HashMap<Class<?>, String>();
 		Map<Class<?>, Set<String>> clientFields = new HashMap<Class<?>, Set<String>>();
 
-		ClassLoader contextClassLoader = Thread.currentThread()
-				.getContextClassLoader();
+		for (Map.Entry<String, Set<String>> entry : policy.getClientFields()
+				.entrySet()) {
+			try {
+				Class<?> clazz = Class.forName(entry.getKey(), false,
+						policy.getClassLoader());
+				clientFields.put(clazz, entry.getValue());
+			} catch (ClassNotFoundException ex) {
+				// Ignore the error, but add it to the list of errors
+				classNotFoundExceptions.add(ex);
+			}
+		}
+		for (TypeInfo type : policy.getTypes()) {
+			try {
+				Class<?> clazz = type.resolve(policy.getClassLoader());
+				if (type.fieldSer) {
+					whitelistSer.put(clazz, type.instantSer);
+				}
+				if (type.fieldDeser) {
+					whitelistDeser.put(clazz, type.instantDeser);
+				}
+				typeIds.put(clazz, type.typeId);
+			} catch (ClassNotFoundException ex) {
+				// Ignore the error, but add it to the list of errors
+				classNotFoundExceptions.add(ex);
+			}
+		}
+		/****************************************
+		 * HERE'S THE CHANGE FROM THE ORIGINAL Deser and Ser are swapped because
+		 * we are the client side
+		 */
+		return new StandardSerializationPolicy(whitelistDeser, whitelistSer,
+				typeIds, clientFields);
+	}
+
+	/**
+	 * Parses a policy file without loading any of the listed classes. Classes
+	 * are resolved on first use with the class loader given by
+	 * {@link #getPolicyClassLoader()}.
+	 * 
+	 * @param inputStream
+	 *            stream to load the SerializationPolicy from.
+	 * @param serviceInterfaces
+	 *            if not <code>null</code>, the binary names of the service
+	 *            interfaces described by this policy will be added to this
+	 *            set
+	 * @throws IOException
+	 *             if an error occurs while reading the stream
+	 * @throws ParseException
+	 *             if the input stream is not properly formatted
+	 * @since 0.6
+	 */
+	public static LazySerializationPolicy parse(InputStream inputStream,
+			Set<String> serviceInterfaces) throws IOException, ParseException {
+
+		if (inputStream == null) {
+			throw new NullPointerException("inputStream");
+		}
+
+		List<TypeInfo> types = new ArrayList<TypeInfo>();
+		Map<String, Set<String>> clientFields = new HashMap<String, Set<String>>();
 
 		InputStreamReader isr = new InputStreamReader(inputStream,
 				SERIALIZATION_POLICY_FILE_ENCODING);
@@ -156,23 +249,11 @@ public final class SerializationPolicyLoader {
 					 * instance.
 					 */
 					String binaryTypeName = components[1].trim();
-					Class<?> clazz;
-					try {
-						clazz = Class.forName(binaryTypeName, false,
-								contextClassLoader);
-						HashSet<String> fieldNames = new HashSet<String>();
-						for (int i = 2; i < components.length; i++) {
-							fieldNames.add(components[i]);
-						}
-						clientFields.put(clazz, fieldNames);
-					} catch (ClassNotFoundException ex) {
-						// Ignore the error, but add it to the list of errors if
-						// one was
-						// provided.
-						if (classNotFoundExceptions != null) {
-							classNotFoundExceptions.add(ex);
-						}
+					HashSet<String> fieldNames = new HashSet<String>();
+					for (int i = 2; i < components.length; i++) {
+						fieldNames.add(components[i]);
 					}
+					clientFields.put(binaryTypeName, fieldNames);
 				} else {
 					if (components.length != 2 && components.length != 7) {
 						throw new ParseException(FORMAT_ERROR_MESSAGE, lineNum);
@@ -220,36 +301,38 @@ public final class SerializationPolicyLoader {
 						}
 					}
 
-					try {
-						Class<?> clazz = Class.forName(binaryTypeName, false,
-								contextClassLoader);
-						if (fieldSer) {
-							whitelistSer.put(clazz, instantSer);
-						}
-						if (fieldDeser) {
-							whitelistDeser.put(clazz, instantDeser);
-						}
-						typeIds.put(clazz, typeId);
-					} catch (ClassNotFoundException ex) {
-						// Ignore the error, but add it to the list of errors if
-						// one was
-						// provided.
-						if (classNotFoundExceptions != null) {
-							classNotFoundExceptions.add(ex);
-						}
+					if (serviceInterfaces != null
+							&& TypeNameObfuscator.SERVICE_INTERFACE_ID
+									.equals(typeId)) {
+						serviceInterfaces.add(binaryTypeName);
 					}
+
+					types.add(new TypeInfo(binaryTypeName, fieldSer,
+							instantSer, fieldDeser, instantDeser, typeId));
 				}
 			}
 
 			line = br.readLine();
 			lineNum++;
 		}
-		/****************************************
-		 * HERE'S THE CHANGE FROM THE ORIGINAL Deser and Ser are swapped because
-		 * we are the client side
-		 */
-		return new StandardSerializationPolicy(whitelistDeser, whitelistSer,
-				typeIds, clientFields);
+
+		return new LazySerializationPolicy(getPolicyClassLoader(), types,
+				clientFields);
+	}
+
+	/**
+	 * @return the context class loader of the calling thread, or the loader of
+	 *         this library if none is set (as may happen on Android worker
+	 *         threads)
+	 * @since 0.6
+	 */
+	static ClassLoader getPolicyClassLoader() {
+		ClassLoader classLoader = Thread.currentThread()
+				.getContextClassLoader();
+		if (classLoader == null) {
+			classLoader = SerializationPolicyLoader.class.getClassLoader();
+		}
+		return classLoader;
 	}
 
 	private SerializationPolicyLoader() {
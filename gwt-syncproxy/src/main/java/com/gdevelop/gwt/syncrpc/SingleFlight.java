@@ -0,0 +1,103 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deduplicates concurrent executions for the same key: while a call is in
+ * flight, other callers with an equal key wait for it and share its result
+ * (or exception) instead of starting their own. Once a call completes, the
+ * next caller starts a new one.
+ *
+ * @since 0.6
+ *
+ * @param <K>
+ *            key type, must implement equals and hashCode
+ * @param <V>
+ *            result type
+ */
+public class SingleFlight<K, V> {
+	private final ConcurrentMap<K, FutureTask<V>> calls = new ConcurrentHashMap<K, FutureTask<V>>();
+
+	/**
+	 * Runs the callable in the calling thread unless a call for the same key
+	 * is already in flight, in which case its outcome is awaited.
+	 *
+	 * @return the shared result
+	 * @throws Exception
+	 *             the exception thrown by the shared call
+	 */
+	public V execute(K key, Callable<V> callable) throws Exception {
+		return execute(key, callable, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Runs the callable in the calling thread unless a call for the same key
+	 * is already in flight, in which case its outcome is awaited at most for
+	 * the timeout. The call in flight goes on for its other callers.
+	 *
+	 * @param timeoutNanos
+	 *            bound of the wait for a call in flight,
+	 *            {@link Long#MAX_VALUE} for no limit
+	 * @return the shared result
+	 * @throws TimeoutException
+	 *             if the call in flight did not complete in time
+	 * @throws Exception
+	 *             the exception thrown by the shared call
+	 */
+	public V execute(K key, Callable<V> callable, long timeoutNanos)
+			throws Exception {
+		FutureTask<V> task = new FutureTask<V>(callable);
+		FutureTask<V> inFlight = this.calls.putIfAbsent(key, task);
+		if (inFlight == null) {
+			inFlight = task;
+			try {
+				task.run();
+			} finally {
+				this.calls.remove(key, task);
+			}
+		}
+		try {
+			if (inFlight == task || timeoutNanos == Long.MAX_VALUE) {
+				return inFlight.get();
+			}
+			return inFlight.get(timeoutNanos, TimeUnit.NANOSECONDS);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return true if a call for this key is currently in flight
+	 */
+	public boolean isInFlight(K key) {
+		return this.calls.containsKey(key);
+	}
+}
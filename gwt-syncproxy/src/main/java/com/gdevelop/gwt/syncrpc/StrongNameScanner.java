@@ -0,0 +1,229 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Finds GWT strong names (32 chars of <code>[A-Z0-9]</code>) in a stream
+ * while its bytes are read, so that large permutation files do not have to be
+ * loaded into memory. Equivalent to matching <code>'([A-Z0-9]){32}'</code>
+ * (quoted mode) or <code>([A-Z0-9]){32}\.cache\.js</code> (suffix mode) over
+ * the whole content.
+ *
+ * @since 0.6
+ */
+public class StrongNameScanner {
+	/**
+	 * Scanner for strong names surrounded by the provided quote char
+	 */
+	public static StrongNameScanner quoted(InputStream in, char quote) {
+		return new StrongNameScanner(in, quote, null);
+	}
+
+	/**
+	 * Scanner for strong names directly followed by the provided suffix, such
+	 * as ".cache.js". The suffix is not part of the returned names.
+	 */
+	public static StrongNameScanner suffixed(InputStream in, String suffix) {
+		return new StrongNameScanner(in, (char) 0, suffix);
+	}
+
+	private static boolean isStrongNameChar(int c) {
+		return (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+	}
+
+	public static final int STRONG_NAME_LENGTH = 32;
+
+	private final InputStream in;
+	private final char quote;
+	private final String suffix;
+
+	private final byte[] buffer = new byte[4096];
+	private int bufferPos;
+	private int bufferLen;
+
+	/**
+	 * Last {@link #STRONG_NAME_LENGTH} chars of the current run
+	 */
+	private final char[] run = new char[STRONG_NAME_LENGTH];
+	private int runLength;
+	private int beforeRun = -1;
+	/**
+	 * Number of suffix chars matched after a candidate run, -1 if none
+	 */
+	private int suffixPos = -1;
+	private String candidate;
+
+	private String marker;
+	private int[] markerFailure;
+	private int markerPos;
+	private boolean markerSeen;
+
+	protected StrongNameScanner(InputStream in, char quote, String suffix) {
+		this.in = in;
+		this.quote = quote;
+		this.suffix = suffix;
+	}
+
+	/**
+	 * Also reports whether the provided text appears anywhere in the stream,
+	 * see {@link #hasSeenMarker()}. Must be set before the first read.
+	 */
+	public StrongNameScanner watch(String marker) {
+		this.marker = marker;
+		// Knuth-Morris-Pratt failure table
+		this.markerFailure = new int[marker.length()];
+		int k = 0;
+		for (int i = 1; i < marker.length(); i++) {
+			while (k > 0 && marker.charAt(i) != marker.charAt(k)) {
+				k = this.markerFailure[k - 1];
+			}
+			if (marker.charAt(i) == marker.charAt(k)) {
+				k++;
+			}
+			this.markerFailure[i] = k;
+		}
+		return this;
+	}
+
+	/**
+	 * @return true if the watched marker was found in the bytes read so far
+	 */
+	public boolean hasSeenMarker() {
+		return this.markerSeen;
+	}
+
+	/**
+	 * @return the next strong name, or null at the end of the stream
+	 */
+	public String next() throws IOException {
+		int c;
+		while ((c = read()) >= 0) {
+			if (this.marker != null && !this.markerSeen) {
+				updateMarker(c);
+			}
+			String found = this.suffix == null ? acceptQuoted(c)
+					: acceptSuffixed(c);
+			if (found != null) {
+				return found;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the remainder of the stream, for instance to complete the marker
+	 * detection.
+	 */
+	public void skipToEnd() throws IOException {
+		while (next() != null) {
+			// Ignore names
+		}
+	}
+
+	private String acceptQuoted(int c) {
+		if (isStrongNameChar(c)) {
+			appendToRun(c);
+			return null;
+		}
+		String found = null;
+		if (c == this.quote && this.runLength == STRONG_NAME_LENGTH
+				&& this.beforeRun == this.quote) {
+			found = new String(this.run);
+			// The closing quote can not open the next match
+			this.beforeRun = -1;
+		} else {
+			this.beforeRun = c;
+		}
+		this.runLength = 0;
+		return found;
+	}
+
+	private String acceptSuffixed(int c) {
+		if (this.suffixPos >= 0) {
+			if (c == this.suffix.charAt(this.suffixPos)) {
+				this.suffixPos++;
+				return this.suffixPos == this.suffix.length() ? endCandidate()
+						: null;
+			}
+			this.suffixPos = -1;
+		}
+		if (isStrongNameChar(c)) {
+			appendToRun(c);
+			return null;
+		}
+		if (this.runLength >= STRONG_NAME_LENGTH
+				&& c == this.suffix.charAt(0)) {
+			this.candidate = lastRun();
+			this.suffixPos = 1;
+			if (this.suffix.length() == 1) {
+				return endCandidate();
+			}
+		}
+		this.runLength = 0;
+		return null;
+	}
+
+	private String endCandidate() {
+		String found = this.candidate;
+		this.candidate = null;
+		this.suffixPos = -1;
+		return found;
+	}
+
+	private void appendToRun(int c) {
+		this.run[this.runLength % STRONG_NAME_LENGTH] = (char) c;
+		this.runLength++;
+	}
+
+	/**
+	 * @return the last {@link #STRONG_NAME_LENGTH} chars of the current run
+	 */
+	private String lastRun() {
+		char[] name = new char[STRONG_NAME_LENGTH];
+		int start = this.runLength % STRONG_NAME_LENGTH;
+		for (int i = 0; i < STRONG_NAME_LENGTH; i++) {
+			name[i] = this.run[(start + i) % STRONG_NAME_LENGTH];
+		}
+		return new String(name);
+	}
+
+	private void updateMarker(int c) {
+		while (this.markerPos > 0 && c != this.marker.charAt(this.markerPos)) {
+			this.markerPos = this.markerFailure[this.markerPos - 1];
+		}
+		if (c == this.marker.charAt(this.markerPos)) {
+			this.markerPos++;
+		}
+		if (this.markerPos == this.marker.length()) {
+			this.markerSeen = true;
+		}
+	}
+
+	private int read() throws IOException {
+		if (this.bufferPos == this.bufferLen) {
+			this.bufferLen = this.in.read(this.buffer);
+			this.bufferPos = 0;
+			if (this.bufferLen <= 0) {
+				this.bufferLen = 0;
+				return -1;
+			}
+		}
+		return this.buffer[this.bufferPos++] & 0xff;
+	}
+}
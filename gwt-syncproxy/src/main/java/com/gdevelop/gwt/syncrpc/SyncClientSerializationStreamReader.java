@@ -26,6 +26,9 @@ import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.google.gwt.user.client.rpc.IncompatibleRemoteServiceException;
@@ -343,7 +346,50 @@ AbstractSerializationStreamReader {
 	 */
 	private static final Map<Class<?>, VectorReader> CLASS_TO_VECTOR_READER = new IdentityHashMap<Class<?>, VectorReader>();
 
-	{
+	/**
+	 * Reflection lookups done once per class rather than once per decoded
+	 * object. Held by the classes themselves, so that they don't pin classes
+	 * nor their class loaders.
+	 */
+	private static final ClassValue<Method[]> CUSTOM_SERIALIZER_METHODS = new ClassValue<Method[]>() {
+		@Override
+		protected Method[] computeValue(Class<?> customSerializer) {
+			Method[] methods = new Method[2];
+			for (Method method : customSerializer.getMethods()) {
+				if (methods[0] == null
+						&& "instantiate".equals(method.getName())) {
+					methods[0] = method;
+				} else if (methods[1] == null
+						&& "deserialize".equals(method.getName())) {
+					methods[1] = method;
+				}
+			}
+			return methods;
+		}
+	};
+
+	private static final ClassValue<Constructor<?>> CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+		@Override
+		protected Constructor<?> computeValue(Class<?> instanceClass) {
+			try {
+				Constructor<?> constructor = instanceClass
+						.getDeclaredConstructor();
+				constructor.setAccessible(true);
+				return constructor;
+			} catch (NoSuchMethodException e) {
+				// Looked up again, and thrown, on each instantiation
+				return null;
+			}
+		}
+	};
+
+	/**
+	 * Classes resolved from type signatures, per serialization policy. Dropped
+	 * with the policy once it is no longer used. Guarded by itself.
+	 */
+	private static final Map<SerializationPolicy, Map<String, Class<?>>> TYPE_SIGNATURE_CLASSES = new WeakHashMap<SerializationPolicy, Map<String, Class<?>>>();
+
+	static {
 		CLASS_TO_VECTOR_READER
 		.put(boolean[].class,
 				SyncClientSerializationStreamReader.VectorReader.BOOLEAN_VECTOR);
@@ -393,20 +439,47 @@ AbstractSerializationStreamReader {
 
 	private final List<String> stringTable = new ArrayList<String>();
 
+	/**
+	 * Number of objects instantiated while reading
+	 */
+	private int objectCount;
+
 	private final SerializationPolicy serializationPolicy;
 
+	private final Map<String, Class<?>> typeSignatureClasses;
+
 	private static final String PRELUDE = "].concat([";
 
 	private static final String POSTLUDE1 = "],[";
 
 	private static final String POSTLUDE = "])";
 
-	Logger logger = Logger.getLogger(SyncClientSerializationStreamReader.class
-			.getName());
+	private static final Logger logger = Logger
+			.getLogger(SyncClientSerializationStreamReader.class.getName());
 
 	public SyncClientSerializationStreamReader(
 			SerializationPolicy serializationPolicy) {
 		this.serializationPolicy = serializationPolicy;
+		this.typeSignatureClasses = getTypeSignatureClasses(serializationPolicy);
+	}
+
+	/**
+	 * @return the classes resolved from type signatures under the policy
+	 */
+	private static Map<String, Class<?>> getTypeSignatureClasses(
+			SerializationPolicy serializationPolicy) {
+		if (serializationPolicy == null) {
+			return new ConcurrentHashMap<String, Class<?>>();
+		}
+		synchronized (TYPE_SIGNATURE_CLASSES) {
+			Map<String, Class<?>> classes = TYPE_SIGNATURE_CLASSES
+					.get(serializationPolicy);
+			if (classes == null) {
+				classes = new ConcurrentHashMap<String, Class<?>>();
+				TYPE_SIGNATURE_CLASSES.put(serializationPolicy, classes);
+			}
+			return classes;
+		}
 	}
 
 	private void buildStringTable() {
@@ -522,21 +595,26 @@ AbstractSerializationStreamReader {
 	protected Object deserialize(String typeSignature)
 			throws SerializationException {
 		Object instance = null;
-		SerializedInstanceReference serializedInstRef = SerializabilityUtil
-				.decodeSerializedInstanceReference(typeSignature);
 
 		try {
-			// Class<?> instanceClass =
-			// Class.forName(serializedInstRef.getName(),
-			// false, null);
-			Class<?> instanceClass = Class.forName(serializedInstRef.getName());
+			Class<?> instanceClass = this.typeSignatureClasses
+					.get(typeSignature);
+			if (instanceClass == null) {
+				SerializedInstanceReference serializedInstRef = SerializabilityUtil
+						.decodeSerializedInstanceReference(typeSignature);
+				// Class<?> instanceClass =
+				// Class.forName(serializedInstRef.getName(),
+				// false, null);
+				instanceClass = Class.forName(serializedInstRef.getName());
+				this.typeSignatureClasses.put(typeSignature, instanceClass);
+			}
 
 			assert this.serializationPolicy != null;
 
 			try {
 				this.serializationPolicy.validateDeserialize(instanceClass);
 			} catch (SerializationException e) {
-				this.logger.warning(e.getMessage());
+				logger.warning(e.getMessage());
 			}
 
 			// TODO validateTypeVersions(instanceClass, serializedInstRef);
@@ -549,6 +627,7 @@ AbstractSerializationStreamReader {
 			instance = instantiate(customSerializer, instanceClass);
 
 			rememberDecodedObject(index, instance);
+			this.objectCount++;
 
 			Object replacement = deserializeImpl(customSerializer,
 					instanceClass, instance);
@@ -615,9 +694,11 @@ AbstractSerializationStreamReader {
 		if (this.serializationPolicy
 				.getClientFieldNamesForEnhancedClass(instanceClass) != null) {
 			int encodedPosition = readInt();
-			this.logger.info("Encoded server field found for class:"
-					+ instanceClass + " with value: "
-					+ getString(encodedPosition));
+			if (logger.isLoggable(Level.INFO)) {
+				logger.info("Encoded server field found for class:"
+						+ instanceClass + " with value: "
+						+ getString(encodedPosition));
+			}
 		}
 		Field[] serializableFields = SerializabilityUtil
 				.applyFieldSerializationPolicy(instanceClass,
@@ -684,13 +765,20 @@ AbstractSerializationStreamReader {
 					InvocationTargetException {
 		assert !instanceClass.isArray();
 
-		for (Method method : customSerializer.getMethods()) {
-			if ("deserialize".equals(method.getName())) {
-				method.invoke(null, this, instance);
-				return;
-			}
+		Method deserialize = getCustomSerializerMethods(customSerializer)[1];
+		if (deserialize == null) {
+			throw new NoSuchMethodException("deserialize");
 		}
-		throw new NoSuchMethodException("deserialize");
+		deserialize.invoke(null, this, instance);
+	}
+
+	/**
+	 * @return the instantiate and deserialize methods of the custom field
+	 *         serializer, null if missing, looked up once per serializer
+	 */
+	private static Method[] getCustomSerializerMethods(
+			Class<?> customSerializer) {
+		return CUSTOM_SERIALIZER_METHODS.get(customSerializer);
 	}
 
 	@Override
@@ -725,10 +813,9 @@ AbstractSerializationStreamReader {
 			IllegalArgumentException, InvocationTargetException,
 			NoSuchMethodException, SerializationException {
 		if (customSerializer != null) {
-			for (Method method : customSerializer.getMethods()) {
-				if ("instantiate".equals(method.getName())) {
-					return method.invoke(null, this);
-				}
+			Method instantiate = getCustomSerializerMethods(customSerializer)[0];
+			if (instantiate != null) {
+				return instantiate.invoke(null, this);
 			}
 			// Ok to not have one.
 		}
@@ -745,8 +832,10 @@ AbstractSerializationStreamReader {
 			assert ordinal >= 0 && ordinal < enumConstants.length;
 			return enumConstants[ordinal];
 		} else {
-			Constructor<?> constructor = instanceClass.getDeclaredConstructor();
-			constructor.setAccessible(true);
+			Constructor<?> constructor = CONSTRUCTORS.get(instanceClass);
+			if (constructor == null) {
+				constructor = instanceClass.getDeclaredConstructor();
+			}
 			return constructor.newInstance();
 		}
 	}
@@ -860,6 +949,32 @@ AbstractSerializationStreamReader {
 		}
 	}
 
+	/**
+	 * @return the number of objects instantiated while reading, arrays and
+	 *         strings included
+	 * @since 0.6
+	 */
+	public int getObjectCount() {
+		return this.objectCount;
+	}
+
+	/**
+	 * @return the number of strings in the string table of the response
+	 * @since 0.6
+	 */
+	public int getStringTableSize() {
+		return this.stringTable.size();
+	}
+
+	/**
+	 * @return the number of tokens of the response, the string table
+	 *         counting as one
+	 * @since 0.6
+	 */
+	public int getTokenCount() {
+		return this.results.size();
+	}
+
 	@Override
 	public short readShort() {
 		return Short.parseShort(this.results.get(--this.index));
@@ -22,6 +22,7 @@ import java.lang.reflect.Modifier;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.google.gwt.user.client.rpc.RpcToken;
@@ -357,8 +358,8 @@ public class SyncClientSerializationStreamWriter extends
 	private final Serializer serializer;
 	private final RpcToken rpcToken;
 
-	Logger logger = Logger.getLogger(SyncClientSerializationStreamWriter.class
-			.getName());
+	private static final Logger logger = Logger
+			.getLogger(SyncClientSerializationStreamWriter.class.getName());
 
 	public SyncClientSerializationStreamWriter(Serializer serializer,
 			String moduleBaseURL, String serializationPolicyStrongName,
@@ -528,8 +529,11 @@ public class SyncClientSerializationStreamWriter extends
 	private void serializeWithCustomSerializer(Class<?> customSerializer,
 			Object instance, Class<?> instanceClass)
 			throws SerializationException {
-		this.logger.info("Serializing with Custom Serializer: "
-				+ instanceClass.getName() + " - " + customSerializer.getName());
+		if (logger.isLoggable(Level.INFO)) {
+			logger.info("Serializing with Custom Serializer: "
+					+ instanceClass.getName() + " - "
+					+ customSerializer.getName());
+		}
 		try {
 			assert !instanceClass.isArray();
 
@@ -539,7 +543,7 @@ public class SyncClientSerializationStreamWriter extends
 						method.invoke(null, this, instance);
 					}
 					catch(Throwable npe) {
-						this.logger.warning("Error serializing with Custom Serializer: "
+						logger.warning("Error serializing with Custom Serializer: "
 								+ instanceClass.getName() + " - " + customSerializer.getName());
 					}
 					return;
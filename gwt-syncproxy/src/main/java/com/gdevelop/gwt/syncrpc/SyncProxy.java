@@ -20,6 +20,7 @@ import java.lang.reflect.Proxy;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -181,8 +182,12 @@ public class SyncProxy {
 		return spClazzes;
 	}
 
+	/**
+	 * @return the level of the SyncProxy classes, {@link Level#OFF} in quiet
+	 *         mode, null if not set
+	 */
 	protected static Level getLoggingLevel() {
-		return level;
+		return quiet ? Level.OFF : level;
 	}
 
 	/**
@@ -518,6 +523,41 @@ public class SyncProxy {
 		}
 	}
 
+	/**
+	 * Called when the server rejected the policy of a service, typically
+	 * because it was redeployed with a new strong name. Policy names of the
+	 * module are fetched again and updated in {@link #POLICY_MAP}, unless
+	 * another thread already did so for the same stale policy. Concurrent
+	 * fetches of the same module are shared, see
+	 * {@link RpcPolicyFinder#fetchSerializationPolicyName(String, CookieManager)}
+	 *
+	 * @since 0.6
+	 * @return the current policy name of the service, null if unknown
+	 * @throws SyncProxyException
+	 *             if the policy names can't be fetched
+	 */
+	protected static String refreshPolicyName(String moduleBaseUrl,
+			String serviceIntfName, String stalePolicyName,
+			CookieManager cookieManager) throws SyncProxyException {
+		String current = POLICY_MAP.get(serviceIntfName);
+		if (current != null && !current.equals(stalePolicyName)) {
+			logger.fine("Policy of " + serviceIntfName
+					+ " already refreshed to " + current);
+			return current;
+		}
+		logger.info("Refreshing Policy Map from " + moduleBaseUrl);
+		Map<String, String> policies;
+		try {
+			policies = RpcPolicyFinder.fetchSerializationPolicyName(
+					moduleBaseUrl, cookieManager == null ? DEFAULT_COOKIE_MANAGER
+							: cookieManager);
+		} catch (Exception e) {
+			throw new SyncProxyException(InfoType.POLICY_NAME_POPULATION, e);
+		}
+		POLICY_MAP.putAll(policies);
+		return policies.get(serviceIntfName);
+	}
+
 	/**
 	 * @since 0.5
 	 * @param baseUrl
@@ -590,10 +630,33 @@ public class SyncProxy {
 
 		for (Class<?> clazz : spClazzes) {
 			Logger iLogger = Logger.getLogger(clazz.getName());
-			iLogger.setLevel(level);
+			iLogger.setLevel(getLoggingLevel());
 		}
 	}
 
+	/**
+	 * Turns off the logging of all SyncProxy classes, without changing the
+	 * handlers, or restores the level set by {@link #setLoggingLevel(Level)}.
+	 * The messages of the calls are only built for enabled levels, so a quiet
+	 * proxy spends no time on logging.
+	 *
+	 * @since 0.6
+	 */
+	public static void setQuiet(boolean quiet) {
+		SyncProxy.quiet = quiet;
+		Level effective = getLoggingLevel();
+		for (Class<?> clazz : spClazzes) {
+			Logger.getLogger(clazz.getName()).setLevel(effective);
+		}
+	}
+
+	/**
+	 * @since 0.6
+	 */
+	public static boolean isQuiet() {
+		return quiet;
+	}
+
 	/**
 	 * Static flag to suppress the exception issued if a RemoteService does not
 	 * implement the {@link RemoteServiceRelativePath} annotation
@@ -612,10 +675,13 @@ public class SyncProxy {
 	 * @since 0.5
 	 */
 	protected static Class<?>[] spClazzes = { SyncProxy.class,
-		RpcPolicyFinder.class, RemoteServiceInvocationHandler.class,
+		RpcPolicyFinder.class, PolicyCache.class, PolicyWatcher.class,
+		RemoteServiceInvocationHandler.class,
 			RemoteServiceSyncProxy.class,
 		SyncClientSerializationStreamReader.class,
-		SyncClientSerializationStreamWriter.class };
+		SyncClientSerializationStreamWriter.class, Bulkhead.class,
+		CircuitBreaker.class, LoadBalancer.class,
+		FlightRecorderEvent.class };
 	/**
 	 * @since 0.5
 	 */
@@ -623,6 +689,8 @@ public class SyncProxy {
 
 	static Level level;
 
+	static volatile boolean quiet;
+
 	static Logger logger = Logger.getLogger(SyncProxy.class.getName());
 
 	protected static final String ASYNC_POSTFIX = "Async";
@@ -637,8 +705,8 @@ public class SyncProxy {
 	 * Default this is loaded with policy-file data from the classpath:
 	 * {@link RpcPolicyFinder#searchPolicyFileInClassPath()}
 	 */
-	protected static final Map<String, String> POLICY_MAP = RpcPolicyFinder
-			.searchPolicyFileInClassPath();
+	protected static final Map<String, String> POLICY_MAP = new ConcurrentHashMap<String, String>(
+			RpcPolicyFinder.searchPolicyFileInClassPath());
 
 	private static final CookieManager DEFAULT_COOKIE_MANAGER = new CookieManager(
 			null, CookiePolicy.ACCEPT_ALL);
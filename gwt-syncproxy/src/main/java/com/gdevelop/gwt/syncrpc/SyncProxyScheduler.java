@@ -0,0 +1,88 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared scheduler of the short background tasks of the proxies (deadlines,
+ * triggers of the policy checks), which must not block, and shared pool of
+ * workers for the blocking ones (hedged requests, policy checks). Threads are
+ * daemons so that they never keep the JVM alive.
+ *
+ * @since 0.6
+ */
+final class SyncProxyScheduler {
+	private static ScheduledExecutorService executor;
+	private static ExecutorService workers;
+
+	static synchronized ScheduledExecutorService get() {
+		if (executor == null) {
+			ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(
+					1, new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r,
+									"gwt-syncproxy-scheduler-"
+											+ this.count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			// Cancelled deadlines are the common case
+			pool.setRemoveOnCancelPolicy(true);
+			executor = pool;
+		}
+		return executor;
+	}
+
+	/**
+	 * @return the shared pool running blocking requests concurrently with the
+	 *         calling thread, such as hedged requests. Idle threads are
+	 *         released after a minute.
+	 */
+	static synchronized ExecutorService getWorkers() {
+		if (workers == null) {
+			workers = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60,
+					TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+					new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r,
+									"gwt-syncproxy-worker-"
+											+ this.count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+		return workers;
+	}
+
+	private SyncProxyScheduler() {
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException;
+
+/**
+ * Overrides the time budgets of {@link ProxySettings} for the methods of a
+ * service interface, or for all the methods when set on the interface. May be
+ * placed on the synchronous or the asynchronous interface. Values are in
+ * milliseconds, 0 means no limit and a negative value keeps the value of the
+ * settings. Expiry is reported with a {@link RpcTimeoutException}.
+ *
+ * @since 0.6
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD, ElementType.TYPE })
+public @interface Timeout {
+	/**
+	 * @return the connect timeout
+	 */
+	int connect() default -1;
+
+	/**
+	 * @return the overall deadline of the call, including serialization and
+	 *         retries
+	 */
+	long deadline() default -1;
+
+	/**
+	 * @return the read timeout
+	 */
+	int read() default -1;
+}
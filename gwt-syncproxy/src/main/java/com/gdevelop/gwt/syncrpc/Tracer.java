@@ -0,0 +1,65 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc;
+
+/**
+ * Starts a span for each service call of a proxy, see
+ * {@link HasProxySettings#setTracer(Tracer)}. The span is started in the
+ * invoking thread, even for asynchronous calls, so that a tracer can take
+ * its parent from the context of that thread. Its W3C
+ * <code>traceparent</code> is sent with each request of the call, so that
+ * the server spans join the trace. Adapt a tracing library by implementing
+ * this interface, or record the spans in memory with {@link InMemoryTracer}.
+ *
+ * @since 0.6
+ */
+public interface Tracer {
+	/**
+	 * A unit of work of a trace
+	 */
+	public interface Span {
+		/**
+		 * Sets an attribute, such as the name of the method or the size of
+		 * the response
+		 */
+		void setAttribute(String key, Object value);
+
+		/**
+		 * @return the value of the W3C <code>traceparent</code> header
+		 *         identifying this span, null to not send one
+		 */
+		String getTraceparent();
+
+		/**
+		 * Ends the span, once the call completed, after its callback for
+		 * asynchronous calls
+		 *
+		 * @param failure
+		 *            the exception of the call, null if it succeeded
+		 */
+		void end(Throwable failure);
+	}
+
+	/**
+	 * Starts the span of a call. Exceptions thrown by the tracer are logged
+	 * and the call is not traced.
+	 *
+	 * @param name
+	 *            the name of the span, <code>service/method</code>
+	 * @return the started span, null to not trace the call
+	 */
+	Span startSpan(String name);
+}
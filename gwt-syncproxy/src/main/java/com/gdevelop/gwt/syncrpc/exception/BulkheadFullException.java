@@ -0,0 +1,34 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc.exception;
+
+import com.gdevelop.gwt.syncrpc.Bulkhead;
+import com.google.gwt.user.client.rpc.InvocationException;
+
+/**
+ * Thrown without contacting the server when a call is rejected by a
+ * {@link Bulkhead}: its wait queue is full, or the call waited too long for a
+ * free slot.
+ *
+ * @since 0.6
+ */
+public class BulkheadFullException extends InvocationException {
+	private static final long serialVersionUID = 1L;
+
+	public BulkheadFullException(String message) {
+		super(message);
+	}
+}
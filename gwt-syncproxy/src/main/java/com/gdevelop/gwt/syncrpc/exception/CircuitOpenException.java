@@ -0,0 +1,45 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc.exception;
+
+import com.gdevelop.gwt.syncrpc.CircuitBreaker;
+import com.google.gwt.user.client.rpc.InvocationException;
+
+/**
+ * Thrown without contacting the server while the {@link CircuitBreaker} of the
+ * service endpoint is open.
+ *
+ * @since 0.6
+ */
+public class CircuitOpenException extends InvocationException {
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterMillis;
+
+	public CircuitOpenException(String url, long retryAfterMillis) {
+		super("Circuit open for " + url + ", retry after " + retryAfterMillis
+				+ "ms");
+		this.retryAfterMillis = retryAfterMillis;
+	}
+
+	/**
+	 * @return the time left before the circuit lets a probe request through,
+	 *         0 if probes are already in flight
+	 */
+	public long getRetryAfterMillis() {
+		return this.retryAfterMillis;
+	}
+}
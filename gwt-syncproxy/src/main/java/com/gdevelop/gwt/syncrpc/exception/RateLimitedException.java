@@ -0,0 +1,43 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc.exception;
+
+import com.gdevelop.gwt.syncrpc.RateLimiter;
+import com.google.gwt.user.client.rpc.InvocationException;
+
+/**
+ * Thrown without serializing nor sending the call when a {@link RateLimiter}
+ * has no permit available in time.
+ *
+ * @since 0.6
+ */
+public class RateLimitedException extends InvocationException {
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterMillis;
+
+	public RateLimitedException(String message, long retryAfterMillis) {
+		super(message + ", next permit in " + retryAfterMillis + "ms");
+		this.retryAfterMillis = retryAfterMillis;
+	}
+
+	/**
+	 * @return the time in milliseconds until a permit is available
+	 */
+	public long getRetryAfterMillis() {
+		return this.retryAfterMillis;
+	}
+}
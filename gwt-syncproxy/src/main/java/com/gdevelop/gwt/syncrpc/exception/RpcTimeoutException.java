@@ -0,0 +1,67 @@
+/*
+ * Copyright www.gdevelop.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.gdevelop.gwt.syncrpc.exception;
+
+import com.gdevelop.gwt.syncrpc.ProxySettings;
+import com.gdevelop.gwt.syncrpc.Timeout;
+import com.google.gwt.user.client.rpc.InvocationException;
+
+/**
+ * Thrown when a call exceeds one of its time budgets, see
+ * {@link ProxySettings} and {@link Timeout}.
+ *
+ * @since 0.6
+ */
+public class RpcTimeoutException extends InvocationException {
+	public enum Kind {
+		/**
+		 * The connection to the server was not established in time
+		 */
+		CONNECT,
+		/**
+		 * The server did not send data in time
+		 */
+		READ,
+		/**
+		 * The whole call did not complete in time
+		 */
+		DEADLINE
+	}
+
+	private static final long serialVersionUID = 1L;
+
+	private final Kind kind;
+	private final long timeoutMillis;
+
+	public RpcTimeoutException(Kind kind, long timeoutMillis, String url,
+			Throwable cause) {
+		super(kind + " timeout of " + timeoutMillis + "ms expired for " + url,
+				cause);
+		this.kind = kind;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public Kind getKind() {
+		return this.kind;
+	}
+
+	/**
+	 * @return the budget which expired, in milliseconds
+	 */
+	public long getTimeoutMillis() {
+		return this.timeoutMillis;
+	}
+}
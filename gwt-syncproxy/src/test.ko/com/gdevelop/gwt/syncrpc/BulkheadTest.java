@@ -0,0 +1,158 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.gdevelop.gwt.syncrpc.exception.BulkheadFullException;
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException;
+import com.google.gwt.user.client.rpc.RemoteService;
+import com.google.gwt.user.client.rpc.StatusCodeException;
+
+/**
+ * @since 0.6
+ */
+public class BulkheadTest extends TestCase {
+	interface PingService extends RemoteService {
+		String ping();
+	}
+
+	public void testRejectsWhenQueueFull() throws InterruptedException {
+		Bulkhead bulkhead = new Bulkhead("full", new BulkheadPolicy()
+				.setMaxConcurrent(1).setMaxQueue(0));
+		bulkhead.acquire(1000);
+		try {
+			bulkhead.acquire(1000);
+			fail("Queue is full");
+		} catch (BulkheadFullException e) {
+			// Expected
+		}
+		assertEquals(1, bulkhead.getRejectedCount());
+		bulkhead.release(null);
+		bulkhead.acquire(1000);
+		assertEquals(1, bulkhead.getInFlight());
+	}
+
+	public void testRejectsAfterMaxWait() throws InterruptedException {
+		Bulkhead bulkhead = new Bulkhead("wait", new BulkheadPolicy()
+				.setMaxConcurrent(1).setMaxWait(30));
+		bulkhead.acquire(1000);
+		long start = System.nanoTime();
+		try {
+			bulkhead.acquire(1000);
+			fail("No slot freed");
+		} catch (BulkheadFullException e) {
+			// Expected
+		}
+		assertTrue((System.nanoTime() - start) / 1000000 >= 25);
+		assertEquals(0, bulkhead.getQueued());
+	}
+
+	public void testRejectsOldestWaiter() throws InterruptedException {
+		final Bulkhead bulkhead = new Bulkhead("oldest", new BulkheadPolicy()
+				.setMaxConcurrent(1).setMaxQueue(1)
+				.setRejection(BulkheadPolicy.Rejection.REJECT_OLDEST));
+		bulkhead.acquire(1000);
+		final AtomicInteger rejected = new AtomicInteger();
+		Thread oldest = new Thread() {
+			@Override
+			public void run() {
+				try {
+					bulkhead.acquire(5000);
+					bulkhead.release(null);
+				} catch (BulkheadFullException e) {
+					rejected.incrementAndGet();
+				} catch (InterruptedException e) {
+					// Ends the test thread
+				}
+			}
+		};
+		oldest.start();
+		while (bulkhead.getQueued() == 0) {
+			Thread.sleep(5);
+		}
+		Thread newest = new Thread() {
+			@Override
+			public void run() {
+				try {
+					bulkhead.acquire(5000);
+					bulkhead.release(null);
+				} catch (Exception e) {
+					rejected.addAndGet(100);
+				}
+			}
+		};
+		newest.start();
+		oldest.join(2000);
+		assertEquals(1, rejected.get());
+		bulkhead.release(null);
+		newest.join(2000);
+		assertEquals(1, rejected.get());
+		assertEquals(0, bulkhead.getInFlight());
+	}
+
+	public void testAdaptiveLimit() throws InterruptedException {
+		Bulkhead bulkhead = new Bulkhead("aimd", new BulkheadPolicy()
+				.setMaxConcurrent(4).setMinConcurrent(1).setAdaptive(true)
+				.setBackoffRatio(0.5));
+		assertEquals(4, bulkhead.getLimit());
+		bulkhead.acquire(1000);
+		bulkhead.release(new RpcTimeoutException(
+				RpcTimeoutException.Kind.READ, 10, "url", null));
+		assertEquals(2, bulkhead.getLimit());
+		bulkhead.acquire(1000);
+		bulkhead.release(new StatusCodeException(429, "slow down"));
+		assertEquals(1, bulkhead.getLimit());
+		bulkhead.acquire(1000);
+		bulkhead.release(new StatusCodeException(503, "down"));
+		assertEquals(1, bulkhead.getLimit());
+
+		// Saturated successes grow the limit by one per limit of calls
+		bulkhead.acquire(1000);
+		bulkhead.release(null);
+		assertEquals(2, bulkhead.getLimit());
+		bulkhead.acquire(1000);
+		bulkhead.acquire(1000);
+		bulkhead.release(null);
+		assertEquals(2, bulkhead.getLimit());
+		// Not saturated anymore
+		bulkhead.release(null);
+		assertEquals(2, bulkhead.getLimit());
+	}
+
+	public void testLimitsRequestsInFlight() throws IOException,
+			InterruptedException {
+		TestRpcServer server = new TestRpcServer();
+		try {
+			server.setDefaultReply(new TestRpcServer.Reply(200, TestRpcServer
+					.okString("ok"), 50));
+			final PingService service = TestRpcServer.createService(
+					PingService.class, server.createSettings()
+							.setBulkheadPolicy(
+									new BulkheadPolicy().setMaxConcurrent(2)
+											.setPerEndpoint(false)));
+			final AtomicInteger successes = new AtomicInteger();
+			Thread[] threads = new Thread[6];
+			for (int i = 0; i < threads.length; i++) {
+				threads[i] = new Thread() {
+					@Override
+					public void run() {
+						if ("ok".equals(service.ping())) {
+							successes.incrementAndGet();
+						}
+					}
+				};
+				threads[i].start();
+			}
+			for (Thread thread : threads) {
+				thread.join(5000);
+			}
+			assertEquals(6, successes.get());
+			assertEquals(6, server.getRequestCount());
+			assertTrue(server.getMaxInFlight() <= 2);
+		} finally {
+			server.stop();
+		}
+	}
+}
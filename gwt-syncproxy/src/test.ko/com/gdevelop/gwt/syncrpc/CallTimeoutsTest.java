@@ -0,0 +1,109 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.InetSocketAddress;
+
+import junit.framework.TestCase;
+
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException;
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException.Kind;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @since 0.6
+ */
+public class CallTimeoutsTest extends TestCase {
+	@Timeout(read = 200)
+	interface TimedService {
+		@Timeout(deadline = 500)
+		void annotated();
+
+		void inherited();
+	}
+
+	interface TimedServiceAsync {
+		@Timeout(connect = 100, deadline = 300)
+		void annotated();
+	}
+
+	public void testAnnotationOverridesSettings() throws Exception {
+		ProxySettings settings = new ProxySettings().setConnectTimeout(1000)
+				.setReadTimeout(2000).setDeadline(3000);
+
+		CallTimeouts timeouts = CallTimeouts.of(settings, System.nanoTime(),
+				TimedService.class.getMethod("annotated"));
+		assertEquals(1000, timeouts.connectTimeout);
+		assertEquals(200, timeouts.readTimeout);
+		assertEquals(500, timeouts.deadline);
+
+		timeouts = CallTimeouts.of(settings, System.nanoTime(),
+				TimedService.class.getMethod("inherited"));
+		assertEquals(200, timeouts.readTimeout);
+		assertEquals(3000, timeouts.deadline);
+
+		// The invoked asynchronous method comes first
+		timeouts = CallTimeouts.of(settings, System.nanoTime(),
+				TimedServiceAsync.class.getMethod("annotated"),
+				TimedService.class.getMethod("annotated"));
+		assertEquals(100, timeouts.connectTimeout);
+		assertEquals(200, timeouts.readTimeout);
+		assertEquals(300, timeouts.deadline);
+	}
+
+	public void testBoundedByDeadline() {
+		CallTimeouts timeouts = new CallTimeouts(0, 5000, 100,
+				System.nanoTime());
+		long remaining = timeouts.getRemainingMillis();
+		assertTrue(remaining <= 100);
+		assertTrue(timeouts.getConnectTimeout(remaining) <= 100);
+		assertTrue(timeouts.getReadTimeout(remaining) <= 100);
+		assertEquals(Long.MAX_VALUE, CallTimeouts.NONE.getRemainingMillis());
+		assertEquals(0, CallTimeouts.NONE.getReadTimeout(Long.MAX_VALUE));
+	}
+
+	public void testStalledServer() throws Throwable {
+		HttpServer server = HttpServer.create(new InetSocketAddress(
+				"localhost", 0), 0);
+		server.createContext("/module/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					Thread.sleep(2000);
+				} catch (InterruptedException e) {
+					// Ignore
+				}
+				exchange.close();
+			}
+		});
+		server.start();
+		try {
+			RemoteServiceSyncProxy proxy = new RemoteServiceSyncProxy(
+					"http://localhost:" + server.getAddress().getPort()
+							+ "/module/", "service", null, new CookieManager(),
+					null, null);
+			proxy.setTimeouts(new CallTimeouts(0, 100, 0, System.nanoTime()));
+			try {
+				proxy.doInvoke(null, "payload");
+				fail("Read timeout expected");
+			} catch (RpcTimeoutException e) {
+				assertEquals(Kind.READ, e.getKind());
+				assertEquals(100, e.getTimeoutMillis());
+			}
+
+			long start = System.nanoTime();
+			proxy.setTimeouts(new CallTimeouts(0, 0, 150, start));
+			try {
+				proxy.doInvoke(null, "payload");
+				fail("Deadline expected");
+			} catch (RpcTimeoutException e) {
+				assertEquals(Kind.DEADLINE, e.getKind());
+				assertTrue((System.nanoTime() - start) / 1000000 < 1000);
+			}
+		} finally {
+			server.stop(0);
+		}
+	}
+}
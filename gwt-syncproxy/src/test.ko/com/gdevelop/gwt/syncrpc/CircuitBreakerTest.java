@@ -0,0 +1,124 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import com.gdevelop.gwt.syncrpc.CircuitBreaker.State;
+import com.gdevelop.gwt.syncrpc.exception.CircuitOpenException;
+import com.google.gwt.user.client.rpc.RemoteService;
+import com.google.gwt.user.client.rpc.StatusCodeException;
+
+/**
+ * @since 0.6
+ */
+public class CircuitBreakerTest extends TestCase {
+	interface PingService extends RemoteService {
+		String ping();
+	}
+
+	public void testFailureRate() {
+		CircuitBreaker breaker = new CircuitBreaker("rate",
+				new CircuitBreakerPolicy().setConsecutiveFailures(0)
+						.setWindowSize(10).setMinimumCalls(4)
+						.setFailureRate(0.5));
+		breaker.onFailure(breaker.acquire());
+		breaker.onSuccess(breaker.acquire());
+		breaker.onFailure(breaker.acquire());
+		assertEquals(State.CLOSED, breaker.getState());
+		breaker.onSuccess(breaker.acquire());
+		// 2 failures out of 4 calls
+		assertEquals(State.CLOSED, breaker.getState());
+		breaker.onFailure(breaker.acquire());
+		assertEquals(State.OPEN, breaker.getState());
+	}
+
+	public void testHalfOpenProbing() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker("probe",
+				new CircuitBreakerPolicy().setConsecutiveFailures(2)
+						.setOpenDuration(50));
+		breaker.onFailure(breaker.acquire());
+		breaker.onFailure(breaker.acquire());
+		assertEquals(State.OPEN, breaker.getState());
+		try {
+			breaker.acquire();
+			fail("Circuit should be open");
+		} catch (CircuitOpenException e) {
+			assertTrue(e.getRetryAfterMillis() > 0);
+		}
+
+		Thread.sleep(60);
+		boolean probe = breaker.acquire();
+		assertTrue(probe);
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		try {
+			breaker.acquire();
+			fail("Only one probe allowed");
+		} catch (CircuitOpenException e) {
+			assertEquals(0, e.getRetryAfterMillis());
+		}
+		breaker.onFailure(probe);
+		assertEquals(State.OPEN, breaker.getState());
+
+		Thread.sleep(60);
+		breaker.onSuccess(breaker.acquire());
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	public void testSlowCallsCompletingWhileHalfOpen()
+			throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker("slow",
+				new CircuitBreakerPolicy().setConsecutiveFailures(1)
+						.setOpenDuration(50));
+		// Let through before the circuit opens
+		boolean slowSuccess = breaker.acquire();
+		boolean slowFailure = breaker.acquire();
+		assertFalse(slowSuccess);
+		breaker.onFailure(breaker.acquire());
+		assertEquals(State.OPEN, breaker.getState());
+
+		Thread.sleep(60);
+		boolean probe = breaker.acquire();
+		assertTrue(probe);
+		breaker.onSuccess(slowSuccess);
+		breaker.onFailure(slowFailure);
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		try {
+			breaker.acquire();
+			fail("Only one probe allowed");
+		} catch (CircuitOpenException e) {
+			assertEquals(0, e.getRetryAfterMillis());
+		}
+		breaker.onSuccess(probe);
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	public void testFailsFastWhileOpen() throws IOException {
+		TestRpcServer server = new TestRpcServer();
+		try {
+			PingService service = TestRpcServer.createService(
+					PingService.class, server.createSettings()
+							.setCircuitBreakerPolicy(
+									new CircuitBreakerPolicy()
+											.setConsecutiveFailures(2)));
+			server.enqueue(503, "down").enqueue(500, "down");
+			for (int i = 0; i < 2; i++) {
+				try {
+					service.ping();
+					fail("Server error expected");
+				} catch (StatusCodeException e) {
+					// Expected
+				}
+			}
+			try {
+				service.ping();
+				fail("Circuit should be open");
+			} catch (CircuitOpenException e) {
+				// Expected
+			}
+			assertEquals(2, server.getRequestCount());
+		} finally {
+			server.stop();
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException;
+import com.google.gwt.user.client.rpc.RemoteService;
+
+/**
+ * @since 0.6
+ */
+public class CoalesceTest extends TestCase {
+	interface PingService extends RemoteService {
+		@Coalesce
+		String copied();
+
+		@Coalesce(Coalesce.Sharing.SHARE)
+		String shared();
+
+		String single();
+	}
+
+	private TestRpcServer server;
+	private PingService service;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.server = new TestRpcServer();
+		this.server.setDefaultReply(new TestRpcServer.Reply(200,
+				TestRpcServer.okString("ok"), 200));
+		this.service = TestRpcServer.createService(
+				PingService.class, this.server.createSettings());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		this.server.stop();
+	}
+
+	public void testCopiesResult() throws InterruptedException {
+		String[] results = callConcurrently("copied", 4);
+		assertEquals(1, this.server.getRequestCount());
+		for (String result : results) {
+			assertEquals("ok", result);
+		}
+		assertNotSame(results[0], results[1]);
+	}
+
+	public void testSharesResult() throws InterruptedException {
+		String[] results = callConcurrently("shared", 4);
+		assertEquals(1, this.server.getRequestCount());
+		for (String result : results) {
+			assertSame(results[0], result);
+		}
+	}
+
+	public void testNotCoalescedByDefault() throws InterruptedException {
+		callConcurrently("single", 3);
+		assertEquals(3, this.server.getRequestCount());
+	}
+
+	public void testSequentialCallsNotCoalesced() throws IOException {
+		this.server.setDefaultReply(new TestRpcServer.Reply(200,
+				TestRpcServer.okString("ok"), 0));
+		this.service.copied();
+		this.service.copied();
+		assertEquals(2, this.server.getRequestCount());
+	}
+
+	public void testFollowerBoundedByItsDeadline() throws InterruptedException {
+		this.server.setDefaultReply(new TestRpcServer.Reply(200,
+				TestRpcServer.okString("ok"), 2000));
+		ProxySettings settings = this.server.createSettings();
+		// Same session, so that the calls are coalesced
+		final PingService leader = TestRpcServer.createService(
+				PingService.class, settings);
+		PingService follower = TestRpcServer.createService(PingService.class,
+				this.server.createSettings()
+						.setCookieManager(settings.getCookieManager())
+						.setDeadline(200));
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				leader.copied();
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+		Thread.sleep(50);
+
+		long start = System.currentTimeMillis();
+		try {
+			follower.copied();
+			fail("RpcTimeoutException expected");
+		} catch (RpcTimeoutException e) {
+			assertEquals(RpcTimeoutException.Kind.DEADLINE, e.getKind());
+		}
+		assertTrue(System.currentTimeMillis() - start < 1000);
+		assertEquals(1, this.server.getRequestCount());
+	}
+
+	private String[] callConcurrently(final String methodName, int count)
+			throws InterruptedException {
+		final String[] results = new String[count];
+		Thread[] threads = new Thread[count];
+		for (int i = 0; i < count; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					if ("copied".equals(methodName)) {
+						results[index] = CoalesceTest.this.service.copied();
+					} else if ("shared".equals(methodName)) {
+						results[index] = CoalesceTest.this.service.shared();
+					} else {
+						results[index] = CoalesceTest.this.service.single();
+					}
+				}
+			};
+			threads[i].start();
+			// The followers start while the first call is in flight
+			Thread.sleep(i == 0 ? 50 : 0);
+		}
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+		return results;
+	}
+}
@@ -0,0 +1,90 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+
+import com.google.gwt.user.client.rpc.RemoteService;
+import com.google.gwt.user.client.rpc.StatusCodeException;
+
+/**
+ * @since 0.6
+ */
+public class FlightRecorderEventTest extends TestCase {
+	interface PingService extends RemoteService {
+		String ping();
+	}
+
+	public void testDisabledWithoutRecording() {
+		assertNull(FlightRecorderEvent.CALL.begin());
+	}
+
+	public void testRecordsCalls() throws IOException {
+		if (!FlightRecorderEvent.isAvailable()) {
+			return;
+		}
+		TestRpcServer server = new TestRpcServer();
+		Recording recording = new Recording();
+		File file = File.createTempFile("syncproxy", ".jfr");
+		try {
+			recording.enable(FlightRecorderEvent.CALL_NAME);
+			recording.enable(FlightRecorderEvent.SERIALIZATION_NAME);
+			recording.enable(FlightRecorderEvent.DESERIALIZATION_NAME);
+			recording.start();
+			PingService service = TestRpcServer.createService(
+					PingService.class, server.createSettings());
+			assertEquals("ok", service.ping());
+			server.enqueue(503, "down");
+			try {
+				service.ping();
+				fail("Server error expected");
+			} catch (StatusCodeException e) {
+				// Expected
+			}
+			recording.stop();
+			recording.dump(file.toPath());
+
+			Map<String, Integer> counts = new HashMap<String, Integer>();
+			int failed = 0;
+			for (RecordedEvent event : RecordingFile.readAllEvents(file
+					.toPath())) {
+				String name = event.getEventType().getName();
+				Integer count = counts.get(name);
+				counts.put(name, count == null ? 1 : count + 1);
+				assertEquals(PingService.class.getCanonicalName(),
+						event.getString("service"));
+				assertEquals("ping", event.getString("method"));
+				if (FlightRecorderEvent.CALL_NAME.equals(name)) {
+					assertTrue(event.getLong("requestBytes") > 0);
+					if (!"OK".equals(event.getString("outcome"))) {
+						assertEquals(StatusCodeException.class.getName(),
+								event.getString("outcome"));
+						failed++;
+					} else {
+						assertTrue(event.getLong("responseBytes") > 0);
+					}
+				} else if (FlightRecorderEvent.DESERIALIZATION_NAME
+						.equals(name)) {
+					assertEquals(1, event.getInt("stringTableSize"));
+				}
+			}
+			assertEquals(Integer.valueOf(2),
+					counts.get(FlightRecorderEvent.CALL_NAME));
+			assertEquals(Integer.valueOf(2),
+					counts.get(FlightRecorderEvent.SERIALIZATION_NAME));
+			assertEquals(Integer.valueOf(1),
+					counts.get(FlightRecorderEvent.DESERIALIZATION_NAME));
+			assertEquals(1, failed);
+		} finally {
+			recording.close();
+			file.delete();
+			server.stop();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import com.google.gwt.user.client.rpc.RemoteService;
+
+/**
+ * @since 0.6
+ */
+public class HedgingTest extends TestCase {
+	interface SlowService extends RemoteService {
+		@Idempotent
+		@Hedged(delay = 50, percentile = 0)
+		String get(String key);
+
+		@Hedged(delay = 50, percentile = 0)
+		String notIdempotent(String key);
+	}
+
+	public void testLatencyPercentile() {
+		LatencyTracker tracker = new LatencyTracker(100);
+		assertEquals(-1, tracker.getPercentile(50));
+		for (int i = 1; i <= 100; i++) {
+			tracker.record(i);
+		}
+		assertEquals(50, tracker.getPercentile(50));
+		assertEquals(95, tracker.getPercentile(95));
+		assertEquals(100, tracker.getPercentile(100));
+		// Oldest samples are replaced
+		for (int i = 0; i < 100; i++) {
+			tracker.record(1000);
+		}
+		assertEquals(1000, tracker.getPercentile(50));
+	}
+
+	public void testSlowRequestIsHedged() throws IOException {
+		TestRpcServer server = new TestRpcServer();
+		try {
+			SlowService service = TestRpcServer.createService(
+					SlowService.class, server.createSettings());
+			server.enqueue(new TestRpcServer.Reply(200, TestRpcServer
+					.okString("slow"), 2000));
+			long start = System.currentTimeMillis();
+			assertEquals("ok", service.get("a"));
+			assertTrue(System.currentTimeMillis() - start < 1500);
+			assertEquals(2, server.getRequestCount());
+			assertEquals(server.getPayloads().get(0), server.getPayloads()
+					.get(1));
+
+			server.enqueue(new TestRpcServer.Reply(200, TestRpcServer
+					.okString("slow"), 200));
+			assertEquals("slow", service.notIdempotent("a"));
+			assertEquals(3, server.getRequestCount());
+		} finally {
+			server.stop();
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.gwt.user.client.rpc.RemoteService;
+import com.google.gwt.user.client.rpc.StatusCodeException;
+
+/**
+ * @since 0.6
+ */
+public class InMemoryTracerTest extends TestCase {
+	interface PingService extends RemoteService {
+		String ping();
+	}
+
+	private TestRpcServer server;
+	private InMemoryTracer tracer;
+	private PingService service;
+
+	@Override
+	protected void setUp() throws IOException {
+		this.server = new TestRpcServer();
+		this.tracer = new InMemoryTracer();
+		this.service = TestRpcServer.createService(PingService.class,
+				this.server.createSettings().setTracer(this.tracer));
+	}
+
+	@Override
+	protected void tearDown() {
+		this.tracer.setParent(null);
+		this.server.stop();
+	}
+
+	public void testPropagatesTraceparent() {
+		InMemoryTracer.RecordedSpan root = this.tracer.startTrace("action");
+		this.service.ping();
+		this.server.enqueue(503, "down");
+		try {
+			this.service.ping();
+			fail("Server error expected");
+		} catch (StatusCodeException e) {
+			// Expected
+		}
+		root.end(null);
+		this.tracer.setParent(null);
+
+		List<InMemoryTracer.RecordedSpan> spans = this.tracer
+				.getSpans(root.getTraceId());
+		assertEquals(3, spans.size());
+		for (int i = 0; i < 2; i++) {
+			InMemoryTracer.RecordedSpan span = spans.get(i);
+			assertEquals(PingService.class.getCanonicalName() + "/ping",
+					span.getName());
+			assertEquals(root.getSpanId(), span.getParentSpanId());
+			assertEquals(span.getTraceparent(), this.server
+					.getRequestHeaders().get(i).getFirst("traceparent"));
+			assertEquals("ping", span.getAttribute("rpc.method"));
+			assertTrue((Long) span.getAttribute("rpc.request.size") > 0);
+			assertTrue(span.getDurationNanos() > 0);
+		}
+		assertEquals("OK", spans.get(0).getAttribute("rpc.status"));
+		assertNull(spans.get(0).getFailure());
+		assertEquals(503, spans.get(1).getAttribute("http.status_code"));
+		assertTrue(spans.get(1).getFailure() instanceof StatusCodeException);
+		assertSame(root, spans.get(2));
+	}
+
+	public void testStartsTraceWithoutParent() {
+		this.service.ping();
+		this.service.ping();
+		List<InMemoryTracer.RecordedSpan> spans = this.tracer.getSpans();
+		assertEquals(2, spans.size());
+		assertNull(spans.get(0).getParentSpanId());
+		assertFalse(spans.get(0).getTraceId().equals(
+				spans.get(1).getTraceId()));
+		assertTrue(spans.get(0).getTraceparent().matches(
+				"00-[0-9a-f]{32}-[0-9a-f]{16}-01"));
+	}
+}
@@ -0,0 +1,103 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.URI;
+
+import junit.framework.TestCase;
+
+import com.gdevelop.gwt.syncrpc.LoadBalancer.Endpoint;
+import com.gdevelop.gwt.syncrpc.LoadBalancer.Strategy;
+import com.google.gwt.user.client.rpc.RemoteService;
+import com.google.gwt.user.client.rpc.StatusCodeException;
+
+/**
+ * @since 0.6
+ */
+public class LoadBalancerTest extends TestCase {
+	interface PingService extends RemoteService {
+		String ping();
+	}
+
+	public void testEwmaPrefersFastEndpoint() {
+		LoadBalancer balancer = new LoadBalancer("http://a/", "http://b/")
+				.setStrategy(Strategy.EWMA);
+		Endpoint a = balancer.getEndpoints().get(0);
+		Endpoint b = balancer.getEndpoints().get(1);
+		balancer.onStart(a);
+		balancer.onEnd(a, 100, null);
+		balancer.onStart(b);
+		balancer.onEnd(b, 10, null);
+		for (int i = 0; i < 4; i++) {
+			assertSame(b, balancer.select(null));
+		}
+	}
+
+	public void testLeastInFlight() {
+		LoadBalancer balancer = new LoadBalancer("http://a/", "http://b/")
+				.setStrategy(Strategy.LEAST_IN_FLIGHT);
+		Endpoint a = balancer.getEndpoints().get(0);
+		balancer.onStart(a);
+		for (int i = 0; i < 4; i++) {
+			assertSame(balancer.getEndpoints().get(1), balancer.select(null));
+		}
+	}
+
+	public void testStickyCookie() {
+		LoadBalancer balancer = new LoadBalancer("http://a.example/app/",
+				"http://b.example/app/").setStickyCookieName("JSESSIONID");
+		CookieManager cookieManager = new CookieManager();
+		HttpCookie cookie = new HttpCookie("JSESSIONID", "1234");
+		cookie.setPath("/");
+		cookieManager.getCookieStore().add(URI.create("http://b.example/"),
+				cookie);
+		Endpoint b = balancer.getEndpoints().get(1);
+		for (int i = 0; i < 4; i++) {
+			assertSame(b, balancer.select(cookieManager));
+		}
+		// Failover when ejected
+		balancer.setEjectAfterFailures(1);
+		balancer.onStart(b);
+		balancer.onEnd(b, 0, new StatusCodeException(503, ""));
+		assertTrue(b.isEjected());
+		assertSame(balancer.getEndpoints().get(0),
+				balancer.select(cookieManager));
+	}
+
+	public void testRoundRobinAndEjection() throws IOException {
+		TestRpcServer first = new TestRpcServer();
+		TestRpcServer second = new TestRpcServer();
+		try {
+			LoadBalancer balancer = new LoadBalancer(
+					first.getModuleBaseURL(), second.getModuleBaseURL())
+					.setEjectAfterFailures(2);
+			PingService service = TestRpcServer.createService(
+					PingService.class, new ProxySettings()
+							.setLoadBalancer(balancer)
+							.setRemoteServiceRelativePath("service")
+							.setCookieManager(new CookieManager()));
+			for (int i = 0; i < 4; i++) {
+				assertEquals("ok", service.ping());
+			}
+			assertEquals(2, first.getRequestCount());
+			assertEquals(2, second.getRequestCount());
+
+			second.setDefaultReply(new TestRpcServer.Reply(503, "down", 0));
+			int failures = 0;
+			for (int i = 0; i < 8; i++) {
+				try {
+					service.ping();
+				} catch (StatusCodeException e) {
+					failures++;
+				}
+			}
+			assertEquals(2, failures);
+			assertTrue(balancer.getEndpoints().get(1).isEjected());
+			assertEquals(4, second.getRequestCount());
+		} finally {
+			first.stop();
+			second.stop();
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import com.google.gwt.user.client.rpc.RemoteService;
+import com.google.gwt.user.client.rpc.StatusCodeException;
+
+/**
+ * @since 0.6
+ */
+public class MetricsRegistryTest extends TestCase {
+	interface PingService extends RemoteService {
+		String ping();
+	}
+
+	public void testHistogramBuckets() {
+		for (int i = 0; i < 1216; i++) {
+			long lowest = LatencyHistogram.lowestValueOf(i);
+			assertEquals(i, LatencyHistogram.indexOf(lowest));
+			assertEquals(i, LatencyHistogram.indexOf(LatencyHistogram
+					.highestValueOf(i)));
+			if (i > 0) {
+				assertEquals(lowest - 1,
+						LatencyHistogram.highestValueOf(i - 1));
+			}
+		}
+	}
+
+	public void testHistogramPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 10000; i++) {
+			histogram.record(i);
+		}
+		assertEquals(10000, histogram.getCount());
+		assertEquals(10000, histogram.getMax());
+		assertEquals(5000.5, histogram.getMean(), 0.001);
+		assertEquals(5000, histogram.getValueAtPercentile(50), 5000 * 0.04);
+		assertEquals(9900, histogram.getValueAtPercentile(99), 9900 * 0.04);
+		assertEquals(10000, histogram.getValueAtPercentile(100));
+		histogram.record(Long.MAX_VALUE);
+		assertTrue(histogram.getMax() > 0);
+		histogram.reset();
+		assertEquals(0, histogram.getValueAtPercentile(99));
+	}
+
+	public void testRecordsCalls() throws IOException {
+		TestRpcServer server = new TestRpcServer();
+		try {
+			MetricsRegistry registry = new MetricsRegistry();
+			PingService service = TestRpcServer.createService(
+					PingService.class, server.createSettings()
+							.setMetricsListener(registry));
+			server.enqueue(503, "down");
+			try {
+				service.ping();
+				fail("Server error expected");
+			} catch (StatusCodeException e) {
+				// Expected
+			}
+			service.ping();
+			service.ping();
+			MetricsRegistry.MethodMetrics metrics = registry
+					.getMethodMetrics(PingService.class.getCanonicalName(),
+							"ping");
+			assertEquals(3, metrics.getCallCount());
+			assertEquals(1, metrics.getErrorCount());
+			assertEquals(Long.valueOf(1), metrics.getErrorsByType().get(
+					StatusCodeException.class.getName()));
+			assertTrue(metrics.getLatency().getValueAtPercentile(99) > 0);
+			assertEquals(1, registry.getAll().size());
+		} finally {
+			server.stop();
+		}
+	}
+
+	public void testRecordsPhases() throws IOException {
+		TestRpcServer server = new TestRpcServer();
+		try {
+			final CallMetrics[] last = new CallMetrics[1];
+			final MetricsRegistry registry = new MetricsRegistry();
+			PingService service = TestRpcServer.createService(
+					PingService.class, server.createSettings()
+							.setMetricsListener(new MetricsListener() {
+								@Override
+								public void onCallCompleted(CallMetrics call) {
+									last[0] = call;
+									registry.onCallCompleted(call);
+								}
+							}));
+			server.enqueue(new TestRpcServer.Reply(200, TestRpcServer
+					.okString("ok"), 50));
+			service.ping();
+			CallMetrics call = last[0];
+			assertEquals(1, call.getAttempts());
+			assertTrue(call.getPhase(CallMetrics.Phase.TIME_TO_FIRST_BYTE,
+					TimeUnit.MILLISECONDS) >= 45);
+			for (CallMetrics.Phase phase : new CallMetrics.Phase[] {
+					CallMetrics.Phase.SETUP, CallMetrics.Phase.SERIALIZATION,
+					CallMetrics.Phase.CONNECT, CallMetrics.Phase.REQUEST_WRITE,
+					CallMetrics.Phase.RESPONSE_READ,
+					CallMetrics.Phase.DESERIALIZATION }) {
+				assertTrue(phase.name(),
+						call.getPhase(phase, TimeUnit.NANOSECONDS) > 0);
+			}
+			assertEquals(0, call.getPhase(CallMetrics.Phase.CALLBACK,
+					TimeUnit.NANOSECONDS));
+			long phases = 0;
+			for (CallMetrics.Phase phase : CallMetrics.Phase.values()) {
+				phases += call.getPhase(phase, TimeUnit.NANOSECONDS);
+			}
+			assertTrue(phases <= call.getDuration(TimeUnit.NANOSECONDS));
+
+			MetricsRegistry.MethodMetrics metrics = registry
+					.getMethodMetrics(PingService.class.getCanonicalName(),
+							"ping");
+			assertEquals(1, metrics.getPhase(
+					CallMetrics.Phase.TIME_TO_FIRST_BYTE).getCount());
+			assertEquals(0, metrics.getPhase(CallMetrics.Phase.CALLBACK)
+					.getCount());
+		} finally {
+			server.stop();
+		}
+	}
+
+	public void testRecordsSizes() throws IOException {
+		TestRpcServer server = new TestRpcServer();
+		try {
+			final CallMetrics[] last = new CallMetrics[1];
+			final MetricsRegistry registry = new MetricsRegistry();
+			PingService service = TestRpcServer.createService(
+					PingService.class, server.createSettings()
+							.setMetricsListener(new MetricsListener() {
+								@Override
+								public void onCallCompleted(CallMetrics call) {
+									last[0] = call;
+									registry.onCallCompleted(call);
+								}
+							}));
+			String body = TestRpcServer.okString("\u00e9t\u00e9");
+			server.enqueue(200, body);
+			assertEquals("\u00e9t\u00e9", service.ping());
+			CallMetrics call = last[0];
+			assertEquals(server.getPayloads().get(0).getBytes("UTF-8").length,
+					call.getCount(CallMetrics.Counter.REQUEST_BYTES));
+			assertEquals(body.getBytes("UTF-8").length,
+					call.getCount(CallMetrics.Counter.RESPONSE_BYTES));
+			assertEquals(1,
+					call.getCount(CallMetrics.Counter.STRING_TABLE_SIZE));
+			// A returned String is read from the table, not instantiated
+			assertEquals(0, call.getCount(CallMetrics.Counter.OBJECTS));
+			assertTrue(call.getCount(CallMetrics.Counter.TOKENS) > 0);
+
+			service.ping();
+			MetricsRegistry.MethodMetrics metrics = registry
+					.getMethodMetrics(PingService.class.getCanonicalName(),
+							"ping");
+			assertEquals(2,
+					metrics.getCounter(CallMetrics.Counter.STRING_TABLE_SIZE)
+							.getSum());
+			assertEquals(2,
+					metrics.getCounter(CallMetrics.Counter.RESPONSE_BYTES)
+							.getCount());
+		} finally {
+			server.stop();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.gdevelop.gwt.syncrpc;
+
+import junit.framework.TestCase;
+
+import com.gdevelop.gwt.syncrpc.RemoteServiceSyncProxy.DummySerializationPolicy;
+import com.google.gwt.user.server.rpc.SerializationPolicy;
+
+/**
+ * @since 0.6
+ */
+public class PolicyCacheTest extends TestCase {
+
+	public void testEvictionAndCounters() {
+		PolicyCache cache = new PolicyCache(2);
+		SerializationPolicy a = new DummySerializationPolicy();
+		SerializationPolicy b = new DummySerializationPolicy();
+		SerializationPolicy c = new DummySerializationPolicy();
+		cache.put("a", a);
+		cache.put("b", b);
+		// Touch a so that b is the least recently used
+		assertSame(a, cache.get("a"));
+		cache.put("c", c);
+
+		assertEquals(2, cache.size());
+		assertNull(cache.get("b"));
+		assertSame(c, cache.get("c"));
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getEvictionCount());
+
+		cache.recordLoad(1000);
+		cache.recordLoad(500);
+		assertEquals(2, cache.getLoadCount());
+		assertEquals(1500, cache.getTotalLoadTime());
+	}
+
+	public void testPeekIsNotCounted() {
+		PolicyCache cache = new PolicyCache();
+		SerializationPolicy a = new DummySerializationPolicy();
+		cache.put("a", a);
+
+		assertSame(a, cache.peek("a"));
+		assertNull(cache.peek("b"));
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	public void testShrinkingEvictsRightAway() {
+		PolicyCache cache = new PolicyCache(3);
+		SerializationPolicy a = new DummySerializationPolicy();
+		cache.put("a", a);
+		cache.put("b", new DummySerializationPolicy());
+		cache.put("c", new DummySerializationPolicy());
+		// Touch a so that b and c are the least recently used
+		assertSame(a, cache.get("a"));
+		cache.setMaxEntries(1);
+
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getEvictionCount());
+		assertSame(a, cache.get("a"));
+	}
+}
@@ -0,0 +1,89 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @since 0.6
+ */
+public class PolicyWatcherTest extends TestCase {
+	private volatile String noCacheJs = "var a='v1';";
+	private int notModifiedCount;
+	private HttpServer server;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0),
+				0);
+		this.server.createContext("/module/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String body = exchange.getRequestURI().getPath()
+						.endsWith(".nocache.js") ? PolicyWatcherTest.this.noCacheJs
+						: "";
+				String etag = "\"" + body.hashCode() + "\"";
+				exchange.getResponseHeaders().set("ETag", etag);
+				if (etag.equals(exchange.getRequestHeaders().getFirst(
+						"If-None-Match"))) {
+					PolicyWatcherTest.this.notModifiedCount++;
+					exchange.sendResponseHeaders(304, -1);
+				} else {
+					byte[] bytes = body.getBytes("UTF-8");
+					exchange.sendResponseHeaders(200, bytes.length);
+					OutputStream os = exchange.getResponseBody();
+					os.write(bytes);
+					os.close();
+				}
+				exchange.close();
+			}
+		});
+		this.server.start();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		this.server.stop(0);
+	}
+
+	public void testCheckDetectsChange() throws IOException {
+		PolicyWatcher watcher = new PolicyWatcher("http://localhost:"
+				+ this.server.getAddress().getPort() + "/module/", null, 1000);
+		// First check only records the validators
+		assertFalse(watcher.check());
+		assertFalse(watcher.check());
+		assertEquals(2, this.notModifiedCount);
+
+		this.noCacheJs = "var a='v2';";
+		assertTrue(watcher.check());
+		assertEquals(1, watcher.getRefreshCount());
+		assertEquals(3, watcher.getCheckCount());
+	}
+
+	public void testSupersededPolicies() {
+		Map<String, String> policies = new HashMap<String, String>();
+		policies.put("test.WatchedService", "P1");
+		PolicyWatcher.updatePolicyMap(policies);
+		policies.put("test.WatchedService", "P2");
+		assertEquals(1, PolicyWatcher.updatePolicyMap(policies));
+		policies.put("test.WatchedService", "P3");
+		PolicyWatcher.updatePolicyMap(policies);
+		assertEquals("P3", PolicyWatcher.getCurrentPolicyName("P1"));
+		assertEquals("P3", PolicyWatcher.getCurrentPolicyName("P3"));
+
+		// Rollback
+		policies.put("test.WatchedService", "P1");
+		PolicyWatcher.updatePolicyMap(policies);
+		assertEquals("P1", PolicyWatcher.getCurrentPolicyName("P2"));
+		assertEquals("P1", PolicyWatcher.getCurrentPolicyName("P1"));
+		SyncProxy.POLICY_MAP.remove("test.WatchedService");
+	}
+}
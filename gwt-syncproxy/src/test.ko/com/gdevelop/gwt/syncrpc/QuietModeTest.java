@@ -0,0 +1,67 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import junit.framework.TestCase;
+
+import com.google.gwt.user.client.rpc.RemoteService;
+
+/**
+ * @since 0.6
+ */
+public class QuietModeTest extends TestCase {
+	interface PingService extends RemoteService {
+		String ping();
+	}
+
+	public void testQuietCallsDoNotLog() throws IOException {
+		final List<LogRecord> records = new ArrayList<LogRecord>();
+		Handler handler = new Handler() {
+			@Override
+			public void close() {
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void publish(LogRecord record) {
+				records.add(record);
+			}
+		};
+		Logger logger = Logger.getLogger(RemoteServiceSyncProxy.class
+				.getName());
+		Level level = SyncProxy.level;
+		TestRpcServer server = new TestRpcServer();
+		logger.addHandler(handler);
+		try {
+			SyncProxy.level = Level.ALL;
+			PingService service = TestRpcServer.createService(
+					PingService.class, server.createSettings());
+			SyncProxy.setQuiet(false);
+			service.ping();
+			assertFalse(records.isEmpty());
+
+			records.clear();
+			SyncProxy.setQuiet(true);
+			assertEquals(Level.OFF, logger.getLevel());
+			assertEquals("ok", service.ping());
+			assertTrue(records.isEmpty());
+
+			SyncProxy.setQuiet(false);
+			assertEquals(Level.ALL, logger.getLevel());
+		} finally {
+			SyncProxy.level = level;
+			SyncProxy.setQuiet(false);
+			logger.removeHandler(handler);
+			server.stop();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import com.gdevelop.gwt.syncrpc.exception.RateLimitedException;
+import com.google.gwt.user.client.rpc.RemoteService;
+
+/**
+ * @since 0.6
+ */
+public class RateLimiterTest extends TestCase {
+	interface PingService extends RemoteService {
+		@RateLimit(permitsPerSecond = 1, burst = 2, mode = RateLimiter.Mode.FAIL_FAST)
+		String ping();
+
+		String pong();
+
+		@RateLimit(permitsPerSecond = 0.01, burst = 1, maxWait = 100)
+		String limited();
+	}
+
+	public void testBurstThenFailFast() {
+		RateLimiter limiter = new RateLimiter(1, 2)
+				.setMode(RateLimiter.Mode.FAIL_FAST);
+		assertEquals(0, limiter.reserve(1000));
+		assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+		try {
+			limiter.reserve(1000);
+			fail("No permit left");
+		} catch (RateLimitedException e) {
+			assertTrue(e.getRetryAfterMillis() > 0);
+			assertTrue(e.getRetryAfterMillis() <= 1000);
+		}
+	}
+
+	public void testReservesAhead() {
+		RateLimiter limiter = new RateLimiter(10, 1)
+				.setMode(RateLimiter.Mode.DELAY);
+		assertEquals(0, limiter.reserve(1000));
+		long first = limiter.reserve(1000);
+		long second = limiter.reserve(1000);
+		assertTrue(first > 0 && first <= 100);
+		assertTrue(second > first && second <= 200);
+		try {
+			limiter.reserve(150);
+			fail("Wait above the bound");
+		} catch (RateLimitedException e) {
+			// Expected, no permit taken
+		}
+		assertTrue(limiter.reserve(1000) <= 300);
+	}
+
+	public void testBlocks() throws InterruptedException {
+		RateLimiter limiter = new RateLimiter(20, 1);
+		limiter.acquire(1000);
+		long start = System.nanoTime();
+		limiter.acquire(1000);
+		assertTrue((System.nanoTime() - start) / 1000000 >= 40);
+	}
+
+	public void testMethodLimitAppliedBeforeSending() throws IOException {
+		TestRpcServer server = new TestRpcServer();
+		try {
+			PingService service = TestRpcServer.createService(
+					PingService.class, server.createSettings());
+			assertEquals("ok", service.ping());
+			assertEquals("ok", service.ping());
+			try {
+				service.ping();
+				fail("Rate exceeded");
+			} catch (RateLimitedException e) {
+				// Expected
+			}
+			// Other methods are not limited
+			assertEquals("ok", service.pong());
+			assertEquals(3, server.getRequestCount());
+		} finally {
+			server.stop();
+		}
+	}
+
+	public void testPermitReleasedWhenProxyLimitRejects() throws IOException {
+		TestRpcServer server = new TestRpcServer();
+		try {
+			RateLimiter proxyLimiter = new RateLimiter(0.01, 1)
+					.setMode(RateLimiter.Mode.FAIL_FAST);
+			assertTrue(proxyLimiter.tryAcquire());
+			ProxySettings settings = server.createSettings().setRateLimiter(
+					proxyLimiter);
+			PingService service = TestRpcServer.createService(
+					PingService.class, settings);
+			try {
+				service.limited();
+				fail("Proxy rate exceeded");
+			} catch (RateLimitedException e) {
+				// Expected
+			}
+			// The permit of the method limiter was given back
+			settings.setRateLimiter(null);
+			assertEquals("ok", service.limited());
+			assertEquals(1, server.getRequestCount());
+		} finally {
+			server.stop();
+		}
+	}
+}
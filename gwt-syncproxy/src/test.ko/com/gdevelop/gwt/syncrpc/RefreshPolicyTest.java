@@ -0,0 +1,183 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException;
+import com.google.gwt.user.client.rpc.IncompatibleRemoteServiceException;
+import com.google.gwt.user.client.rpc.InvocationException;
+import com.google.gwt.user.client.rpc.RemoteService;
+import com.google.gwt.user.server.rpc.impl.TypeNameObfuscator;
+
+/**
+ * @since 0.6
+ */
+public class RefreshPolicyTest extends TestCase {
+	interface PingService extends RemoteService {
+		String ping();
+	}
+
+	private static final String SERVICE = PingService.class.getCanonicalName();
+	private static final String PERMUTATION = "0123456789ABCDEF0123456789ABCDEF";
+	private static final String STALE_POLICY = "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	private static final String NEW_POLICY = "BBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBB";
+	private static final String INCOMPATIBLE = IncompatibleRemoteServiceException.class
+			.getName() + "/3936916533";
+
+	private TestRpcServer server;
+	private ProxySettings settings;
+	private PingService service;
+
+	@Override
+	protected void setUp() throws IOException {
+		SyncProxy.POLICY_MAP.remove(SERVICE);
+		this.server = new TestRpcServer();
+		this.server
+				.setResource(
+						"module.nocache.js",
+						new TestRpcServer.Reply(200, "var p='" + PERMUTATION
+								+ "';", 200))
+				.setResource(PERMUTATION + ".cache.html",
+						"'" + PERMUTATION + "','" + NEW_POLICY + "'")
+				.setResource(STALE_POLICY + ".gwt.rpc", policy())
+				.setResource(NEW_POLICY + ".gwt.rpc", policy());
+		this.settings = this.server.createSettings().setPolicyName(
+				STALE_POLICY);
+		this.service = TestRpcServer.createService(
+				PingService.class, this.settings);
+	}
+
+	@Override
+	protected void tearDown() {
+		SyncProxy.POLICY_MAP.remove(SERVICE);
+		this.server.stop();
+	}
+
+	public void testRetriesOnceWithNewPolicy() {
+		this.server.enqueue(200, incompatible());
+
+		assertEquals("ok", this.service.ping());
+		assertEquals(2, this.server.getRequestCount());
+		assertTrue(this.server.getPayloads().get(0).contains(STALE_POLICY));
+		assertTrue(this.server.getPayloads().get(1).contains(NEW_POLICY));
+		assertEquals(NEW_POLICY, this.server.getRequestHeaders().get(1)
+				.getFirst("X-GWT-Permutation"));
+		assertEquals(NEW_POLICY, SyncProxy.POLICY_MAP.get(SERVICE));
+		assertEquals(NEW_POLICY, this.settings.getPolicyName());
+	}
+
+	public void testConcurrentCallsShareDiscovery()
+			throws InterruptedException {
+		this.server.enqueue(new TestRpcServer.Reply(200, incompatible(), 100));
+		this.server.enqueue(new TestRpcServer.Reply(200, incompatible(), 100));
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicInteger successes = new AtomicInteger();
+		Thread[] threads = new Thread[2];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					if ("ok".equals(RefreshPolicyTest.this.service.ping())) {
+						successes.incrementAndGet();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+
+		assertEquals(2, successes.get());
+		assertEquals(4, this.server.getRequestCount());
+		assertEquals(1, this.server.getResourceRequestCount("module.nocache.js"));
+		assertEquals(NEW_POLICY, SyncProxy.POLICY_MAP.get(SERVICE));
+	}
+
+	public void testDoesNotRetryTwice() {
+		this.server.enqueue(200, incompatible());
+		this.server.enqueue(200, incompatible());
+
+		try {
+			this.service.ping();
+			fail("IncompatibleRemoteServiceException expected");
+		} catch (IncompatibleRemoteServiceException e) {
+			// Expected
+		}
+		assertEquals(2, this.server.getRequestCount());
+		assertEquals(1, this.server.getResourceRequestCount("module.nocache.js"));
+	}
+
+	public void testPolicyLoadingBoundedByDeadline() {
+		this.server.setResource(STALE_POLICY + ".gwt.rpc",
+				new TestRpcServer.Reply(200, policy(), 3000));
+		this.settings.setDeadline(200);
+
+		long start = System.currentTimeMillis();
+		try {
+			this.service.ping();
+			fail("InvocationException expected");
+		} catch (InvocationException e) {
+			// Expected
+		}
+		assertTrue(System.currentTimeMillis() - start < 2000);
+		assertEquals(0, this.server.getRequestCount());
+	}
+
+	public void testJoinedPolicyLoadingBoundedByDeadline()
+			throws InterruptedException {
+		this.server.setResource(STALE_POLICY + ".gwt.rpc",
+				new TestRpcServer.Reply(200, policy(), 3000));
+		// Loading without deadline, as a PolicyWatcher does
+		Thread loader = new Thread() {
+			@Override
+			public void run() {
+				try {
+					RpcPolicyFinder.getSerializationPolicy(
+							RefreshPolicyTest.this.server.getModuleBaseURL(),
+							STALE_POLICY, null);
+				} catch (IOException e) {
+					// Stopped server
+				}
+			}
+		};
+		loader.setDaemon(true);
+		loader.start();
+		Thread.sleep(100);
+		this.settings.setDeadline(200);
+
+		long start = System.currentTimeMillis();
+		try {
+			this.service.ping();
+			fail("RpcTimeoutException expected");
+		} catch (RpcTimeoutException e) {
+			// Expected
+		}
+		assertTrue(System.currentTimeMillis() - start < 2000);
+		assertEquals(1, this.server.getResourceRequestCount(STALE_POLICY
+				+ ".gwt.rpc"));
+	}
+
+	/**
+	 * @return the //EX response of a server which doesn't know the policy
+	 */
+	private static String incompatible() {
+		return "//EX[1,[\"" + INCOMPATIBLE + "\"],0,7]";
+	}
+
+	private static String policy() {
+		return IncompatibleRemoteServiceException.class.getName()
+				+ ", true, true, true, true, " + INCOMPATIBLE + ", 3936916533\n"
+				+ SERVICE + ", false, false, false, false, "
+				+ TypeNameObfuscator.SERVICE_INTERFACE_ID + ", 1\n";
+	}
+}
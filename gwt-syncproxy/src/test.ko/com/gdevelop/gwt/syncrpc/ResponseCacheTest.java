@@ -0,0 +1,101 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import com.google.gwt.user.client.rpc.RemoteService;
+
+/**
+ * @since 0.6
+ */
+public class ResponseCacheTest extends TestCase {
+	interface CatalogService extends RemoteService {
+		@Cached(ttl = 0)
+		String getCountry(String code);
+
+		@Cached(ttl = 0, storage = ResponseCache.Storage.OBJECT)
+		String getCurrency(String code);
+
+		String getPrice(String code);
+	}
+
+	public void testLruEviction() {
+		ResponseCache cache = new ResponseCache(2, 0, 0,
+				ResponseCache.Eviction.LRU);
+		cache.put("a", "A", 1);
+		cache.put("b", "B", 1);
+		assertNotNull(cache.lookup("a"));
+		cache.put("c", "C", 1);
+		assertNull(cache.lookup("b"));
+		assertEquals("A", cache.lookup("a").value);
+		assertEquals("C", cache.lookup("c").value);
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	public void testLfuEviction() {
+		ResponseCache cache = new ResponseCache(2, 0, 0,
+				ResponseCache.Eviction.LFU);
+		cache.put("a", "A", 1);
+		cache.put("b", "B", 1);
+		cache.lookup("a");
+		cache.lookup("a");
+		cache.lookup("b");
+		// a is the least recently used, but the most frequently used
+		cache.lookup("b");
+		cache.lookup("b");
+		cache.lookup("a");
+		cache.lookup("a");
+		cache.put("c", "C", 1);
+		assertNull(cache.lookup("b"));
+		assertNotNull(cache.lookup("a"));
+	}
+
+	public void testTtl() throws InterruptedException {
+		ResponseCache cache = new ResponseCache(10, 0, 30,
+				ResponseCache.Eviction.LRU);
+		cache.put("a", null, 1);
+		assertNotNull(cache.lookup("a"));
+		assertNull(cache.lookup("a").value);
+		Thread.sleep(40);
+		assertNull(cache.lookup("a"));
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+	}
+
+	public void testMaxWeight() {
+		ResponseCache cache = new ResponseCache(10, 10, 0,
+				ResponseCache.Eviction.LRU);
+		cache.put("a", "A", 4);
+		cache.put("b", "B", 4);
+		cache.put("c", "C", 4);
+		assertEquals(2, cache.size());
+		assertEquals(8, cache.getWeight());
+		assertNull(cache.lookup("a"));
+		cache.put("d", "D", 11);
+		assertNull(cache.lookup("d"));
+	}
+
+	public void testCachedMethod() throws IOException {
+		TestRpcServer server = new TestRpcServer();
+		try {
+			CatalogService service = TestRpcServer.createService(
+					CatalogService.class, server.createSettings());
+			assertEquals("ok", service.getCountry("fr"));
+			assertEquals("ok", service.getCountry("fr"));
+			assertEquals(1, server.getRequestCount());
+			assertEquals("ok", service.getCountry("de"));
+			assertEquals(2, server.getRequestCount());
+			// Each hit decodes its own copy
+			assertNotSame(service.getCountry("de"), service.getCountry("de"));
+			assertEquals(2, server.getRequestCount());
+			assertSame(service.getCurrency("fr"), service.getCurrency("fr"));
+			assertEquals(3, server.getRequestCount());
+			service.getPrice("fr");
+			service.getPrice("fr");
+			assertEquals(5, server.getRequestCount());
+		} finally {
+			server.stop();
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.net.ConnectException;
+
+import junit.framework.TestCase;
+
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException;
+import com.gdevelop.gwt.syncrpc.exception.RpcTimeoutException.Kind;
+import com.google.gwt.user.client.rpc.InvocationException;
+import com.google.gwt.user.client.rpc.RemoteService;
+import com.google.gwt.user.client.rpc.StatusCodeException;
+
+/**
+ * @since 0.6
+ */
+public class RetryPolicyTest extends TestCase {
+	interface EchoService extends RemoteService {
+		@Idempotent
+		String get(String key);
+
+		String put(String key);
+	}
+
+	private static EchoService createService(ProxySettings settings) {
+		return TestRpcServer.createService(EchoService.class, settings);
+	}
+
+	public void testBackoff() {
+		RetryPolicy policy = new RetryPolicy().setInitialBackoff(100)
+				.setMaxBackoff(300).setJitter(0);
+		assertEquals(100, policy.getBackoffMillis(1));
+		assertEquals(200, policy.getBackoffMillis(2));
+		assertEquals(300, policy.getBackoffMillis(3));
+
+		policy.setJitter(0.5);
+		for (int i = 0; i < 20; i++) {
+			long backoff = policy.getBackoffMillis(2);
+			assertTrue(backoff >= 100 && backoff <= 200);
+		}
+	}
+
+	public void testIsRetryable() {
+		RetryPolicy policy = new RetryPolicy();
+		assertTrue(policy.isRetryable(new StatusCodeException(503, "")));
+		assertFalse(policy.isRetryable(new StatusCodeException(500, "")));
+		assertTrue(policy.isRetryable(new InvocationException("",
+				new ConnectException())));
+		assertFalse(policy.isRetryable(new InvocationException("",
+				new IOException())));
+		assertTrue(policy.isRetryable(new RpcTimeoutException(Kind.READ, 1,
+				"", new java.net.SocketTimeoutException())));
+		assertFalse(policy.isRetryable(new RpcTimeoutException(
+				Kind.DEADLINE, 1, "", null)));
+		policy.addRetryableStatusCodes(500);
+		assertTrue(policy.isRetryable(new StatusCodeException(500, "")));
+	}
+
+	public void testRetriesIdempotentMethodsOnly() throws IOException {
+		TestRpcServer server = new TestRpcServer();
+		try {
+			EchoService service = createService(server.createSettings()
+					.setRetryPolicy(
+							new RetryPolicy().setInitialBackoff(1).setJitter(0)));
+			server.enqueue(503, "busy").enqueue(502, "bad gateway");
+			assertEquals("ok", service.get("a"));
+			assertEquals(3, server.getRequestCount());
+			// Same payload sent again
+			assertEquals(server.getPayloads().get(0), server.getPayloads()
+					.get(2));
+
+			server.enqueue(503, "busy");
+			try {
+				service.put("a");
+				fail("Not idempotent, should not be retried");
+			} catch (StatusCodeException e) {
+				assertEquals(503, e.getStatusCode());
+			}
+			assertEquals(4, server.getRequestCount());
+
+			server.enqueue(503, "1").enqueue(503, "2").enqueue(503, "3");
+			try {
+				service.get("a");
+				fail("Attempts exhausted");
+			} catch (StatusCodeException e) {
+				assertEquals(7, server.getRequestCount());
+			}
+		} finally {
+			server.stop();
+		}
+	}
+}
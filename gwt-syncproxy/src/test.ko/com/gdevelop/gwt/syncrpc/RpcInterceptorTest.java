@@ -0,0 +1,137 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.gwt.user.client.rpc.RemoteService;
+
+/**
+ * @since 0.6
+ */
+public class RpcInterceptorTest extends TestCase {
+	interface EchoService extends RemoteService {
+		String echo(String value);
+	}
+
+	static class Recorder implements RpcInterceptor {
+		final String name;
+		final List<String> events;
+
+		Recorder(String name, List<String> events) {
+			this.name = name;
+			this.events = events;
+		}
+
+		@Override
+		public Object interceptInvocation(Invocation invocation)
+				throws Throwable {
+			this.events.add(this.name + " invocation "
+					+ invocation.getMethod().getName() + " "
+					+ Arrays.asList(invocation.getArguments()));
+			return invocation.proceed();
+		}
+
+		@Override
+		public Response interceptRequest(Request request) throws Throwable {
+			this.events.add(this.name + " request");
+			return request.proceed();
+		}
+	}
+
+	private TestRpcServer server;
+
+	@Override
+	protected void setUp() throws IOException {
+		this.server = new TestRpcServer();
+	}
+
+	@Override
+	protected void tearDown() {
+		this.server.stop();
+	}
+
+	public void testRunsInOrder() {
+		List<String> events = Collections
+				.synchronizedList(new ArrayList<String>());
+		EchoService service = createService(EchoService.class,
+				new Recorder("a", events), new Recorder("b", events));
+		assertEquals("ok", service.echo("x"));
+		assertEquals(Arrays.asList("a invocation echo [x]",
+				"b invocation echo [x]", "a request", "b request"), events);
+
+	}
+
+	public void testShortCircuitsInvocation() {
+		EchoService service = createService(EchoService.class,
+				new RpcInterceptorAdapter() {
+					@Override
+					public Object interceptInvocation(Invocation invocation) {
+						return "local " + invocation.getArguments()[0];
+					}
+				});
+		assertEquals("local x", service.echo("x"));
+		assertEquals(0, this.server.getRequestCount());
+	}
+
+	public void testShortCircuitsRequest() {
+		EchoService service = createService(EchoService.class,
+				new RpcInterceptorAdapter() {
+					@Override
+					public Response interceptRequest(Request request) {
+						assertTrue(request.getPayload().contains("echo"));
+						return new Response(200,
+								TestRpcServer.okString("stub"), null);
+					}
+				});
+		assertEquals("stub", service.echo("x"));
+		assertEquals(0, this.server.getRequestCount());
+	}
+
+	public void testSeesHeadersAndResponse() {
+		final List<Integer> statusCodes = new ArrayList<Integer>();
+		EchoService service = createService(EchoService.class,
+				new RpcInterceptorAdapter() {
+					@Override
+					public Response interceptRequest(Request request)
+							throws Throwable {
+						request.getHeaders().put("X-Request-Id", "42");
+						Response response = request.proceed();
+						statusCodes.add(response.getStatusCode());
+						assertNotNull(response.getHeaders().get(
+								"Content-length"));
+						return response;
+					}
+				});
+		this.server.enqueue(200, TestRpcServer.okString("first"));
+		assertEquals("first", service.echo("x"));
+		assertEquals("42", this.server.getRequestHeaders().get(0)
+				.getFirst("X-Request-Id"));
+		assertEquals(Arrays.asList(200), statusCodes);
+	}
+
+	public void testProceedsTwice() {
+		EchoService service = createService(EchoService.class,
+				new RpcInterceptorAdapter() {
+					@Override
+					public Object interceptInvocation(Invocation invocation)
+							throws Throwable {
+						return invocation.proceed() + " "
+								+ invocation.proceed();
+					}
+				});
+		this.server.enqueue(200, TestRpcServer.okString("first"));
+		this.server.enqueue(200, TestRpcServer.okString("second"));
+		assertEquals("first second", service.echo("x"));
+		assertEquals(2, this.server.getRequestCount());
+	}
+
+	private <T> T createService(Class<T> intf, RpcInterceptor... interceptors) {
+		return TestRpcServer.createService(intf, this.server.createSettings()
+				.setInterceptors(Arrays.asList(interceptors)));
+	}
+}
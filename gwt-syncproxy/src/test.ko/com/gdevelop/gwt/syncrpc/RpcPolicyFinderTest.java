@@ -0,0 +1,119 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Tests the classpath and index based policy lookup of
+ * {@link RpcPolicyFinder}. These tests do not require a remote service.
+ *
+ * @since 0.6
+ */
+public class RpcPolicyFinderTest extends TestCase {
+	private static final String POLICY_NAME = "0123456789ABCDEF0123456789ABCDEF";
+
+	private static final String POLICY_CONTENT = "com.example.GreetingService, false, false, false, false, _, 1234\n"
+			+ "java.lang.String, true, true, true, true, java.lang.String/2004016611, 2004016611\n";
+
+	public void testPolicyIndexRoundTrip() throws Exception {
+		Map<String, String> policies = new HashMap<String, String>();
+		policies.put("com.example.GreetingService", POLICY_NAME);
+		policies.put("com.example.GreetingServiceAsync", POLICY_NAME);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		RpcPolicyFinder.writePolicyIndex(policies, out);
+		assertEquals("Async names should not be written",
+				"com.example.GreetingService=" + POLICY_NAME + "\n",
+				out.toString("UTF-8"));
+
+		Map<String, String> read = RpcPolicyFinder
+				.readPolicyIndex(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(policies, read);
+	}
+
+	public void testLoadCountsOneMiss() throws Exception {
+		TestRpcServer server = new TestRpcServer();
+		try {
+			server.setResource(POLICY_NAME + ".gwt.rpc", POLICY_CONTENT);
+			PolicyCache cache = RpcPolicyFinder.getPolicyCache();
+			String url = server.getModuleBaseURL() + POLICY_NAME + ".gwt.rpc";
+			cache.remove(url);
+			long misses = cache.getMissCount();
+			long hits = cache.getHitCount();
+
+			RpcPolicyFinder.getSerializationPolicy(server.getModuleBaseURL(),
+					POLICY_NAME, null);
+			assertEquals(misses + 1, cache.getMissCount());
+			assertEquals(hits, cache.getHitCount());
+			cache.remove(url);
+		} finally {
+			server.stop();
+		}
+	}
+
+	public void testSkipBlank() throws Exception {
+		assertNull(RpcPolicyFinder.skipBlank(new ByteArrayInputStream(
+				new byte[0])));
+		assertNull(RpcPolicyFinder.skipBlank(new ByteArrayInputStream(
+				" \r\n\t".getBytes("UTF-8"))));
+
+		InputStream is = RpcPolicyFinder.skipBlank(new ByteArrayInputStream(
+				("\n" + POLICY_CONTENT).getBytes("UTF-8")));
+		assertEquals(POLICY_CONTENT, IOUtils.toString(is, "UTF-8"));
+	}
+
+	public void testSearchPolicyFileInArchive() throws Exception {
+		File jar = File.createTempFile("policies", ".jar");
+		jar.deleteOnExit();
+		ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(jar));
+		zos.putNextEntry(new ZipEntry(POLICY_NAME + ".gwt.rpc"));
+		zos.write(POLICY_CONTENT.getBytes("UTF-8"));
+		zos.closeEntry();
+		zos.putNextEntry(new ZipEntry("nested/FEDCBA9876543210FEDCBA9876543210.gwt.rpc"));
+		zos.write("com.example.Other, false, false, false, false, _, 1\n"
+				.getBytes("UTF-8"));
+		zos.closeEntry();
+		zos.close();
+
+		Map<String, String> result = RpcPolicyFinder
+				.searchPolicyFileInArchive(jar.getPath());
+		assertEquals(2, result.size());
+		assertEquals(POLICY_NAME, result.get("com.example.GreetingService"));
+		assertEquals(POLICY_NAME,
+				result.get("com.example.GreetingServiceAsync"));
+	}
+
+	public void testSearchPolicyFileInArchiveClassRoots() throws Exception {
+		File war = File.createTempFile("policies", ".war");
+		war.deleteOnExit();
+		ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(war));
+		zos.putNextEntry(new ZipEntry("WEB-INF/classes/" + POLICY_NAME
+				+ ".gwt.rpc"));
+		zos.write(POLICY_CONTENT.getBytes("UTF-8"));
+		zos.closeEntry();
+		zos.putNextEntry(new ZipEntry(
+				"WEB-INF/classes/nested/FEDCBA9876543210FEDCBA9876543210.gwt.rpc"));
+		zos.write("com.example.Other, false, false, false, false, _, 1\n"
+				.getBytes("UTF-8"));
+		zos.closeEntry();
+		zos.close();
+
+		Map<String, String> result = RpcPolicyFinder
+				.searchPolicyFileInArchive(war.getPath());
+		assertEquals(2, result.size());
+		assertEquals(POLICY_NAME, result.get("com.example.GreetingService"));
+		assertEquals(POLICY_NAME,
+				result.get("com.example.GreetingServiceAsync"));
+	}
+}
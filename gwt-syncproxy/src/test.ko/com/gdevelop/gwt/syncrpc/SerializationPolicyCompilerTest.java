@@ -0,0 +1,92 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import com.google.gwt.user.client.rpc.SerializationException;
+import com.google.gwt.user.server.rpc.SerializationPolicy;
+
+/**
+ * @since 0.6
+ */
+public class SerializationPolicyCompilerTest extends TestCase {
+	private static final String POLICY = "com.example.GreetingService, false, false, false, false, _, 1234\n"
+			+ "java.lang.String, true, true, true, true, java.lang.String/2004016611, 2004016611\n"
+			+ "java.util.ArrayList, true, true, false, false, java.util.ArrayList/4159755760, 4159755760\n"
+			+ "com.example.Missing, true, true, true, true, com.example.Missing/1, 1\n"
+			+ "@ClientFields,java.util.ArrayList,size\n";
+
+	public void testCompileAndLoad() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SerializationPolicyCompiler.compile(
+				new ByteArrayInputStream(POLICY.getBytes("UTF-8")), out);
+		assertTrue("Compiled policy should be smaller",
+				out.size() < POLICY.length());
+
+		LazySerializationPolicy policy = SerializationPolicyCompiler
+				.load(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(4, policy.getTypeCount());
+		assertEquals("No class should be loaded yet", 0,
+				policy.getResolvedTypeCount());
+
+		assertEquals("java.lang.String/2004016611",
+				policy.getTypeIdForClass(String.class));
+		policy.validateSerialize(String.class);
+		policy.validateDeserialize(String.class);
+		assertEquals(1, policy.getResolvedTypeCount());
+
+		// Server may serialize ArrayList, so we deserialize it
+		policy.validateDeserialize(ArrayList.class);
+		assertTrue(policy.shouldDeserializeFields(ArrayList.class));
+		assertFalse(policy.shouldSerializeFields(ArrayList.class));
+		try {
+			policy.validateSerialize(ArrayList.class);
+			fail("Should have thrown exception");
+		} catch (SerializationException expected) {
+		}
+		assertTrue(policy.getClientFieldNamesForEnhancedClass(
+				ArrayList.class).contains("size"));
+
+		assertNull(policy.getClassNameForTypeId("com.example.Missing/1"));
+		assertEquals("java.lang.String",
+				policy.getClassNameForTypeId("java.lang.String/2004016611"));
+		assertEquals(2, policy.getResolvedTypeCount());
+	}
+
+	public void testCompileRejectsTooManyClientFields() throws Exception {
+		StringBuilder policy = new StringBuilder(POLICY).append(
+				"@ClientFields,com.example.Large");
+		for (int i = 0; i <= 0xFFFF; i++) {
+			policy.append(",f").append(i);
+		}
+		try {
+			SerializationPolicyCompiler.compile(new ByteArrayInputStream(
+					policy.append('\n').toString().getBytes("UTF-8")),
+					new ByteArrayOutputStream());
+			fail("IOException expected");
+		} catch (IOException expected) {
+		}
+	}
+
+	public void testLoadWithoutErrorListIsLazy() throws Exception {
+		SerializationPolicy policy = SerializationPolicyLoader.loadFromStream(
+				new ByteArrayInputStream(POLICY.getBytes("UTF-8")), null);
+		assertTrue(policy instanceof LazySerializationPolicy);
+		assertEquals(0,
+				((LazySerializationPolicy) policy).getResolvedTypeCount());
+		policy.validateSerialize(String.class);
+		assertEquals(1,
+				((LazySerializationPolicy) policy).getResolvedTypeCount());
+	}
+
+	public void testEagerLoadReportsMissingClasses() throws Exception {
+		ArrayList<ClassNotFoundException> missing = new ArrayList<ClassNotFoundException>();
+		SerializationPolicyLoader.loadFromStream(new ByteArrayInputStream(
+				POLICY.getBytes("UTF-8")), missing);
+		assertEquals(2, missing.size());
+	}
+}
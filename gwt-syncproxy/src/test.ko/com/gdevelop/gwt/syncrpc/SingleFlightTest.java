@@ -0,0 +1,82 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * @since 0.6
+ */
+public class SingleFlightTest extends TestCase {
+
+	public void testConcurrentCallsShareOneExecution() throws Exception {
+		final SingleFlight<String, String> flights = new SingleFlight<String, String>();
+		final AtomicInteger executions = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Callable<String> slowCall = new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				executions.incrementAndGet();
+				started.countDown();
+				release.await();
+				return "policy";
+			}
+		};
+
+		final String[] results = new String[4];
+		Thread[] threads = new Thread[results.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						results[index] = flights.execute("module", slowCall);
+					} catch (Exception e) {
+						fail(e.toString());
+					}
+				}
+			};
+			threads[i].start();
+			if (i == 0) {
+				assertTrue(started.await(5, TimeUnit.SECONDS));
+			}
+		}
+		// Let the waiters reach the in flight call
+		while (!flights.isInFlight("module")) {
+			Thread.sleep(1);
+		}
+		Thread.sleep(50);
+		release.countDown();
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+
+		assertEquals(1, executions.get());
+		for (String result : results) {
+			assertEquals("policy", result);
+		}
+		assertFalse(flights.isInFlight("module"));
+	}
+
+	public void testExceptionIsPropagated() throws Exception {
+		SingleFlight<String, String> flights = new SingleFlight<String, String>();
+		try {
+			flights.execute("module", new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					throw new IOException("unreachable");
+				}
+			});
+			fail("Should have thrown exception");
+		} catch (IOException e) {
+			assertEquals("unreachable", e.getMessage());
+		}
+		assertFalse(flights.isInFlight("module"));
+	}
+}
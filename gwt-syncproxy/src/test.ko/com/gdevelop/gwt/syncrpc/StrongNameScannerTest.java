@@ -0,0 +1,68 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the streaming strong name detection used by {@link RpcPolicyFinder}
+ *
+ * @since 0.6
+ */
+public class StrongNameScannerTest extends TestCase {
+	private static final String NAME_1 = "0123456789ABCDEF0123456789ABCDEF";
+	private static final String NAME_2 = "FEDCBA9876543210FEDCBA9876543210";
+
+	private static List<String> scan(StrongNameScanner scanner)
+			throws Exception {
+		List<String> names = new ArrayList<String>();
+		String name;
+		while ((name = scanner.next()) != null) {
+			names.add(name);
+		}
+		return names;
+	}
+
+	private static ByteArrayInputStream stream(String text) throws Exception {
+		return new ByteArrayInputStream(text.getBytes("UTF-8"));
+	}
+
+	public void testQuoted() throws Exception {
+		String text = "var a='" + NAME_1 + "',b='" + NAME_1
+				+ "X',c=\"" + NAME_2 + "\",d='" + NAME_2 + "'";
+		List<String> names = scan(StrongNameScanner.quoted(stream(text), '\''));
+		assertEquals(2, names.size());
+		assertEquals(NAME_1, names.get(0));
+		assertEquals(NAME_2, names.get(1));
+
+		names = scan(StrongNameScanner.quoted(stream(text), '"'));
+		assertEquals(1, names.size());
+		assertEquals(NAME_2, names.get(0));
+	}
+
+	public void testSuffixed() throws Exception {
+		String text = "permutation " + NAME_1 + ".cache.html\n" + "XY"
+				+ NAME_2 + ".cache.js\n" + NAME_1 + ".cachejs";
+		List<String> names = scan(StrongNameScanner.suffixed(stream(text),
+				".cache.js"));
+		assertEquals(1, names.size());
+		assertEquals(NAME_2, names.get(0));
+	}
+
+	public void testMarker() throws Exception {
+		StrongNameScanner scanner = StrongNameScanner.quoted(
+				stream("'" + NAME_1 + "' x.cache.cache.js"), '\'').watch(
+				".cache.js");
+		assertEquals(NAME_1, scanner.next());
+		assertFalse(scanner.hasSeenMarker());
+		scanner.skipToEnd();
+		assertTrue(scanner.hasSeenMarker());
+
+		scanner = StrongNameScanner.quoted(stream("'" + NAME_1 + "'.cache"),
+				'\'').watch(".cache.js");
+		scanner.skipToEnd();
+		assertFalse(scanner.hasSeenMarker());
+	}
+}
@@ -20,6 +20,27 @@ public class SyncProxyCoreTests extends TestSuite {
 		TestSuite suite = new TestSuite("SyncProxy Core Tests");
 		suite.addTestSuite(SyncProxyTest.class);
 		suite.addTestSuite(RemoteServiceInvocationHandlerTest.class);
+		suite.addTestSuite(RpcPolicyFinderTest.class);
+		suite.addTestSuite(PolicyCacheTest.class);
+		suite.addTestSuite(StrongNameScannerTest.class);
+		suite.addTestSuite(SingleFlightTest.class);
+		suite.addTestSuite(SerializationPolicyCompilerTest.class);
+		suite.addTestSuite(PolicyWatcherTest.class);
+		suite.addTestSuite(CallTimeoutsTest.class);
+		suite.addTestSuite(RetryPolicyTest.class);
+		suite.addTestSuite(HedgingTest.class);
+		suite.addTestSuite(CircuitBreakerTest.class);
+		suite.addTestSuite(LoadBalancerTest.class);
+		suite.addTestSuite(BulkheadTest.class);
+		suite.addTestSuite(RateLimiterTest.class);
+		suite.addTestSuite(CoalesceTest.class);
+		suite.addTestSuite(ResponseCacheTest.class);
+		suite.addTestSuite(MetricsRegistryTest.class);
+		suite.addTestSuite(FlightRecorderEventTest.class);
+		suite.addTestSuite(RpcInterceptorTest.class);
+		suite.addTestSuite(QuietModeTest.class);
+		suite.addTestSuite(InMemoryTracerTest.class);
+		suite.addTestSuite(RefreshPolicyTest.class);
 		return suite;
 	}
 }
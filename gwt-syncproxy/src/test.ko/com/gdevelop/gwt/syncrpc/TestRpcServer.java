@@ -0,0 +1,218 @@
+package com.gdevelop.gwt.syncrpc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.CookieManager;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local RPC endpoint answering scripted responses, in order, then the default
+ * response. Records the received payloads and headers. GET requests are
+ * answered with the resources of the module, such as policy files.
+ *
+ * @since 0.6
+ */
+public class TestRpcServer {
+	public static class Reply {
+		final int status;
+		final String body;
+		final long delayMillis;
+
+		public Reply(int status, String body, long delayMillis) {
+			this.status = status;
+			this.body = body;
+			this.delayMillis = delayMillis;
+		}
+	}
+
+	/**
+	 * @return the //OK response of a method returning the provided String
+	 */
+	public static String okString(String value) {
+		return "//OK[1,[\"" + value + "\"],0,7]";
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final LinkedBlockingQueue<Reply> replies = new LinkedBlockingQueue<Reply>();
+	private volatile Reply defaultReply = new Reply(200, okString("ok"), 0);
+	private final List<String> payloads = new CopyOnWriteArrayList<String>();
+	private final List<Headers> requestHeaders = new CopyOnWriteArrayList<Headers>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final ConcurrentMap<String, Reply> resources = new ConcurrentHashMap<String, Reply>();
+	private final List<String> resourceRequests = new CopyOnWriteArrayList<String>();
+
+	public TestRpcServer() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0),
+				0);
+		this.server.setExecutor(this.executor);
+		this.server.createContext("/module/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				handleExchange(exchange);
+			}
+		});
+		this.server.start();
+	}
+
+	/**
+	 * @return settings of a service of this server, without policy, waiting
+	 *         for the invocation of asynchronous calls
+	 */
+	public ProxySettings createSettings() {
+		return new ProxySettings(getModuleBaseURL(), "service", null,
+				new CookieManager(), true);
+	}
+
+	/**
+	 * @return a proxy of the service interface, calling with the settings
+	 */
+	public static <T> T createService(Class<T> intf, ProxySettings settings) {
+		return intf.cast(Proxy.newProxyInstance(intf.getClassLoader(),
+				new Class[] { intf }, new RemoteServiceInvocationHandler(
+						settings)));
+	}
+
+	public TestRpcServer enqueue(int status, String body) {
+		return enqueue(new Reply(status, body, 0));
+	}
+
+	public TestRpcServer enqueue(Reply reply) {
+		this.replies.add(reply);
+		return this;
+	}
+
+	public int getMaxInFlight() {
+		return this.maxInFlight.get();
+	}
+
+	public String getModuleBaseURL() {
+		return "http://localhost:" + this.server.getAddress().getPort()
+				+ "/module/";
+	}
+
+	/**
+	 * @return the number of GET requests of the resource
+	 */
+	public int getResourceRequestCount(String name) {
+		int count = 0;
+		for (String request : this.resourceRequests) {
+			if (request.equals(name)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public List<String> getPayloads() {
+		return this.payloads;
+	}
+
+	public List<Headers> getRequestHeaders() {
+		return this.requestHeaders;
+	}
+
+	public int getRequestCount() {
+		return this.payloads.size();
+	}
+
+	public void setDefaultReply(Reply reply) {
+		this.defaultReply = reply;
+	}
+
+	/**
+	 * Serves a resource of the module, such as <code>module.nocache.js</code>
+	 * or a policy file
+	 */
+	public TestRpcServer setResource(String name, String body) {
+		return setResource(name, new Reply(200, body, 0));
+	}
+
+	public TestRpcServer setResource(String name, Reply reply) {
+		this.resources.put(name, reply);
+		return this;
+	}
+
+	public void stop() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+
+	private void handleExchange(HttpExchange exchange) throws IOException {
+		if ("GET".equals(exchange.getRequestMethod())) {
+			handleResource(exchange);
+			return;
+		}
+		int current = this.inFlight.incrementAndGet();
+		int max;
+		while (current > (max = this.maxInFlight.get())
+				&& !this.maxInFlight.compareAndSet(max, current)) {
+			// Retry
+		}
+		try {
+			InputStream is = exchange.getRequestBody();
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int len;
+			while ((len = is.read(buffer)) > 0) {
+				baos.write(buffer, 0, len);
+			}
+			this.requestHeaders.add(exchange.getRequestHeaders());
+			this.payloads.add(baos.toString("UTF-8"));
+
+			Reply reply = this.replies.poll();
+			if (reply == null) {
+				reply = this.defaultReply;
+			}
+			send(exchange, reply);
+		} finally {
+			this.inFlight.decrementAndGet();
+			exchange.close();
+		}
+	}
+
+	private void handleResource(HttpExchange exchange) throws IOException {
+		try {
+			String path = exchange.getRequestURI().getPath();
+			String name = path.substring(path.lastIndexOf('/') + 1);
+			this.resourceRequests.add(name);
+			Reply reply = this.resources.get(name);
+			send(exchange, reply == null ? new Reply(404, "Not found", 0)
+					: reply);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void send(HttpExchange exchange, Reply reply) throws IOException {
+		if (reply.delayMillis > 0) {
+			try {
+				Thread.sleep(reply.delayMillis);
+			} catch (InterruptedException e) {
+				// Ignore
+			}
+		}
+		byte[] bytes = reply.body.getBytes("UTF-8");
+		exchange.sendResponseHeaders(reply.status, bytes.length);
+		OutputStream os = exchange.getResponseBody();
+		os.write(bytes);
+		os.close();
+	}
+}